@@ -63,7 +63,9 @@ public class LiteralImpl implements Literal {
         if (value == null) {
             out.append("null");
         } else if (value instanceof String) {
-        	out.append('"').append(AuraTextUtil.escapeForJSONString(value.toString())).append('"');
+        	out.append('"');
+        	AuraTextUtil.escapeForJSONString(value.toString(), out);
+        	out.append('"');
         } else if (value instanceof Number) {
         	out.append(value.toString());
         } else if (value instanceof Boolean) {
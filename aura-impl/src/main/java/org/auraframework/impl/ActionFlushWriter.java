@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A writer that flushes the response between actions.
+ *
+ * The actions of a message are written one after another. Without a flush the container holds on to them until the
+ * whole message is done, so the client waits for the slowest action. After each action this flushes what has been
+ * written once there is enough of it, or once enough time has gone by since the last flush.
+ */
+class ActionFlushWriter extends FilterWriter {
+    private final long flushSize;
+    private final long flushMillis;
+    private long pending;
+    private long lastFlush;
+
+    /**
+     * @param out the response writer.
+     * @param flushSize the number of characters to gather before flushing, 0 to ignore the size.
+     * @param flushMillis the time after which to flush whatever has been written, 0 to ignore the time.
+     */
+    ActionFlushWriter(Writer out, long flushSize, long flushMillis) {
+        super(out);
+        this.flushSize = flushSize;
+        this.flushMillis = flushMillis;
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        out.write(c);
+        pending += 1;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        out.write(cbuf, off, len);
+        pending += len;
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        out.write(str, off, len);
+        pending += len;
+    }
+
+    /**
+     * Called once an action is written, flushes if the size or time is reached.
+     *
+     * @return true if the writer was flushed.
+     */
+    boolean actionWritten() throws IOException {
+        long now = System.currentTimeMillis();
+        if (pending > 0 && ((flushSize > 0 && pending >= flushSize)
+                || (flushMillis > 0 && now - lastFlush >= flushMillis))) {
+            flush();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+        pending = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+}
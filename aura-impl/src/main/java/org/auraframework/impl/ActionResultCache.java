@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.auraframework.cache.Cache;
+import org.auraframework.def.BaseComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.instance.Action;
+import org.auraframework.instance.ActionDelegate;
+import org.auraframework.system.Annotations.CacheableAction;
+import org.auraframework.system.AuraContext;
+import org.auraframework.util.json.Json;
+import org.auraframework.util.json.JsonBinaryDecoder;
+import org.auraframework.util.json.JsonBinaryEncoder;
+import org.auraframework.util.json.JsonEncoder;
+import org.auraframework.util.json.JsonSerializable;
+
+/**
+ * The serialized results of cacheable actions.
+ *
+ * A result is kept for the time given by its {@link CacheableAction}, under a key made of the action, its parameters
+ * and, as asked for, the user, the requested locales and the version of the application. Return values are kept in
+ * the binary form of {@link JsonBinaryEncoder}, where the keys repeated through a list of records are only stored once.
+ */
+class ActionResultCache {
+    private final Cache<String, Entry> cache;
+
+    ActionResultCache(Cache<String, Entry> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @param user the key of the current user, may be null.
+     * @return the key for the result of the action, or null if it can't be cached.
+     */
+    String getKey(Action action, AuraContext context, String user) {
+        CacheableAction cacheable = action.getCacheable();
+        if (cacheable == null || (cacheable.user() && user == null)) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(action.getDescriptor().getQualifiedName());
+        Map<String, Object> params = action.getParams();
+        key.append('|');
+        // the order of the parameters is up to the client
+        JsonEncoder.serialize(params != null ? new TreeMap<>(params) : null, key,
+                context.getJsonSerializationContext());
+        if (cacheable.user()) {
+            key.append("|u:").append(user);
+        }
+        if (cacheable.locale()) {
+            key.append("|l:").append(context.getRequestedLocales());
+        }
+        if (cacheable.app()) {
+            DefDescriptor<? extends BaseComponentDef> app = context.getApplicationDescriptor();
+            key.append("|a:").append(app != null ? context.getUid(app) : null);
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return the serialized return value cached under the key, or null if there is none or it has expired.
+     */
+    byte[] get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires <= System.currentTimeMillis()) {
+            cache.invalidate(key);
+            return null;
+        }
+        return entry.returnValue;
+    }
+
+    /**
+     * Cache the result of an action that has just run, if it can be replayed from its return value alone.
+     *
+     * @param clientEvents the number of client events before the action ran.
+     * @return the serialized return value, or null if the result isn't cached.
+     */
+    byte[] put(String key, Action action, AuraContext context, int clientEvents) {
+        List<Action> additional = action.getActions();
+        List<?> events = context.getClientEvents();
+        if (action.getState() != Action.State.SUCCESS || !action.getErrors().isEmpty()
+                || (additional != null && !additional.isEmpty())
+                || !action.getInstanceStack().getComponents().isEmpty()
+                || (events != null ? events.size() : 0) != clientEvents) {
+            return null;
+        }
+        byte[] returnValue = JsonBinaryEncoder.toBytes(action.getReturnValue(), context.getJsonSerializationContext());
+        long ttl = TimeUnit.SECONDS.toMillis(action.getCacheable().ttl());
+        cache.put(key, new Entry(returnValue, System.currentTimeMillis() + ttl));
+        return returnValue;
+    }
+
+    static class Entry {
+        private final byte[] returnValue;
+        private final long expires;
+
+        Entry(byte[] returnValue, long expires) {
+            this.returnValue = returnValue;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * An action answered with a serialized return value, in place of running it.
+     */
+    static class CachedAction extends ActionDelegate {
+        private final ReturnValue returnValue;
+
+        CachedAction(Action original, byte[] returnValue) {
+            super(original);
+            this.returnValue = new ReturnValue(returnValue);
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public Object getReturnValue() {
+            return returnValue;
+        }
+
+        @Override
+        public State getState() {
+            return State.SUCCESS;
+        }
+
+        @Override
+        public void serialize(Json json) throws IOException {
+            Action.SERIALIZER.serialize(json, this);
+        }
+    }
+
+    /**
+     * A serialized return value, written by playing it back onto the response.
+     */
+    private static class ReturnValue implements JsonSerializable {
+        private final byte[] bytes;
+
+        ReturnValue(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void serialize(Json json) throws IOException {
+            new JsonBinaryDecoder(bytes).writeTo(json);
+        }
+    }
+}
@@ -63,6 +63,7 @@ public class CachingServiceImpl implements CachingService {
     /** Default size of string caches, in number of entries */
     private final static int STRING_CACHE_SIZE = 100;
     private final static int ALT_STRINGS_CACHE_SIZE = 100;
+    private final static int COMPRESSED_STRINGS_CACHE_SIZE = 100;
 
     /** Default size of client lib caches, in number of entries */
     private final static int CLIENT_LIB_CACHE_SIZE = 30;
@@ -95,6 +96,7 @@ public class CachingServiceImpl implements CachingService {
     private Cache<DefDescriptor<?>, Optional<? extends Definition>> defsCache;
     private Cache<String, String> stringsCache;
     private Cache<String, String> altStringsCache;
+    private Cache<String, byte[]> compressedStringsCache;
     private Cache<String, Set<DefDescriptor<?>>> descriptorFilterCache;
     /**
      * depsCache contains multiple entries for dependencies.
@@ -148,6 +150,15 @@ public class CachingServiceImpl implements CachingService {
                 .setName("altStringsCache")
                 .setSoftValues(true).build();
 
+        size = getCacheSize("aura.cache.compressedStringsCacheSize", COMPRESSED_STRINGS_CACHE_SIZE);
+        compressedStringsCache = this.<String, byte[]> getCacheBuilder()
+                .setInitialSize(size)
+                .setLoggingAdapter(loggingAdapter)
+                .setMaximumSize(size)
+                .setRecordStats(true)
+                .setName("compressedStringsCache")
+                .setSoftValues(true).build();
+
         size = getCacheSize("aura.cache.filterCacheSize", FILTER_CACHE_SIZE);
         descriptorFilterCache = this
                 .<String, Set<DefDescriptor<?>>> getCacheBuilder()
@@ -219,6 +230,11 @@ public class CachingServiceImpl implements CachingService {
         return altStringsCache;
     }
 
+    @Override
+    public final Cache<String, byte[]> getCompressedStringsCache() {
+        return compressedStringsCache;
+    }
+
     @Override
     public final Cache<String, Set<DefDescriptor<?>>> getDescriptorFilterCache() {
         return descriptorFilterCache;
@@ -308,6 +324,7 @@ public class CachingServiceImpl implements CachingService {
         descriptorFilterCache.invalidateAll();
         stringsCache.invalidateAll();
         altStringsCache.invalidateAll();
+        compressedStringsCache.invalidateAll();
         clientLibraryOutputCache.invalidateAll();
         registrySetCache.invalidateAll();
 
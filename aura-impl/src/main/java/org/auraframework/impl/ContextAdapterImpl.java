@@ -72,6 +72,11 @@ public class ContextAdapterImpl implements ContextAdapter {
         return context;
     }
 
+    @Override
+    public void attach(AuraContext context) {
+        currentContext.set(context);
+    }
+
     @Override
     public AuraContext pushSystemContext() {
         MutableInteger count = systemDepth.get();
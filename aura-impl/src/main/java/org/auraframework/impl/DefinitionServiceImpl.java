@@ -55,6 +55,7 @@ import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Authentication;
 import org.auraframework.system.BundleSource;
 import org.auraframework.system.DefRegistry;
+import org.auraframework.system.DefDescriptorBitSet;
 import org.auraframework.system.DependencyEntry;
 import org.auraframework.system.Location;
 import org.auraframework.system.RegistrySet;
@@ -526,13 +527,14 @@ public class DefinitionServiceImpl implements DefinitionService {
     @Override
     public void updateLoaded(DefDescriptor<?> loading) throws QuickFixException, ClientOutOfSyncException {
         AuraContext context;
-        Set<DefDescriptor<?>> loaded = Sets.newHashSet();
-        Set<DefDescriptor<?>> prev = Sets.newHashSet();
-        Set<DefDescriptor<?>> remove = null;
+        Set<DefDescriptor<?>> loaded;
+        DefDescriptorBitSet remove = null;
 
         contextService.assertEstablished();
         context = contextService.getCurrentContext();
         if (context.getPreloadedDefinitions() == null) {
+            DefDescriptorBitSet preloaded = new DefDescriptorBitSet();
+            DefDescriptorBitSet prev = new DefDescriptorBitSet();
             //
             // TODO (optimize): we could reverse this set randomly to try
             // to sanitize the list in opposite directions. No need to be
@@ -540,7 +542,7 @@ public class DefinitionServiceImpl implements DefinitionService {
             //
             for (Map.Entry<DefDescriptor<?>, String> entry : context.getClientLoaded().entrySet()) {
                 DefDescriptor<?> descriptor = entry.getKey();
-                if (loaded.contains(descriptor)) {
+                if (preloaded.contains(descriptor)) {
                     context.dropLoaded(descriptor);
                 } else {
                     // validate the uid.
@@ -566,20 +568,22 @@ public class DefinitionServiceImpl implements DefinitionService {
                     if (qfe != null) {
                         throw qfe;
                     }
-                    Set<DefDescriptor<?>> deps = getDependencies(uid);
-                    loaded.addAll(deps);
-                    for (DefDescriptor<?> x : prev) {
-                        if (deps.contains(x)) {
-                            if (remove == null) {
-                                remove = Sets.newHashSet();
-                            }
-                            remove.add(x);
+                    DefDescriptorBitSet deps = context.getLocalDependencyEntry(uid).dependencyBits;
+                    preloaded.addAll(deps);
+                    if (prev.intersects(deps)) {
+                        DefDescriptorBitSet covered = new DefDescriptorBitSet(prev);
+                        covered.retainAll(deps);
+                        if (remove == null) {
+                            remove = covered;
+                        } else {
+                            remove.addAll(covered);
                         }
                     }
                     prev.add(descriptor);
                 }
             }
-            context.setPreloadedDefinitions(loaded);
+            context.setPreloadedDefinitions(preloaded);
+            loaded = preloaded;
         } else {
             loaded = context.getPreloadedDefinitions();
         }
@@ -35,6 +35,11 @@ public class LoggingAdapterImpl implements LoggingAdapter {
         return lc;
     }
 
+    @Override
+    public void attach(LoggingContext loggingContext) {
+        currentContext.set(loggingContext);
+    }
+
     @Override
     public boolean isEstablished() {
         return currentContext.get() != null;
@@ -165,10 +165,16 @@ public class LoggingServiceImpl implements LoggingService {
         }
     }
 
+    @Override
+    public void attach(LoggingContext loggingContext) {
+        this.loggingAdapter.attach(loggingContext);
+    }
+
     /**
      * Get the logging context
      */
-    protected LoggingContext getLoggingContext() {
+    @Override
+    public LoggingContext getLoggingContext() {
         if (this.loggingAdapter == null || !this.loggingAdapter.isEstablished()) {
             return null;
         }
@@ -21,10 +21,19 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
 import org.auraframework.adapter.ConfigAdapter;
@@ -67,6 +76,7 @@ import org.auraframework.system.DependencyEntry;
 import org.auraframework.system.LoggingContext.KeyValueLogger;
 import org.auraframework.system.Message;
 import org.auraframework.throwable.AuraExecutionException;
+import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.javascript.Literal;
 import org.auraframework.util.json.JsonEncoder;
@@ -125,10 +135,92 @@ public class ServerServiceImpl implements ServerService {
 
     private Cache<String, String> altStringsCache;
 
+    /**
+     * The length of the definitions last written for each application, to size the buffer for the next ones.
+     */
+    private final Map<DefDescriptor<?>, Integer> definitionsLengths = new ConcurrentHashMap<>();
+
+    /**
+     * The size of a buffer for definitions not written before, and the largest a buffer is made to start with.
+     */
+    private static final int DEFAULT_DEFINITIONS_LENGTH = 16 * 1024;
+    private static final int MAX_DEFINITIONS_LENGTH = 1024 * 1024;
+
+    private ActionResultCache actionResultCache;
+
+    /**
+     * The number of cacheable action results kept.
+     */
+    private static final int ACTION_RESULT_CACHE_SIZE = Integer.getInteger("aura.cache.actionResultCacheSize", 1000);
+
     @PostConstruct
     private void setCaches() {
         this.stringsCache = cachingService.getStringsCache();
         this.altStringsCache = cachingService.getAltStringsCache();
+        this.actionResultCache = new ActionResultCache(cachingService.<String, ActionResultCache.Entry> getCacheBuilder()
+                .setInitialSize(ACTION_RESULT_CACHE_SIZE)
+                .setMaximumSize(ACTION_RESULT_CACHE_SIZE)
+                .setRecordStats(true)
+                .setName("actionResultCache")
+                .setSoftValues(true).build());
+    }
+
+    /**
+     * The number of threads for running parallel actions, none unless set.
+     */
+    private static final int PARALLEL_ACTION_THREADS = Integer.getInteger("aura.parallelActionThreads", 0);
+
+    /**
+     * The number of parallel actions that may wait for a thread, the rest run on the request thread.
+     */
+    private static final int PARALLEL_ACTION_QUEUE_DEPTH = Integer.getInteger("aura.parallelActionQueueDepth", 256);
+
+    private ThreadPoolExecutor parallelActionExecutor;
+
+    /**
+     * Flush the response after an action once this many characters are waiting, none unless set.
+     *
+     * With either flush set, the client hands each action its response as soon as it arrives. The context of the
+     * response comes after all of the actions, so the callbacks of those actions run before the labels and global
+     * values added by the message are merged on the client. Actions whose callbacks need them must not be sent to a
+     * server with flushing on. The token is written before the actions, so it is in place for the callbacks.
+     */
+    private static final long ACTION_FLUSH_SIZE = Long.getLong("aura.actionFlushSize", 0);
+
+    /**
+     * Flush the response after an action once this many milliseconds have gone by since the last flush, none unless
+     * set.
+     */
+    private static final long ACTION_FLUSH_MILLIS = Long.getLong("aura.actionFlushMillis", 0);
+
+    @PostConstruct
+    private void createParallelActionExecutor() {
+        if (PARALLEL_ACTION_THREADS > 0) {
+            parallelActionExecutor = createParallelActionExecutor(PARALLEL_ACTION_THREADS,
+                    PARALLEL_ACTION_QUEUE_DEPTH);
+        }
+    }
+
+    static ThreadPoolExecutor createParallelActionExecutor(int threads, int queueDepth) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueDepth), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "AuraParallelAction-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @PreDestroy
+    private void shutdownParallelActionExecutor() {
+        if (parallelActionExecutor != null) {
+            parallelActionExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -140,6 +232,11 @@ public class ServerServiceImpl implements ServerService {
         }
         List<Action> actions = message.getActions();
         JsonSerializationContext serializationContext = context.getJsonSerializationContext();
+        ActionFlushWriter flusher = null;
+        if (ACTION_FLUSH_SIZE > 0 || ACTION_FLUSH_MILLIS > 0) {
+            flusher = new ActionFlushWriter(out, ACTION_FLUSH_SIZE, ACTION_FLUSH_MILLIS);
+            out = flusher;
+        }
         JsonEncoder json = JsonEncoder.createJsonStream(out, serializationContext);
         try {
             json.writeMapBegin();
@@ -148,9 +245,14 @@ public class ServerServiceImpl implements ServerService {
                     json.writeMapEntry(entry.getKey(), entry.getValue());
                 }
             }
+            if (flusher != null) {
+                // tells the client that actions may arrive before the rest of the response, this
+                // must come right before the actions.
+                json.writeMapEntry("streaming", true);
+            }
             json.writeMapKey("actions");
             json.writeArrayBegin();
-            run(actions, json, 0);
+            run(actions, json, 0, flusher);
             json.writeArrayEnd();
 
             loggingService.startTimer(LoggingService.TIMER_SERIALIZATION);
@@ -188,8 +290,9 @@ public class ServerServiceImpl implements ServerService {
         }
     }
 
-    private int run(List<Action> actions, JsonEncoder json, int idx) throws IOException {
+    private int run(List<Action> actions, JsonEncoder json, int idx, ActionFlushWriter flusher) throws IOException {
         AuraContext context = contextService.getCurrentContext();
+        Map<Action, Future<AuraContext>> started = startParallelActions(actions, context);
         for (Action action : actions) {
             StringBuffer actionAndParams = new StringBuffer(action.getDescriptor().getQualifiedName());
             KeyValueLogger logger = loggingService.getKeyValueLogger(actionAndParams);
@@ -198,38 +301,194 @@ public class ServerServiceImpl implements ServerService {
             }
             String aap = String.valueOf(++idx)+"$"+actionAndParams.toString();
             loggingService.startAction(aap);
-            Action oldAction = context.setCurrentAction(action);
-            try {
-                action.run();
-            } catch (AuraExecutionException x) {
-                exceptionAdapter.handleException(x, action);
-            } finally {
-                context.setCurrentAction(oldAction);
+            String cacheKey = getActionResultCacheKey(action, context);
+            byte[] cached = null;
+            if (cacheKey != null) {
+                cached = actionResultCache.get(cacheKey);
+                loggingService.incrementNum(cached != null ? LoggingService.ACTION_CACHE_HITS
+                        : LoggingService.ACTION_CACHE_MISSES);
+            }
+            Future<AuraContext> fork = started.remove(action);
+            if (cached != null) {
                 loggingService.stopAction(aap);
+            } else if (fork != null) {
+                // the action runs without the logging context, which isn't thread safe, so this
+                // logs the time spent waiting for it
+                try {
+                    context.join(getParallelResult(fork));
+                } finally {
+                    loggingService.stopAction(aap);
+                }
+            } else {
+                List<Event> events = context.getClientEvents();
+                int clientEvents = events != null ? events.size() : 0;
+                Action oldAction = context.setCurrentAction(action);
+                try {
+                    action.run();
+                } catch (AuraExecutionException x) {
+                    exceptionAdapter.handleException(x, action);
+                } finally {
+                    context.setCurrentAction(oldAction);
+                    loggingService.stopAction(aap);
+                }
+                if (cacheKey != null) {
+                    cached = actionResultCache.put(cacheKey, action, context, clientEvents);
+                }
             }
             loggingService.startTimer(LoggingService.TIMER_SERIALIZATION);
             loggingService.startTimer(LoggingService.TIMER_SERIALIZATION_AURA);
             try {
-                json.writeArrayEntry(action);
+                json.writeArrayEntry(cached != null ? new ActionResultCache.CachedAction(action, cached) : action);
             } finally {
                 loggingService.stopTimer(LoggingService.TIMER_SERIALIZATION_AURA);
                 loggingService.stopTimer(LoggingService.TIMER_SERIALIZATION);
             }
+            if (flusher != null) {
+                flusher.actionWritten();
+            }
 
             List<Action> additionalActions = action.getActions();
 
             // Recursively process any additional actions created by the
             // action
             if (additionalActions != null && !additionalActions.isEmpty()) {
-                idx = run(additionalActions, json, idx);
+                idx = run(additionalActions, json, idx, flusher);
             }
         }
         return idx;
     }
 
+    /**
+     * @return the key for the cached result of the action, or null if it isn't cacheable.
+     */
+    private String getActionResultCacheKey(Action action, AuraContext context) {
+        if (action.getCacheable() == null) {
+            return null;
+        }
+        return actionResultCache.getKey(action, context, configAdapter.getUserCacheKey());
+    }
+
+    /**
+     * Start running the actions that may run in parallel, when there is more than one of them.
+     *
+     * Each action runs on a fork of the context, which is joined back when its result is written, so the
+     * response, the events and the action names in the logs come out in the same order as when the actions run
+     * one after another. Actions that don't fit on the queue are simply run in order.
+     *
+     * @return the fork each started action will run with, by action.
+     */
+    private Map<Action, Future<AuraContext>> startParallelActions(List<Action> actions, final AuraContext context) {
+        Map<Action, Future<AuraContext>> started = Maps.newIdentityHashMap();
+        if (parallelActionExecutor == null) {
+            return started;
+        }
+        List<Action> parallel = Lists.newArrayList();
+        for (Action action : actions) {
+            // cacheable actions are mostly answered from the cache, so they aren't worth a thread
+            if (action.isParallel() && action.getCacheable() == null) {
+                parallel.add(action);
+            }
+        }
+        if (parallel.size() < 2) {
+            return started;
+        }
+        for (final Action action : parallel) {
+            if (started.containsKey(action)) {
+                // the same action twice has to run twice, in order
+                continue;
+            }
+            final AuraContext fork = context.fork();
+            try {
+                started.put(action, parallelActionExecutor.submit(new Callable<AuraContext>() {
+                    @Override
+                    public AuraContext call() {
+                        contextService.attachContext(fork, null);
+                        fork.setCurrentAction(action);
+                        try {
+                            action.run();
+                        } catch (AuraExecutionException x) {
+                            exceptionAdapter.handleException(x, action);
+                        } finally {
+                            fork.setCurrentAction(null);
+                            contextService.endContext();
+                        }
+                        return fork;
+                    }
+                }));
+            } catch (RejectedExecutionException ree) {
+                break;
+            }
+        }
+        return started;
+    }
+
+    private static AuraContext getParallelResult(Future<AuraContext> fork) {
+        try {
+            return fork.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new AuraRuntimeException(ie);
+        } catch (ExecutionException ee) {
+            throw Throwables.propagate(ee.getCause());
+        }
+    }
+
     @Override
     public void writeAppCss(final Set<DefDescriptor<?>> dependencies, Writer out) throws IOException, QuickFixException {
         AuraContext context = contextService.getCurrentContext();
+        StyleContext styleContext = context.getStyleContext();
+
+        DefDescriptor<?> appDesc = context.getLoadingApplicationDescriptor();
+        final String uid = context.getUid(appDesc);
+        final String key = getAppCssKey(context, uid);
+        context.setPreloading(true);
+
+        String cached = null;
+        final boolean skipCache = styleContext.getTokens().hasDynamicTokens(); // TODONM undo this cache skipping
+        if (skipCache) {
+            cached = getAppCssString(dependencies);
+        } else {
+            cached = getAltCachedString(uid, appDesc, key,
+                new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return getAppCssString(dependencies);
+                    }
+                }
+            );
+        }
+
+        if (out != null) {
+            out.append(cached);
+        }
+    }
+
+    @Override
+    public void writeAppCssUncached(Set<DefDescriptor<?>> dependencies, Writer out)
+            throws IOException, QuickFixException {
+        contextService.getCurrentContext().setPreloading(true);
+
+        String cacheKey = getAppCssCacheKey();
+        String cached = cacheKey != null ? altStringsCache.getIfPresent(cacheKey) : null;
+        if (cached != null) {
+            out.append(cached);
+            return;
+        }
+        writeAppCssString(dependencies, out);
+    }
+
+    @Override
+    public String getAppCssCacheKey() throws QuickFixException {
+        AuraContext context = contextService.getCurrentContext();
+        if (context.getStyleContext().getTokens().hasDynamicTokens()) {
+            return null;
+        }
+        DefDescriptor<?> appDesc = context.getLoadingApplicationDescriptor();
+        String uid = context.getUid(appDesc);
+        return getCacheKey(uid, appDesc, getAppCssKey(context, uid));
+    }
+
+    private String getAppCssKey(AuraContext context, String uid) {
         boolean minify = context.getMode().minify();
 
         StyleContext styleContext = context.getStyleContext();
@@ -268,40 +527,23 @@ public class ServerServiceImpl implements ServerService {
         keyBuilder.append(mKey);
 
         // app uid
-        DefDescriptor<?> appDesc = context.getLoadingApplicationDescriptor();
-        final String uid = context.getUid(appDesc);
         keyBuilder.append(uid);
 
-        final String key = keyBuilder.toString();
-        context.setPreloading(true);
-
-        String cached = null;
-        final boolean skipCache = styleContext.getTokens().hasDynamicTokens(); // TODONM undo this cache skipping
-        if (skipCache) {
-            cached = getAppCssString(dependencies);
-        } else {
-            cached = getAltCachedString(uid, appDesc, key,
-                new Callable<String>() {
-                    @Override
-                    public String call() throws Exception {
-                        return getAppCssString(dependencies);
-                    }
-                }
-            );
-        }
-
-        if (out != null) {
-            out.append(cached);
-        }
+        return keyBuilder.toString();
     }
 
     private String getAppCssString(Set<DefDescriptor<?>> dependencies) throws QuickFixException, IOException {
-        Collection<BaseStyleDef> orderedStyleDefs = filterAndLoad(BaseStyleDef.class, dependencies, null);
         StringBuffer sb = new StringBuffer();
-        serializationService.writeCollection(orderedStyleDefs, BaseStyleDef.class, sb, "CSS");
+        writeAppCssString(dependencies, sb);
         return sb.toString();
     }
 
+    private void writeAppCssString(Set<DefDescriptor<?>> dependencies, Appendable out)
+            throws QuickFixException, IOException {
+        Collection<BaseStyleDef> orderedStyleDefs = filterAndLoad(BaseStyleDef.class, dependencies, null);
+        serializationService.writeCollection(orderedStyleDefs, BaseStyleDef.class, out, "CSS");
+    }
+
     @Override
     public void writeAppSvg(DefDescriptor<SVGDef> svg, Writer out)
             throws IOException, QuickFixException {
@@ -351,33 +593,95 @@ public class ServerServiceImpl implements ServerService {
     public void writeDefinitions(final Set<DefDescriptor<?>> dependencies, Writer out)
             throws IOException, QuickFixException {
         AuraContext context = contextService.getCurrentContext();
-        final boolean minify = context.getMode().minify();
 
         context.setPreloading(true);
         DefDescriptor<?> appDesc = context.getLoadingApplicationDescriptor();
 
-        final String mKey = minify ? "MIN:" : "DEV:";
         final String uid = context.getUid(appDesc);
-        final String lockerServiceCacheBuster  = configAdapter.getLockerServiceCacheBuster();
-        // modules definitions will be present with modules enabled so needs to be cached separately
-        final String modules = context.isModulesEnabled() ? ":m" : "";
-        final String key = "JS:" + mKey + uid + ":" + lockerServiceCacheBuster + modules;
-                
-        String cached = getAltCachedString(uid, appDesc, key,
-                () -> {
-                    String res = getDefinitionsString(dependencies, key);
-                    //log the cache miss here
-                    cachingService.getAltStringsCache().logCacheStatus("cache miss for key: "+key+";");
-                    return res;
-                });
+        final String key = getDefinitionsKey(context, uid);
+
+        if (out == null) {
+            // Only filling the cache.
+            getAltCachedString(uid, appDesc, key,
+                    () -> {
+                        StringBuilder sb = new StringBuilder(getDefinitionsLength(appDesc));
+                        writeDefinitionsString(dependencies, sb);
+                        altStringsCache.logCacheStatus("cache miss for key: "+key+";");
+                        return keepDefinitionsLength(appDesc, sb.toString());
+                    });
+            return;
+        }
 
-        if (out != null) {
-           out.append(cached);
+        String cacheKey = getCacheKey(uid, appDesc, key);
+        if (cacheKey == null) {
+            writeDefinitionsString(dependencies, out);
+            return;
+        }
+
+        String cached = altStringsCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            out.append(cached);
+            return;
         }
+
+        // Send the definitions to the client as they are written, and keep a copy for the cache. The copy is only
+        // cached once all of them are written, so a failure part way through leaves nothing in the cache.
+        StringBuilder sb = new StringBuilder(getDefinitionsLength(appDesc));
+        writeDefinitionsString(dependencies, new TeeAppendable(out, sb));
+        altStringsCache.put(cacheKey, keepDefinitionsLength(appDesc, sb.toString()));
+        //log the cache miss here
+        altStringsCache.logCacheStatus("cache miss for key: "+key+";");
+    }
+
+    @Override
+    public void writeDefinitionsUncached(Set<DefDescriptor<?>> dependencies, Writer out)
+            throws IOException, QuickFixException {
+        contextService.getCurrentContext().setPreloading(true);
+
+        String cacheKey = getDefinitionsCacheKey();
+        String cached = cacheKey != null ? altStringsCache.getIfPresent(cacheKey) : null;
+        if (cached != null) {
+            out.append(cached);
+            return;
+        }
+        writeDefinitionsString(dependencies, out);
+    }
+
+    /**
+     * @return the size to start a buffer with for the definitions of the application.
+     */
+    private int getDefinitionsLength(DefDescriptor<?> appDesc) {
+        Integer length = appDesc != null ? definitionsLengths.get(appDesc) : null;
+        return length != null ? Math.min(length, MAX_DEFINITIONS_LENGTH) : DEFAULT_DEFINITIONS_LENGTH;
     }
 
+    /**
+     * Keep the length of the definitions of the application, so its next buffer is made big enough to start with.
+     */
+    private String keepDefinitionsLength(DefDescriptor<?> appDesc, String definitions) {
+        if (appDesc != null) {
+            definitionsLengths.put(appDesc, definitions.length());
+        }
+        return definitions;
+    }
 
-    private String getDefinitionsString (Set<DefDescriptor<?>> dependencies, String key)
+    @Override
+    public String getDefinitionsCacheKey() throws QuickFixException {
+        AuraContext context = contextService.getCurrentContext();
+        DefDescriptor<?> appDesc = context.getLoadingApplicationDescriptor();
+        String uid = context.getUid(appDesc);
+        return getCacheKey(uid, appDesc, getDefinitionsKey(context, uid));
+    }
+
+    private String getDefinitionsKey(AuraContext context, String uid) {
+        final String mKey = context.getMode().minify() ? "MIN:" : "DEV:";
+        final String lockerServiceCacheBuster  = configAdapter.getLockerServiceCacheBuster();
+        // modules definitions will be present with modules enabled so needs to be cached separately
+        final String modules = context.isModulesEnabled() ? ":m" : "";
+        return "JS:" + mKey + uid + ":" + lockerServiceCacheBuster + modules;
+    }
+
+    private void writeDefinitionsString(Set<DefDescriptor<?>> dependencies, Appendable out)
             throws QuickFixException, IOException {
 
         AuraContext context = contextService.getCurrentContext();
@@ -386,16 +690,14 @@ public class ServerServiceImpl implements ServerService {
         JsonSerializationContext serializationContext = context.getJsonSerializationContext();
         serializationContext.pushFormatRootItems();
         
-        StringBuilder sb = new StringBuilder();
-        
         // Process Libraries with a lower granularity level, to prevent duplication of external includes.
         Collection<LibraryDef> libraryDefs = filterAndLoad(LibraryDef.class, dependencies, null);
         for (LibraryDef libraryDef : libraryDefs) {
             List<IncludeDefRef> includeDefs = libraryDef.getIncludes();
             for (IncludeDefRef defRef : includeDefs) {
-            	sb.append("$A.componentService.addLibraryExporter(\"" + defRef.getClientDescriptor() + "\", (function (){/*");
-                sb.append(defRef.getCode(minify));
-                sb.append("*/}));");
+            	out.append("$A.componentService.addLibraryExporter(\"" + defRef.getClientDescriptor() + "\", (function (){/*");
+                out.append(defRef.getCode(minify));
+                out.append("*/}));");
                 	
                 context.setClientClassLoaded(defRef.getDescriptor(), true);
             }
@@ -404,51 +706,49 @@ public class ServerServiceImpl implements ServerService {
         // Append component classes.
         Collection<BaseComponentDef> componentDefs = filterAndLoad(BaseComponentDef.class, dependencies, null);
         for (BaseComponentDef def : componentDefs) {
-            sb.append("$A.componentService.addComponent(\"" + def.getDescriptor() + "\", (function (){/*");
+            out.append("$A.componentService.addComponent(\"" + def.getDescriptor() + "\", (function (){/*");
             
             	// Mark class as loaded in the client
             	context.setClientClassLoaded(def.getDescriptor(), true);
             	
             	// Component Class
-            	sb.append(def.getCode(minify));
+            	out.append(def.getCode(minify));
             	
             	// Component definition
-            	sb.append("return ");
-            	serializationService.write(def, null, BaseComponentDef.class, sb, "JSON");
-            	sb.append(";");
+            	out.append("return ");
+            	serializationService.write(def, null, BaseComponentDef.class, out, "JSON");
+            	out.append(";");
 
-            sb.append("*/}));\n");
+            out.append("*/}));\n");
         }
 
         // Append event definitions
-        sb.append("$A.componentService.initEventDefs(");
+        out.append("$A.componentService.initEventDefs(");
         Collection<EventDef> events = filterAndLoad(EventDef.class, dependencies, null);
-        serializationService.writeCollection(events, EventDef.class, sb, "JSON");
-        sb.append(");\n");
+        serializationService.writeCollection(events, EventDef.class, out, "JSON");
+        out.append(");\n");
 
         // Append library definitions
-        sb.append("$A.componentService.initLibraryDefs(");
-        serializationService.writeCollection(libraryDefs, LibraryDef.class, sb, "JSON");
-        sb.append(");\n");
+        out.append("$A.componentService.initLibraryDefs(");
+        serializationService.writeCollection(libraryDefs, LibraryDef.class, out, "JSON");
+        out.append(");\n");
 
         // Append controller definitions
         // Dunno how this got to be this way. The code in the Format adaptor was twisted and stupid,
         // as it walked the namespaces looking up the same descriptor, with a string.format that had
         // the namespace but did not use it. This ends up just getting a single controller.
-        sb.append("$A.componentService.initControllerDefs(");
+        out.append("$A.componentService.initControllerDefs(");
         Collection<ControllerDef> controllers = filterAndLoad(ControllerDef.class, dependencies, ACF);
-        serializationService.writeCollection(controllers, ControllerDef.class, sb, "JSON");
-        sb.append(");\n");
+        serializationService.writeCollection(controllers, ControllerDef.class, out, "JSON");
+        out.append(");\n");
 
         if (context.isModulesEnabled()) { // Prevents caching of module defs when modules are disabled.
             // modules
-            sb.append("$A.componentService.initModuleDefs(");
+            out.append("$A.componentService.initModuleDefs(");
             Collection<ModuleDef> modules = filterAndLoad(ModuleDef.class, dependencies, null);
-            serializationService.writeCollection(modules, ModuleDef.class, sb, "JSON");
-            sb.append(");\n");
+            serializationService.writeCollection(modules, ModuleDef.class, out, "JSON");
+            out.append(");\n");
         }
-
-        return sb.toString();
     }
 
     @Override
@@ -482,6 +782,40 @@ public class ServerServiceImpl implements ServerService {
 
     private static final AuraControllerFilter ACF = new AuraControllerFilter();
 
+    /**
+     * Writes to the client and to a copy at the same time.
+     */
+    private static class TeeAppendable implements Appendable {
+        private final Appendable out;
+        private final StringBuilder copy;
+
+        TeeAppendable(Appendable out, StringBuilder copy) {
+            this.out = out;
+            this.copy = copy;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            copy.append(csq);
+            out.append(csq);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            copy.append(csq, start, end);
+            out.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            copy.append(c);
+            out.append(c);
+            return this;
+        }
+    }
+
     private <P extends Definition, D extends P> Set<D> filterAndLoad(Class<D> defType,
             Set<DefDescriptor<?>> dependencies, TempFilter extraFilter) {
 
@@ -579,6 +913,18 @@ public class ServerServiceImpl implements ServerService {
         return null;
     }
 
+    /**
+     * @return the full key a string is cached under by {@link #getCachedString(Cache, String, DefDescriptor, String,
+     *         Callable)}, or null if it bypasses the cache
+     */
+    private String getCacheKey(String uid, DefDescriptor<?> descriptor, String key) {
+        if (uid == null) {
+            return null;
+        }
+        DependencyEntry de = contextService.getCurrentContext().getLocalDependencyEntry(uid);
+        return de != null ? getKey(de, descriptor, key) : null;
+    }
+
     private String getKey(DependencyEntry de, DefDescriptor<?> descriptor, String key) {
         return String.format("%s@%s@%s", de.uid, descriptor.getQualifiedName().toLowerCase(), key);
     }
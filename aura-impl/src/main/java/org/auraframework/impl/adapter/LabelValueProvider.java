@@ -33,6 +33,9 @@ import java.util.Map;
 
 /**
  * Value provider for $Label
+ *
+ * Actions of a request that run in parallel share the provider, so the labels are only touched holding their lock.
+ * Labels may be null, which is why this isn't a concurrent map.
  */
 public class LabelValueProvider implements GlobalValueProvider {
 
@@ -53,17 +56,23 @@ public class LabelValueProvider implements GlobalValueProvider {
         List<String> parts = expr.getList();
         String section = parts.get(0);
         String param = parts.get(1);
-        Map<String, String> m = labels.get(section);
-        if (m == null) {
-            m = new HashMap<>();
-            labels.put(section, m);
+        synchronized (labels) {
+            Map<String, String> m = labels.get(section);
+            String ret = m != null ? m.get(param) : null;
+            if (ret != null) {
+                return ret;
+            }
         }
-        String ret = m.get(param);
-        if (ret == null) {
-            String label = localizationAdapter.getLabel(section, param);
-            // people escape stuff like &copy; in the labels, aura doesn't need
-            // that.
-            ret = AuraTextUtil.unescapeOutput(label, false);
+        String label = localizationAdapter.getLabel(section, param);
+        // people escape stuff like &copy; in the labels, aura doesn't need
+        // that.
+        String ret = AuraTextUtil.unescapeOutput(label, false);
+        synchronized (labels) {
+            Map<String, String> m = labels.get(section);
+            if (m == null) {
+                m = new HashMap<>();
+                labels.put(section, m);
+            }
             m.put(param, ret);
         }
         return ret;
@@ -94,7 +103,9 @@ public class LabelValueProvider implements GlobalValueProvider {
 
     @Override
     public boolean isEmpty() {
-        return labels.isEmpty();
+        synchronized (labels) {
+            return labels.isEmpty();
+        }
     }
 
     @Override
@@ -47,7 +47,7 @@ import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.http.CSP;
 import org.auraframework.http.ManifestUtil;
-import org.auraframework.impl.util.BrowserUserAgent;
+import org.auraframework.impl.util.BrowserInfo;
 import org.auraframework.impl.util.TemplateUtil;
 import org.auraframework.impl.util.TemplateUtil.Script;
 import org.auraframework.impl.util.UserAgent;
@@ -609,7 +609,7 @@ public class ServletUtilAdapterImpl implements ServletUtilAdapter {
             return false;
         }
 
-        final int browser = BrowserUserAgent.parseBrowser(userAgent);
+        final int browser = BrowserInfo.get(userAgent).getBrowserType();
         if(UserAgent.IE.match(browser)) { // UserAgent.IE is used for IE11 and IE12 (Edge)
             return false;
         }
@@ -28,7 +28,8 @@ import org.auraframework.system.AuraContext;
 import org.auraframework.system.Message;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.json.JsonEncoder;
-import org.auraframework.util.json.JsonReader;
+import org.auraframework.util.json.JsonConstant;
+import org.auraframework.util.json.JsonStreamReader;
 
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
@@ -55,39 +56,83 @@ public class MessageJSONFormatAdapter extends JSONFormatAdapter<Message> {
         return Message.class;
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Read a message, building each action as soon as it is read.
+     *
+     * Only the outer object and the actions array are walked token by token, so the parsed form of one action at a time
+     * is held rather than that of the whole message.
+     */
     @Override
     public Message read(Reader in) throws IOException, QuickFixException {
-        Map<?, ?> message = (Map<?, ?>) new JsonReader().read(in);
-
-        List<?> actions = (List<?>) message.get("actions");
+        JsonStreamReader reader = new JsonStreamReader(in);
+        reader.setRecursiveReadEnabled(false);
         List<Action> actionList = Lists.newArrayList();
-        if (actions != null) {
-            for (Object action : actions) {
-                Map<?, ?> map = (Map<?, ?>) action;
 
-                // FIXME: ints are getting translated into BigDecimals here.
-                Map<String, Object> params = (Map<String, Object>) map.get("params");
-
-                Action instance = (Action) instanceService.getInstance((String) map.get("descriptor"),
-                        ActionDef.class, params);
-                instance.setId((String) map.get("id"));
-                String cd = (String) map.get("callingDescriptor");
-                if (cd != null && !cd.equals("UNKNOWN")) {
-                    DefDescriptor<ComponentDef> callingDescriptor = definitionService.getDefDescriptor(cd, ComponentDef.class);
-                    instance.setCallingDescriptor(callingDescriptor);
-                }
-                String v = (String) map.get("version");
-                if (v != null) {
-                    instance.setCallerVersion(v);
+        expect(reader, reader.next(), JsonConstant.OBJECT_START);
+        JsonConstant token = reader.next();
+        while (token == JsonConstant.STRING) {
+            String key = reader.getString();
+            expect(reader, reader.next(), JsonConstant.OBJECT_SEPARATOR);
+            JsonConstant value = reader.next();
+            if ("actions".equals(key) && value == JsonConstant.ARRAY_START) {
+                token = reader.next();
+                while (token != JsonConstant.ARRAY_END) {
+                    actionList.add(readAction(reader.getObject()));
+                    token = nextEntry(reader, JsonConstant.ARRAY_END);
                 }
-                actionList.add(instance);
+            } else if (value == JsonConstant.OBJECT_START) {
+                reader.getObject();
+            } else if (value == JsonConstant.ARRAY_START) {
+                reader.getList();
             }
+            token = nextEntry(reader, JsonConstant.OBJECT_END);
         }
+        expect(reader, token, JsonConstant.OBJECT_END);
 
         return new Message(actionList);
     }
 
+    @SuppressWarnings("unchecked")
+    private Action readAction(Map<?, ?> map) throws QuickFixException {
+        // FIXME: ints are getting translated into BigDecimals here.
+        Map<String, Object> params = (Map<String, Object>) map.get("params");
+
+        Action instance = (Action) instanceService.getInstance((String) map.get("descriptor"),
+                ActionDef.class, params);
+        instance.setId((String) map.get("id"));
+        String cd = (String) map.get("callingDescriptor");
+        if (cd != null && !cd.equals("UNKNOWN")) {
+            DefDescriptor<ComponentDef> callingDescriptor = definitionService.getDefDescriptor(cd, ComponentDef.class);
+            instance.setCallingDescriptor(callingDescriptor);
+        }
+        String v = (String) map.get("version");
+        if (v != null) {
+            instance.setCallerVersion(v);
+        }
+        return instance;
+    }
+
+    /**
+     * Move past the separator after an entry.
+     *
+     * @return the token starting the next entry, or the end token.
+     */
+    private static JsonConstant nextEntry(JsonStreamReader reader, JsonConstant end) throws IOException {
+        JsonConstant token = reader.next();
+        if (token == JsonConstant.ENTRY_SEPARATOR) {
+            return reader.next();
+        }
+        expect(reader, token, end);
+        return token;
+    }
+
+    private static void expect(JsonStreamReader reader, JsonConstant token, JsonConstant expected) {
+        if (token != expected) {
+            throw reader.new JsonStreamParseException(String.format("Expected '%s', got %s",
+                    expected.getRepresentation(), token));
+        }
+    }
+
     @Override
     public void write(Message value, Map<String, Object> attributes, Appendable out) throws IOException {
         AuraContext c = contextService.getCurrentContext();
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.auraframework.adapter.ConfigAdapter;
@@ -129,11 +130,19 @@ public class AuraContextImpl implements AuraContext {
     private Deque<DefDescriptor<?>> callingDescriptorStack = Lists.newLinkedList();
 
     private static final int MAX_COMPONENT_COUNT = 10000;
-    private int componentCount;
+    /**
+     * Shared with forks, the limit is for the whole request.
+     */
+    private final AtomicInteger componentCount;
 
     private static final Map<String, GlobalValue> allowedGlobalValues = new HashMap<>();
     private Map<String, AuraContext.GlobalValue> globalValues;
 
+    /**
+     * The global values set on this context, which {@link #join(AuraContext)} brings back from a fork.
+     */
+    private final Set<String> globalValuesSet = new HashSet<>();
+
     private final DefinitionService definitionService;
     private final ConfigAdapter configAdapter;
     private final TestContextAdapter testContextAdapter;
@@ -155,6 +164,28 @@ public class AuraContextImpl implements AuraContext {
             this.defNotCacheable = new HashSet<>();
         }
 
+        LocalDefs(LocalDefs other) {
+            this.defs = new HashMap<>(other.defs);
+            this.dynamicDescs = new HashSet<>(other.dynamicDescs);
+            this.localDependencies = new HashMap<>(other.localDependencies);
+            this.defNotCacheable = new HashSet<>(other.defNotCacheable);
+        }
+
+        void join(LocalDefs fork) {
+            for (Map.Entry<DefDescriptor<? extends Definition>, Optional<Definition>> entry : fork.defs.entrySet()) {
+                if (!defs.containsKey(entry.getKey())) {
+                    defs.put(entry.getKey(), entry.getValue());
+                }
+            }
+            dynamicDescs.addAll(fork.dynamicDescs);
+            defNotCacheable.addAll(fork.defNotCacheable);
+            for (Map.Entry<String, DependencyEntry> entry : fork.localDependencies.entrySet()) {
+                if (!localDependencies.containsKey(entry.getKey())) {
+                    localDependencies.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
         final Map<DefDescriptor<? extends Definition>, Optional<Definition>> defs;
         final Set<DefDescriptor<? extends Definition>> dynamicDescs;
         final Set<DefDescriptor<? extends Definition>> defNotCacheable;
@@ -205,6 +236,7 @@ public class AuraContextImpl implements AuraContext {
         this.definitionService = definitionService;
         this.testContextAdapter = testContextAdapter;
         this.globalValues = new HashMap<>();
+        this.componentCount = new AtomicInteger();
         this.userDefs = new LocalDefs();
         this.systemDefs = new LocalDefs();
         this.currentDefs = userDefs;
@@ -218,6 +250,78 @@ public class AuraContextImpl implements AuraContext {
                 .build();
     }
 
+    /**
+     * Copy a context for {@link #fork()}.
+     *
+     * Everything the actions may add to is copied, the rest is shared. The current action, component and calling
+     * descriptors start out empty. The component count is shared, so the limit holds across forks.
+     */
+    private AuraContextImpl(AuraContextImpl parent) {
+        this.mode = parent.mode;
+        this.registries = parent.registries;
+        this.defaultPrefixes = parent.defaultPrefixes;
+        this.format = parent.format;
+        this.access = parent.access;
+        this.jsonContext = parent.jsonContext;
+        this.globalProviders = parent.globalProviders;
+        this.configAdapter = parent.configAdapter;
+        this.definitionService = parent.definitionService;
+        this.testContextAdapter = parent.testContextAdapter;
+        this.globalValues = new HashMap<>();
+        for (Map.Entry<String, GlobalValue> entry : parent.globalValues.entrySet()) {
+            this.globalValues.put(entry.getKey(), new GlobalValue(entry.getValue()));
+        }
+        this.componentCount = parent.componentCount;
+        this.userDefs = new LocalDefs(parent.userDefs);
+        this.systemDefs = new LocalDefs(parent.systemDefs);
+        this.currentDefs = parent.currentDefs == parent.systemDefs ? systemDefs : userDefs;
+        this.clientClassesLoaded = new HashMap<>(parent.clientClassesLoaded);
+        this.accessCheckCache = parent.accessCheckCache;
+        this.enableAccessChecks = parent.enableAccessChecks;
+        this.staleChecks.addAll(parent.staleChecks);
+        this.num = parent.num;
+        this.dynamicNamespaces.addAll(parent.dynamicNamespaces);
+        this.preloadedDefinitions = parent.preloadedDefinitions;
+        this.loaded.putAll(parent.loaded);
+        this.clientLoaded.putAll(parent.clientLoaded);
+        this.contextPath = parent.contextPath;
+        this.pathPrefix = parent.pathPrefix;
+        this.preloading = parent.preloading;
+        this.appDesc = parent.appDesc;
+        this.loadingAppDesc = parent.loadingAppDesc;
+        this.requestedLocales = parent.requestedLocales;
+        this.client = parent.client;
+        this.fwUID = parent.fwUID;
+        this.styleContext = parent.styleContext;
+        this.isSystem = parent.isSystem;
+        this.isModulesEnabled = parent.isModulesEnabled;
+    }
+
+    @Override
+    public AuraContext fork() {
+        return new AuraContextImpl(this);
+    }
+
+    @Override
+    public void join(AuraContext fork) {
+        AuraContextImpl other = (AuraContextImpl) fork;
+        staleChecks.addAll(other.staleChecks);
+        dynamicNamespaces.addAll(other.dynamicNamespaces);
+        for (Map.Entry<DefDescriptor<?>, String> entry : other.loaded.entrySet()) {
+            if (!loaded.containsKey(entry.getKey())) {
+                loaded.put(entry.getKey(), entry.getValue());
+            }
+        }
+        clientEvents.addAll(other.clientEvents);
+        clientClassesLoaded.putAll(other.clientClassesLoaded);
+        for (String name : other.globalValuesSet) {
+            globalValues.put(name, other.globalValues.get(name));
+            globalValuesSet.add(name);
+        }
+        userDefs.join(other.userDefs);
+        systemDefs.join(other.systemDefs);
+    }
+
     @Override
     public void setSystemMode(boolean systemMode) {
         isSystem = systemMode;
@@ -632,7 +736,7 @@ public class AuraContextImpl implements AuraContext {
     public void registerComponent(BaseComponent<?, ?> component) {
         InstanceStack iStack = getInstanceStack();
         if (iStack.isExternal()) {
-            if (componentCount++ > MAX_COMPONENT_COUNT) {
+            if (componentCount.getAndIncrement() > MAX_COMPONENT_COUNT) {
                 //
                 // This is bad, try to give the poor user an idea of what happened.
                 //
@@ -735,6 +839,7 @@ public class AuraContextImpl implements AuraContext {
             throw new AuraRuntimeException("Attempt to set unknown $Global variable: " + approvedName);
         }
 
+        globalValuesSet.add(approvedName);
         if (globalValues.containsKey(approvedName)) {
             (globalValues.get(approvedName)).setDefaultValue(value);
         }
@@ -755,6 +860,7 @@ public class AuraContextImpl implements AuraContext {
             throw new AuraRuntimeException("Attempt to set unknown $Global variable: " + approvedName);
         }
 
+        globalValuesSet.add(approvedName);
         if (globalValues.containsKey(approvedName)) {
             (globalValues.get(approvedName)).setValue(clientValue);
         }
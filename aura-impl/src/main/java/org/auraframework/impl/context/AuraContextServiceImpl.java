@@ -37,6 +37,7 @@ import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Authentication;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.LoggingContext;
 import org.auraframework.throwable.NoContextException;
 import org.auraframework.util.json.JsonSerializerFactory;
 import org.springframework.context.annotation.Lazy;
@@ -136,6 +137,14 @@ public class AuraContextServiceImpl implements ContextService {
         }
     }
 
+    @Override
+    public void attachContext(AuraContext context, LoggingContext loggingContext) {
+        if (loggingContext != null) {
+            loggingService.attach(loggingContext);
+        }
+        contextAdapter.attach(context);
+    }
+
     @Override
     public AuraContext pushSystemContext() {
         assertEstablished();
@@ -80,7 +80,7 @@ public class IntegrationImpl implements Integration {
                            ContextService contextService, ConfigAdapter configAdapter,
                            RenderingService renderingService, ServletUtilAdapter servletUtilAdapter
                            ) throws QuickFixException {
-        this.client = userAgent != null ? new Client(userAgent) : null;
+        this.client = userAgent != null ? Client.get(userAgent) : null;
         this.contextPath = contextPath;
         this.mode = mode;
         this.initializeAura = initializeAura;
@@ -27,6 +27,7 @@ import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.ValueDef;
 import org.auraframework.instance.AbstractActionImpl;
 import org.auraframework.service.LoggingService;
+import org.auraframework.system.Annotations.CacheableAction;
 import org.auraframework.system.Location;
 import org.auraframework.throwable.AuraExecutionException;
 import org.auraframework.throwable.AuraHandledException;
@@ -144,7 +145,7 @@ public class JavaAction extends AbstractActionImpl<JavaActionDef> {
         loggingService.startTimer("java");
         try {
             loggingService.incrementNum("JavaCallCount");
-            this.returnValue = this.actionDef.getMethod().invoke(instance, args);
+            this.returnValue = this.actionDef.getInvoker().invoke(instance, args);
             this.state = State.SUCCESS;
         } catch (InvocationTargetException e) {
             // something bad happened in the body of the action itself
@@ -184,6 +185,16 @@ public class JavaAction extends AbstractActionImpl<JavaActionDef> {
         return errors;
     }
 
+    @Override
+    public boolean isParallel() {
+        return actionDef != null && actionDef.isParallel();
+    }
+
+    @Override
+    public CacheableAction getCacheable() {
+        return actionDef != null ? actionDef.getCacheable() : null;
+    }
+
     @Override
     public void serialize(Json json) throws IOException {
     }
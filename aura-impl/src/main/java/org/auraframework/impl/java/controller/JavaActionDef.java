@@ -21,6 +21,8 @@ import org.auraframework.def.TypeDef;
 import org.auraframework.def.ValueDef;
 import org.auraframework.impl.system.DefinitionImpl;
 import org.auraframework.impl.util.AuraUtil;
+import org.auraframework.system.Annotations.CacheableAction;
+import org.auraframework.util.MethodInvoker;
 import org.auraframework.util.json.Json;
 
 import java.io.IOException;
@@ -37,8 +39,11 @@ public class JavaActionDef extends DefinitionImpl<ActionDef> implements ActionDe
     private final List<String> loggableParams;
     private final Class<?>[] javaParams;
     private final Method method;
+    private final transient MethodInvoker invoker;
     private final boolean background;
     private final boolean caboose;
+    private final boolean parallel;
+    private final CacheableAction cacheable;
 
     protected JavaActionDef(Builder builder) {
         super(builder);
@@ -47,8 +52,11 @@ public class JavaActionDef extends DefinitionImpl<ActionDef> implements ActionDe
         this.loggableParams = builder.loggableParams;
         this.javaParams = builder.javaParams;
         this.method = builder.method;
+        this.invoker = builder.method != null ? new MethodInvoker(builder.method) : null;
         this.background = builder.background;
         this.caboose = builder.caboose;
+        this.parallel = builder.parallel;
+        this.cacheable = builder.cacheable;
     }
 
     @Override
@@ -79,6 +87,15 @@ public class JavaActionDef extends DefinitionImpl<ActionDef> implements ActionDe
         return this.method;
     }
 
+    /**
+     * Gets the method for this instance, bound once for the calls of its actions.
+     *
+     * @return The invoker for the method.
+     */
+    public MethodInvoker getInvoker() {
+        return this.invoker;
+    }
+
     @Override
     public DefDescriptor<TypeDef> getReturnType() {
         return returnTypeDescriptor;
@@ -92,6 +109,14 @@ public class JavaActionDef extends DefinitionImpl<ActionDef> implements ActionDe
     	return caboose;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public CacheableAction getCacheable() {
+        return cacheable;
+    }
+
     @Override
     public void serialize(Json json) throws IOException {
         json.writeMapBegin();
@@ -118,6 +143,8 @@ public class JavaActionDef extends DefinitionImpl<ActionDef> implements ActionDe
         private Method method;
         private boolean background = false;
         private boolean caboose = false;
+        private boolean parallel = false;
+        private CacheableAction cacheable;
 
         @Override
         public JavaActionDef build() {
@@ -171,5 +198,13 @@ public class JavaActionDef extends DefinitionImpl<ActionDef> implements ActionDe
         public void setCaboose(boolean caboose) {
             this.caboose = caboose;
         }
+
+        public void setParallel(boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        public void setCacheable(CacheableAction cacheable) {
+            this.cacheable = cacheable;
+        }
     }
 }
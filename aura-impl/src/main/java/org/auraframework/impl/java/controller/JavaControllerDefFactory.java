@@ -41,6 +41,8 @@ import org.auraframework.service.DefinitionService;
 import org.auraframework.system.Annotations.AuraEnabled;
 import org.auraframework.system.Annotations.BackgroundAction;
 import org.auraframework.system.Annotations.CabooseAction;
+import org.auraframework.system.Annotations.CacheableAction;
+import org.auraframework.system.Annotations.ParallelAction;
 import org.auraframework.system.Annotations.Key;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Access;
@@ -145,6 +147,8 @@ public class JavaControllerDefFactory implements DefinitionFactory<JavaSourceImp
         
         actionBuilder.setBackground(method.isAnnotationPresent(BackgroundAction.class));
         actionBuilder.setCaboose(method.isAnnotationPresent(CabooseAction.class));
+        actionBuilder.setParallel(method.isAnnotationPresent(ParallelAction.class));
+        actionBuilder.setCacheable(method.getAnnotation(CacheableAction.class));
 
         actionBuilder.setAccess(new DefinitionAccessImpl(Access.INTERNAL));
 
@@ -18,6 +18,8 @@ package org.auraframework.impl.java.converter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -35,6 +37,7 @@ import org.auraframework.util.type.MultiConverter;
 import org.auraframework.util.type.MultiConverterInitError;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.Maps;
 
 @ServiceComponent
@@ -66,6 +69,16 @@ public final class ConverterServiceImpl implements ConverterService {
     private final Map<String, Map<String, Map<String, Converter<?, ?>>>> parameterizedConverters = Maps.newHashMap();
     private final Map<String, Map<String, MultiConverter<?>>> multiConverterMap = Maps.newHashMap();
 
+    /**
+     * The conversions from a class, by the type and parameter converted to, resolved from the maps above once.
+     */
+    private final ClassValue<ConcurrentMap<ConversionKey, Conversion>> conversions =
+            new ClassValue<ConcurrentMap<ConversionKey, Conversion>>() {
+                @Override
+                protected ConcurrentMap<ConversionKey, Conversion> computeValue(Class<?> from) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
 
     public ConverterServiceImpl() {
     }
@@ -93,25 +106,20 @@ public final class ConverterServiceImpl implements ConverterService {
         }
 
         Class<F> from = (Class<F>) value.getClass();
-        if (of == null && to.isAssignableFrom(from)) {
+        Conversion conversion = getConversion(from, to, of);
+        if (of == null && conversion.assignable) {
             return (T) value;
         }
 
-        Converter<F, T> converter = getConverter(from, to, of);
-        if (converter != null) {
-            return converter.convert(value);
+        if (conversion.converter != null) {
+            return ((Converter<F, T>) conversion.converter).convert(value);
         }
 
-        MultiConverter<T> multiConverter = null;
-        if (of == null) {
-            multiConverter = getMultiConverter(from, to);
-        }
-
-        if (multiConverter == null) {
+        if (conversion.multiConverter == null) {
             throw new ConversionException(String.format("No Converter or MultiConverter found for %s to %s<%s>", from, to, of));
         }
 
-        return multiConverter.convert(to, value);
+        return ((MultiConverter<T>) conversion.multiConverter).convert(to, value);
     }
 
     /**
@@ -146,7 +154,8 @@ public final class ConverterServiceImpl implements ConverterService {
 
         // if no localized version exists, use the standard convert utility
         final Class<F> from = (Class<F>) value.getClass();
-        final LocalizedConverter<F, T> converter = getLocalizedConverter(from, to, of);
+        final Conversion conversion = getConversion(from, to, of);
+        final LocalizedConverter<F, T> converter = (LocalizedConverter<F, T>) conversion.localizedConverter;
         if (converter == null) {
             return convert(value, to, of, trim);
         }
@@ -156,7 +165,7 @@ public final class ConverterServiceImpl implements ConverterService {
             value = (F) ((String) value).trim();
         }
 
-        if (to.isAssignableFrom(from)) {
+        if (conversion.assignable) {
             return (T) value;
         }
 
@@ -182,6 +191,24 @@ public final class ConverterServiceImpl implements ConverterService {
                 trim);
     }
 
+    /**
+     * Get everything that converts from a class to a type, looked up in the maps of converters the first time, and
+     * kept even when there are none.
+     */
+    private Conversion getConversion(Class<?> from, Class<?> to, String of) {
+        ConcurrentMap<ConversionKey, Conversion> fromConversions = conversions.get(from);
+        ConversionKey key = new ConversionKey(to, of);
+        Conversion conversion = fromConversions.get(key);
+        if (conversion == null) {
+            Converter<?, ?> converter = getConverter(from, to, of);
+            conversion = new Conversion(to.isAssignableFrom(from), converter,
+                    converter == null && of == null ? getMultiConverter(from, to) : null,
+                    getLocalizedConverter(from, to, of));
+            fromConversions.putIfAbsent(key, conversion);
+        }
+        return conversion;
+    }
+
     @SuppressWarnings("unchecked")
     private <F, T> LocalizedConverter<F, T> getLocalizedConverter(Class<F> from, Class<T> to, String of) {
         if (of == null) {
@@ -391,17 +418,61 @@ public final class ConverterServiceImpl implements ConverterService {
 
     @Override
     public boolean hasConverter(Class<?> from, Class<?> to) {
-        return getConverter(from, to, null) != null;
+        return getConversion(from, to, null).converter != null;
     }
 
     @Override
     public boolean hasLocalizedConverter(Class<?> from, Class<?> to) {
-        return getLocalizedConverter(from, to, null) != null;
+        return getConversion(from, to, null).localizedConverter != null;
     }
 
+
     @Override
     public boolean hasConverter(Class<?> from, Class<?> to, String of) {
-        return getConverter(from, to, of) != null || (of == null && getMultiConverter(from, to) != null);
+        Conversion conversion = getConversion(from, to, of);
+        return conversion.converter != null || conversion.multiConverter != null;
+    }
+
+    private static final class ConversionKey {
+        private final Class<?> to;
+        private final String of;
+
+        ConversionKey(Class<?> to, String of) {
+            this.to = to;
+            this.of = of;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ConversionKey)) {
+                return false;
+            }
+            ConversionKey other = (ConversionKey) obj;
+            return to == other.to && Objects.equal(of, other.of);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * to.hashCode() + (of == null ? 0 : of.hashCode());
+        }
+    }
+
+    /**
+     * What converts from one class to a type, any of which may be null.
+     */
+    private static final class Conversion {
+        private final boolean assignable;
+        private final Converter<?, ?> converter;
+        private final MultiConverter<?> multiConverter;
+        private final LocalizedConverter<?, ?> localizedConverter;
+
+        Conversion(boolean assignable, Converter<?, ?> converter, MultiConverter<?> multiConverter,
+                LocalizedConverter<?, ?> localizedConverter) {
+            this.assignable = assignable;
+            this.converter = converter;
+            this.multiConverter = multiConverter;
+            this.localizedConverter = localizedConverter;
+        }
     }
 
 }
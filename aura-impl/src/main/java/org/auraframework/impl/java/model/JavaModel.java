@@ -20,6 +20,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.auraframework.Aura;
 import org.auraframework.def.DefDescriptor;
@@ -37,8 +39,11 @@ import org.auraframework.throwable.AuraExecutionException;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.AuraTextUtil;
+import org.auraframework.util.MethodInvoker;
 import org.auraframework.util.json.Json;
 
+import com.google.common.base.Optional;
+
 /**
  * A java model.
  *
@@ -160,18 +165,12 @@ public class JavaModel implements Model {
                 }
             }
             else {
-                Method meth = null;
-                try {
-                    meth = root.getClass().getMethod("get" + AuraTextUtil.initCap(part));
-                } catch (NoSuchMethodException e) {
-                    try {
-                        meth = root.getClass().getMethod("is" + AuraTextUtil.initCap(part));
-                    } catch (NoSuchMethodException nme) {
-                        throw makeException("no such property: " + part, e, def);
-                    }
+                MethodInvoker getter = getGetter(root.getClass(), part);
+                if (getter == null) {
+                    throw makeException("no such property: " + part, null, def);
                 }
                 try {
-                    ret = meth.invoke(root);
+                    ret = getter.invoke(root);
                 } catch (IllegalAccessException iae) {
                     throw makeException("no such property: " + part, iae, def);
                 } catch (InvocationTargetException ite) {
@@ -201,6 +200,40 @@ public class JavaModel implements Model {
         return ret;
     }
 
+    /**
+     * Get the getter of a property, "get" or "is" and the property. The getters of a class are looked up once, and so
+     * are the properties it does not have.
+     *
+     * @return the getter, or null if the class has no such property.
+     */
+    private static MethodInvoker getGetter(Class<?> type, String property) {
+        ConcurrentMap<String, Optional<MethodInvoker>> classGetters = getters.get(type);
+        Optional<MethodInvoker> getter = classGetters.get(property);
+        if (getter == null) {
+            Method method = null;
+            try {
+                method = type.getMethod("get" + AuraTextUtil.initCap(property));
+            } catch (NoSuchMethodException e) {
+                try {
+                    method = type.getMethod("is" + AuraTextUtil.initCap(property));
+                } catch (NoSuchMethodException nme) {
+                    // no such property, kept as absent.
+                }
+            }
+            getter = Optional.fromNullable(method != null ? new MethodInvoker(method) : null);
+            classGetters.putIfAbsent(property, getter);
+        }
+        return getter.orNull();
+    }
+
+    private static final ClassValue<ConcurrentMap<String, Optional<MethodInvoker>>> getters =
+            new ClassValue<ConcurrentMap<String, Optional<MethodInvoker>>>() {
+                @Override
+                protected ConcurrentMap<String, Optional<MethodInvoker>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
     private static AuraRuntimeException makeException(String message, Throwable cause, ModelDef def) {
         if (def != null) {
             return new AuraExecutionException(message,def.getLocation(),cause);
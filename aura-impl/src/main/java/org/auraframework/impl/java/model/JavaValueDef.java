@@ -27,6 +27,7 @@ import org.auraframework.system.Location;
 import org.auraframework.throwable.AuraExecutionException;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.quickfix.QuickFixException;
+import org.auraframework.util.MethodInvoker;
 import org.auraframework.util.json.Json;
 
 import java.io.IOException;
@@ -42,7 +43,7 @@ public class JavaValueDef extends DefinitionImpl<ValueDef> implements ValueDef {
 
     private final String name;
     private final DefDescriptor<TypeDef> typeDescriptor;
-    private final Method getter;
+    private final transient MethodInvoker getter;
 
     public JavaValueDef(String name, DefDescriptor<TypeDef> typeDescriptor, Location location) {
         super(null, location, new DefinitionAccessImpl(Access.INTERNAL));
@@ -54,7 +55,7 @@ public class JavaValueDef extends DefinitionImpl<ValueDef> implements ValueDef {
     public JavaValueDef(String name, Method getter, DefDescriptor<TypeDef> typeDescriptor, Location location) {
         super(null, location, null);
         this.name = name;
-        this.getter = getter;
+        this.getter = getter != null ? new MethodInvoker(getter) : null;
         this.typeDescriptor = typeDescriptor;
     }
 
@@ -195,6 +195,14 @@ public class ApplicationDefImpl extends BaseComponentDefImpl<ApplicationDef> imp
         return ret;
     }
 
+    /**
+     * The tokens are those of the application being loaded.
+     */
+    @Override
+    protected void appendJsonFlavor(StringBuilder flavor, AuraContext context) {
+        flavor.append(':').append(context.getLoadingApplicationDescriptor());
+    }
+
     @Override
     protected void serializeFields(Json json) throws IOException, QuickFixException {
         DefDescriptor<EventDef> locationChangeEventDescriptor = getLocationChangeEventDescriptor();
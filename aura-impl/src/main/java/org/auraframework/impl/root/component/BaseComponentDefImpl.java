@@ -82,6 +82,7 @@ import org.auraframework.throwable.quickfix.InvalidExpressionException;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.AuraTextUtil;
 import org.auraframework.util.json.Json;
+import org.auraframework.util.json.JsonEncoder;
 import org.auraframework.util.json.JsonSerializationContext;
 
 import com.google.common.base.Splitter;
@@ -983,119 +984,189 @@ public abstract class BaseComponentDefImpl<T extends BaseComponentDef> extends
                 json.writeMapEnd();
             } else {
                 serializationContext.setSerializing(true);
-                json.writeMapBegin();
-                json.writeValue(getAccess());
-                json.writeMapEntry("descriptor", descriptor);
-
-                json.writeMapEntry("styleDef", getStyleDef());
-                if (flavoredStyle != null) {
-                    json.writeMapEntry("flavoredStyleDef", flavoredStyle);
+                String flavor = getJsonFlavor(context, json);
+                String fragment = flavor == null ? null : getJsonFragment(flavor);
+                if (fragment == null && flavor != null) {
+                    StringBuilder sb = new StringBuilder(4096);
+                    serializeDefinition(JsonEncoder.createJsonStream(sb, serializationContext), context);
+                    fragment = sb.toString();
+                    putJsonFragment(flavor, fragment);
                 }
-
-                ControllerDef controllerDef = getControllerDef();
-                if (controllerDef != null && hasServerAction(controllerDef)) {
-                    json.writeMapEntry("controllerDef", controllerDef);
+                if (fragment != null) {
+                    json.writeFragment(fragment);
+                } else {
+                    serializeDefinition(json, context);
                 }
+                serializationContext.setSerializing(false);
+            }
+        } catch (QuickFixException e) {
+            throw new AuraUnhandledException("unhandled exception", e);
+        }
+    }
 
-                json.writeMapEntry("modelDef", getModelDef());
-                json.writeMapEntry("superDef", getSuperDef());
-                boolean preloading = context.isPreloading();
-                if (preloading) {
-                    json.writeMapEntry("isCSSPreloaded", preloading);
+    /**
+     * Everything outside of this definition that its full json depends on: the layout of the writer, the mode, whether
+     * modules are enabled, whether the client has the styles, the style context their code is written for, and the
+     * component class.
+     *
+     * @return the flavor, or null if the json can not be kept for the writer.
+     */
+    private String getJsonFlavor(AuraContext context, Json json) {
+        String layout = json.getFragmentLayout();
+        if (layout == null) {
+            return null;
+        }
+        StringBuilder flavor = new StringBuilder(layout).append(':').append(context.getMode());
+        if (context.isModulesEnabled()) {
+            flavor.append(":m");
+        }
+        if (context.isPreloading()) {
+            flavor.append(":p");
+        } else {
+            // the styles write their code unless the client has them, and the code is for the style context.
+            boolean styleCode = false;
+            if (styleDef != null) {
+                if (context.isPreloaded(styleDef.getDescriptor())) {
+                    flavor.append(":s");
+                } else {
+                    styleCode = true;
                 }
-
-                Collection<AttributeDef> attributeDefs = getAttributeDefs().values();
-                if (!attributeDefs.isEmpty()) {
-                    json.writeMapEntry("attributeDefs", attributeDefs);
+            }
+            if (flavoredStyle != null) {
+                if (context.isPreloaded(flavoredStyle.getDescriptor())) {
+                    flavor.append(":f");
+                } else {
+                    styleCode = true;
                 }
+            }
+            if (styleCode) {
+                flavor.append(':').append(
+                        JsonEncoder.serialize(context.getStyleContext(), context.getJsonSerializationContext()));
+            }
+        }
+        if (context.getClientClassLoaded(descriptor)) {
+            flavor.append(":c");
+        } else if (Aura.getConfigAdapter().isLockerServiceEnabled()) {
+            flavor.append(":l");
+        }
+        appendJsonFlavor(flavor, context);
+        return flavor.toString();
+    }
 
-                Collection<MethodDef> methodDefs = getMethodDefs().values();
-                if (!methodDefs.isEmpty()) {
-                    json.writeMapEntry("methodDefs", methodDefs);
-                }
+    /**
+     * Add to the flavor anything else outside of this definition that {@link #serializeFields(Json)} depends on.
+     */
+    protected void appendJsonFlavor(StringBuilder flavor, AuraContext context) {
+    }
 
-                Collection<RequiredVersionDef> requiredVersionDefs = getRequiredVersionDefs().values();
-                if (requiredVersionDefs != null && !requiredVersionDefs.isEmpty()) {
-                    json.writeMapEntry("requiredVersionDefs", requiredVersionDefs);
-                }
+    private void serializeDefinition(Json json, AuraContext context) throws IOException, QuickFixException {
+        json.writeMapBegin();
+        json.writeValue(getAccess());
+        json.writeMapEntry("descriptor", descriptor);
 
-                Set<DefDescriptor<InterfaceDef>> allInterfaces = getAllInterfaces();
-                if (allInterfaces != null && !allInterfaces.isEmpty()) {
-                    json.writeMapEntry("interfaces", allInterfaces);
-                }
+        json.writeMapEntry("styleDef", getStyleDef());
+        if (flavoredStyle != null) {
+            json.writeMapEntry("flavoredStyleDef", flavoredStyle);
+        }
 
-                Collection<RegisterEventDef> regevents = getRegisterEventDefs().values();
-                if (!regevents.isEmpty()) {
-                    json.writeMapEntry("registerEventDefs", regevents);
-                }
+        ControllerDef controllerDef = getControllerDef();
+        if (controllerDef != null && hasServerAction(controllerDef)) {
+            json.writeMapEntry("controllerDef", controllerDef);
+        }
 
-                Collection<EventHandlerDef> handlers = getHandlerDefs();
-                if (!handlers.isEmpty()) {
-                    json.writeMapEntry("handlerDefs", handlers);
-                }
+        json.writeMapEntry("modelDef", getModelDef());
+        json.writeMapEntry("superDef", getSuperDef());
+        boolean preloading = context.isPreloading();
+        if (preloading) {
+            json.writeMapEntry("isCSSPreloaded", preloading);
+        }
 
-                Collection<LibraryDefRef> imports = getImports();
-                if (!imports.isEmpty()) {
-                    json.writeMapEntry("imports", imports);
-                }
+        Collection<AttributeDef> attributeDefs = getAttributeDefs().values();
+        if (!attributeDefs.isEmpty()) {
+            json.writeMapEntry("attributeDefs", attributeDefs);
+        }
 
-                Map<String, LocatorDef> locatorDefs = getLocators();
-                if (locatorDefs!=null && !locatorDefs.isEmpty()) {
-                    json.writeMapEntry("locatorDefs", locatorDefs);
-                }
+        Collection<MethodDef> methodDefs = getMethodDefs().values();
+        if (!methodDefs.isEmpty()) {
+            json.writeMapEntry("methodDefs", methodDefs);
+        }
 
-                if (!facets.isEmpty()) {
-                    json.writeMapEntry("facets", facets);
-                }
+        Collection<RequiredVersionDef> requiredVersionDefs = getRequiredVersionDefs().values();
+        if (requiredVersionDefs != null && !requiredVersionDefs.isEmpty()) {
+            json.writeMapEntry("requiredVersionDefs", requiredVersionDefs);
+        }
 
-                boolean local = hasLocalDependencies();
-                // For the client, hasRemoteDeps is true if the current definition or
-                // a definition in any of its facets has a local dependency.
-                if (!local) {
-                    local = hasFacetLocalDependencies();
-                }
+        Set<DefDescriptor<InterfaceDef>> allInterfaces = getAllInterfaces();
+        if (allInterfaces != null && !allInterfaces.isEmpty()) {
+            json.writeMapEntry("interfaces", allInterfaces);
+        }
 
-                if (local) {
-                    json.writeMapEntry("hasServerDeps", true);
-                }
+        Collection<RegisterEventDef> regevents = getRegisterEventDefs().values();
+        if (!regevents.isEmpty()) {
+            json.writeMapEntry("registerEventDefs", regevents);
+        }
 
-                if (isAbstract) {
-                    json.writeMapEntry("isAbstract", isAbstract);
-                }
+        Collection<EventHandlerDef> handlers = getHandlerDefs();
+        if (!handlers.isEmpty()) {
+            json.writeMapEntry("handlerDefs", handlers);
+        }
 
-                if (subDefs != null) {
-                    json.writeMapEntry("subDefs", subDefs.values());
-                }
+        Collection<LibraryDefRef> imports = getImports();
+        if (!imports.isEmpty()) {
+            json.writeMapEntry("imports", imports);
+        }
 
-                String defaultFlavorToSerialize = getDefaultFlavorOrImplicit();
-                if (defaultFlavorToSerialize != null) {
-                    json.writeMapEntry("defaultFlavor", defaultFlavorToSerialize);
-                }
+        Map<String, LocatorDef> locatorDefs = getLocators();
+        if (locatorDefs!=null && !locatorDefs.isEmpty()) {
+            json.writeMapEntry("locatorDefs", locatorDefs);
+        }
 
-                if (hasFlavorableChild) {
-                    json.writeMapEntry("hasFlavorableChild", true);
-                }
+        if (!facets.isEmpty()) {
+            json.writeMapEntry("facets", facets);
+        }
 
-                if (dynamicallyFlavorable) {
-                    json.writeMapEntry("dynamicallyFlavorable", dynamicallyFlavorable);
-                }
+        boolean local = hasLocalDependencies();
+        // For the client, hasRemoteDeps is true if the current definition or
+        // a definition in any of its facets has a local dependency.
+        if (!local) {
+            local = hasFacetLocalDependencies();
+        }
 
-                if(!context.getClientClassLoaded(descriptor)) {
-                    boolean minify = context.getMode().minify();
-                    String code = getCode(minify);
-                    if (!AuraTextUtil.isNullEmptyOrWhitespace(code)) {
-                        json.writeMapEntry("componentClass", "function(){" + code + "}");
-                    }
-                }
+        if (local) {
+            json.writeMapEntry("hasServerDeps", true);
+        }
 
-                serializeFields(json);
-                json.writeMapEnd();
+        if (isAbstract) {
+            json.writeMapEntry("isAbstract", isAbstract);
+        }
 
-                serializationContext.setSerializing(false);
+        if (subDefs != null) {
+            json.writeMapEntry("subDefs", subDefs.values());
+        }
+
+        String defaultFlavorToSerialize = getDefaultFlavorOrImplicit();
+        if (defaultFlavorToSerialize != null) {
+            json.writeMapEntry("defaultFlavor", defaultFlavorToSerialize);
+        }
+
+        if (hasFlavorableChild) {
+            json.writeMapEntry("hasFlavorableChild", true);
+        }
+
+        if (dynamicallyFlavorable) {
+            json.writeMapEntry("dynamicallyFlavorable", dynamicallyFlavorable);
+        }
+
+        if(!context.getClientClassLoaded(descriptor)) {
+            boolean minify = context.getMode().minify();
+            String code = getCode(minify);
+            if (!AuraTextUtil.isNullEmptyOrWhitespace(code)) {
+                json.writeMapEntry("componentClass", "function(){" + code + "}");
             }
-        } catch (QuickFixException e) {
-            throw new AuraUnhandledException("unhandled exception", e);
         }
+
+        serializeFields(json);
+        json.writeMapEnd();
     }
 
     protected abstract void serializeFields(Json json) throws IOException, QuickFixException;
@@ -31,6 +31,7 @@ import org.auraframework.util.json.Serialization.ReferenceType;
 
 import java.io.Serializable;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The implementation for a definition.
@@ -44,6 +45,17 @@ public abstract class DefinitionImpl<T extends Definition> extends BaseXmlElemen
     protected final Map<SubDefDescriptor<?, T>, Definition> subDefs;
     protected final boolean hasSwitchableReference;
 
+    /**
+     * The json of this definition, by flavor, see {@link #getJsonFragment(String)}.
+     */
+    private transient volatile Map<String, String> jsonFragments;
+
+    /**
+     * The most flavors of json kept for one definition. Some flavors depend on the client, like the style context, so
+     * past this the json of new flavors is written each time instead of being kept.
+     */
+    static final int MAX_JSON_FRAGMENTS = 16;
+
     protected DefinitionImpl(DefDescriptor<T> descriptor, Location location, DefinitionAccess access) {
         this(descriptor, location, null, null, null, access, null, null, false);
     }
@@ -108,6 +120,46 @@ public abstract class DefinitionImpl<T extends Definition> extends BaseXmlElemen
 
 
 
+    /**
+     * Get the json of this definition kept by {@link #putJsonFragment(String, String)}.
+     *
+     * A definition does not change once it is built, but its json can depend on the context it is written in, the
+     * mode, what the client already has and the layout of the writer. The flavor is a key for all of those, so that a
+     * definition with a kept fragment is written by appending it rather than running the serializers again.
+     *
+     * @param flavor everything outside of this definition that its json depends on.
+     * @return the json, or null if none was kept for the flavor.
+     */
+    protected String getJsonFragment(String flavor) {
+        Map<String, String> fragments = jsonFragments;
+        return fragments == null ? null : fragments.get(flavor);
+    }
+
+    /**
+     * Keep the json of this definition for a flavor. Only valid definitions keep their json, as one that is not
+     * valid yet can still be replaced. At most {@link #MAX_JSON_FRAGMENTS} flavors are kept, the first ones written.
+     *
+     * @param flavor everything outside of this definition that its json depends on.
+     * @param fragment the json of this definition.
+     */
+    protected void putJsonFragment(String flavor, String fragment) {
+        if (!isValid()) {
+            return;
+        }
+        Map<String, String> fragments = jsonFragments;
+        if (fragments == null) {
+            synchronized (this) {
+                fragments = jsonFragments;
+                if (fragments == null) {
+                    jsonFragments = fragments = new ConcurrentHashMap<>(4);
+                }
+            }
+        }
+        if (fragments.size() < MAX_JSON_FRAGMENTS || fragments.containsKey(flavor)) {
+            fragments.put(flavor, fragment);
+        }
+    }
+
     @Override
     public String toString() {
         // getDescriptor is not always non-null (though is should be). Avoid
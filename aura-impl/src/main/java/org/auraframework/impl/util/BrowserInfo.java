@@ -50,6 +50,9 @@ import static org.auraframework.impl.util.UserAgent.VERSIONED_CUTOFF;
 import org.apache.commons.lang3.StringUtils;
 import org.auraframework.impl.util.UserAgent.UA;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 // user-agent parser to provide browser information
 public class BrowserInfo {
 
@@ -144,6 +147,32 @@ public class BrowserInfo {
         parseUserAgent();
     }
 
+    private static final int MAX_CACHED_LENGTH = 512;
+
+    private static final Cache<String, BrowserInfo> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger("aura.cache.userAgentCacheSize", 4096)).build();
+
+    /**
+     * Get the information for a user agent, parsed once per distinct user agent.
+     *
+     * Nothing changes a BrowserInfo once it is parsed, so the same one is shared by all the requests from a user agent
+     * while it stays in a bounded cache. User agents too long to be worth keeping are parsed every time.
+     */
+    public static BrowserInfo get(String userAgentString) {
+        if (userAgentString == null) {
+            userAgentString = "";
+        }
+        if (userAgentString.length() > MAX_CACHED_LENGTH) {
+            return new BrowserInfo(userAgentString);
+        }
+        BrowserInfo info = CACHE.getIfPresent(userAgentString);
+        if (info == null) {
+            info = new BrowserInfo(userAgentString);
+            CACHE.put(userAgentString, info);
+        }
+        return info;
+    }
+
     public boolean isTablet() {
         return isTablet;
     }
@@ -183,6 +212,13 @@ public class BrowserInfo {
         return formFactor;
     }
 
+    /**
+     * @return the browser, as given by {@link BrowserUserAgent#parseBrowser(String)}.
+     */
+    public int getBrowserType() {
+        return browserType;
+    }
+
     public boolean isFirefox() {
         return isFirefox;
     }
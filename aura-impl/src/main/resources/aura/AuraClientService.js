@@ -26,6 +26,9 @@ Aura.Services.AuraClientService$AuraXHR = function AuraXHR() {
     this.marker = 0;
     this.request = undefined;
     this.actions = {};
+    this.stream = undefined;
+    this.streamed = {};
+    this.streamedActions = [];
 };
 
 /**
@@ -34,6 +37,9 @@ Aura.Services.AuraClientService$AuraXHR = function AuraXHR() {
 Aura.Services.AuraClientService$AuraXHR.prototype.reset = function() {
     this.request = undefined;
     this.actions = {};
+    this.stream = undefined;
+    this.streamed = {};
+    this.streamedActions = [];
 };
 
 /**
@@ -136,6 +142,7 @@ function AuraClientService () {
     this._token = null;
     this._isDisconnected = false;
     this._parallelBootstrapLoad = true;
+    this._messageBody = false;
     this.auraStack = [];
     this.appcacheDownloadingEventFired = false;
     this.isOutdated = false;
@@ -278,6 +285,12 @@ AuraClientService.CONSECUTIVE_RELOAD_COUNTER_KEY = "__RELOAD_COUNT";
  */
 AuraClientService.UNKNOWN_FRAMEWORK_UID = "UNKNOWN";
 
+/**
+ * Longest encoded context sent in the X-Aura-Context header of a POST with a message body.
+ * Servers limit the size of headers, a larger context is POSTed as a form parameter.
+ */
+AuraClientService.MAX_CONTEXT_HEADER_LENGTH = 4096;
+
 /**
  * set the XHR queue size.
  *
@@ -2755,19 +2768,33 @@ AuraClientService.prototype.send = function(auraXHR, actions, method, options) {
     var timedOut = false;
     var timerId = undefined;
     var marker = Aura.Services.AuraClientServiceMarker++;
-    var qs, url;
+    var qs, url, body, contextHeader;
+    var messageBody = this._messageBody && method === "POST";
 
     try {
-        var params = {
-            "message"      : $A.util.json.encode({ "actions" : actionsToSend }),
-            "aura.context" : context.encodeForServer(method === "POST")
-        };
-        if (method === "GET") {
-            params["aura.access"] = "UNAUTHENTICATED";
+        var message = $A.util.json.encode({ "actions" : actionsToSend });
+        var encodedContext = context.encodeForServer(method === "POST");
+        if (messageBody) {
+            contextHeader = encodeURIComponent(encodedContext);
+            if (contextHeader.length > AuraClientService.MAX_CONTEXT_HEADER_LENGTH) {
+                messageBody = false;
+            }
+        }
+        if (messageBody) {
+            // the message is the body, the context and token go in headers.
+            body = message;
         } else {
-            params["aura.token"] = this._token;
+            var params = {
+                "message"      : message,
+                "aura.context" : encodedContext
+            };
+            if (method === "GET") {
+                params["aura.access"] = "UNAUTHENTICATED";
+            } else {
+                params["aura.token"] = this._token;
+            }
+            qs = this.buildParams(params);
         }
-        qs = this.buildParams(params);
     } catch (e) {
         for (i = 0; i < actions.length; i++) {
             action = actions[i];
@@ -2783,7 +2810,7 @@ AuraClientService.prototype.send = function(auraXHR, actions, method, options) {
     //#end
 
     auraXHR.background = options && options.background;
-    auraXHR.length = qs.length;
+    auraXHR.length = messageBody ? body.length : qs.length;
     auraXHR.request = this.createXHR();
     auraXHR.request["open"](method, url, this._appNotTearingDown);
     auraXHR.marker = marker;
@@ -2807,6 +2834,8 @@ AuraClientService.prototype.send = function(auraXHR, actions, method, options) {
             }
 
             that.receive(auraXHR, timedOut);
+        } else if (processed === false && auraXHR.request["readyState"] === 3) {
+            that.receiveProgress(auraXHR);
         }
     };
 
@@ -2815,6 +2844,8 @@ AuraClientService.prototype.send = function(auraXHR, actions, method, options) {
     }
 
     auraXHR.request["onreadystatechange"] = onReady;
+    // most browsers only report further parts of the response as progress.
+    auraXHR.request["onprogress"] = onReady;
 
     if (options && options["headers"]) {
         var key, headers = options["headers"];
@@ -2826,7 +2857,14 @@ AuraClientService.prototype.send = function(auraXHR, actions, method, options) {
         }
     }
 
-    if (qs && method === "POST") {
+    if (messageBody && body) {
+        auraXHR.request.setRequestHeader('Content-Type', 'application/json; charset=UTF-8');
+        auraXHR.request.setRequestHeader('X-Aura-Context', contextHeader);
+        if (this._token) {
+            auraXHR.request.setRequestHeader('X-Aura-Token', this._token);
+        }
+        auraXHR.request["send"](body);
+    } else if (qs && method === "POST") {
         auraXHR.request.setRequestHeader('Content-Type', 'application/x-www-form-urlencoded; charset=ISO-8859-13');
         auraXHR.request["send"](qs);
     } else {
@@ -3062,6 +3100,157 @@ AuraClientService.prototype.receive = function(auraXHR, timedOut) {
     return responseMessage;
 };
 
+/**
+ * The flag the server puts right before the actions when it streams them.
+ *
+ * @private
+ */
+AuraClientService.STREAMING_PREFIX = /"streaming":\s*true\s*,\s*"actions":\s*\[/;
+
+/**
+ * The start of the actions, streamed or not.
+ *
+ * @private
+ */
+AuraClientService.ACTIONS_PREFIX = /"actions":\s*\[/;
+
+/**
+ * The token, which the server writes before the actions.
+ *
+ * @private
+ */
+AuraClientService.STREAMING_TOKEN = /"token":\s*("(?:[^"\\]|\\.)*")/;
+
+/**
+ * An action response with any of these keys may need the context of the response, so it has to wait for it.
+ *
+ * @private
+ */
+AuraClientService.STREAMING_NEEDS_CONTEXT = /"(?:s|r|components)":/;
+
+/**
+ * Process the action responses that have arrived so far.
+ *
+ * When the server streams the actions, each action response that is fully in is handed to its action right
+ * away, instead of once the whole response is in. Definitions, components and events come at the end of the
+ * response, so this stops at the first action response that may need them, which also keeps the callbacks in
+ * order. Whatever is left is processed by receive.
+ *
+ * The token is set before any action is handed its response. The context, with the labels and values added by
+ * the actions, comes at the end, so it is only merged after the callbacks of the streamed actions have run.
+ *
+ * @param {AuraXHR} auraXHR the xhr container.
+ * @private
+ */
+AuraClientService.prototype.receiveProgress = function(auraXHR) {
+    var stream = auraXHR.stream;
+    var text;
+
+    if (stream === null) {
+        return;
+    }
+    try {
+        if (auraXHR.request["status"] !== 200) {
+            auraXHR.stream = null;
+            return;
+        }
+        text = auraXHR.request["responseText"];
+    } catch (e) {
+        // some browsers don't let us at the response before it is done.
+        auraXHR.stream = null;
+        return;
+    }
+    if (!text) {
+        return;
+    }
+    if (stream === undefined) {
+        var match = AuraClientService.STREAMING_PREFIX.exec(text);
+        if (!match) {
+            if (AuraClientService.ACTIONS_PREFIX.test(text)) {
+                // not streamed.
+                auraXHR.stream = null;
+            }
+            return;
+        }
+        stream = auraXHR.stream = { pos: match.index + match[0].length, start: 0, depth: 0, inString: false, escape: false };
+        var token = AuraClientService.STREAMING_TOKEN.exec(text.substring(0, match.index));
+        if (token) {
+            this.setToken($A.util.globalEval(token[1]), true);
+        }
+    }
+
+    this.auraStack.push("AuraClientService$receiveProgress");
+    try {
+        var c;
+        var i;
+        for (i = stream.pos; i < text.length; i++) {
+            c = text.charAt(i);
+            if (stream.inString) {
+                if (stream.escape) {
+                    stream.escape = false;
+                } else if (c === "\\") {
+                    stream.escape = true;
+                } else if (c === "\"") {
+                    stream.inString = false;
+                }
+            } else if (c === "\"") {
+                stream.inString = true;
+            } else if (c === "{" || c === "[") {
+                if (stream.depth === 0) {
+                    stream.start = i;
+                }
+                stream.depth++;
+            } else if (c === "}" || c === "]") {
+                if (stream.depth === 0) {
+                    // the end of the actions.
+                    auraXHR.stream = null;
+                    return;
+                }
+                stream.depth--;
+                if (stream.depth === 0 && !this.receiveStreamedAction(auraXHR, text.substring(stream.start, i + 1))) {
+                    auraXHR.stream = null;
+                    return;
+                }
+            }
+        }
+        stream.pos = i;
+    } catch (e) {
+        auraXHR.stream = null;
+        throw (e instanceof $A.auraError) ? e : new $A.auraError("AuraClientService.receiveProgress action callback failed", e);
+    } finally {
+        this.auraStack.pop();
+    }
+};
+
+/**
+ * Hand a streamed action response to its action.
+ *
+ * @param {AuraXHR} auraXHR the xhr container.
+ * @param {String} text the action response.
+ * @returns {Boolean} false if the response has to wait for the rest of the response.
+ * @private
+ */
+AuraClientService.prototype.receiveStreamedAction = function(auraXHR, text) {
+    var response;
+
+    if (AuraClientService.STREAMING_NEEDS_CONTEXT.test(text)) {
+        return false;
+    }
+    try {
+        response = $A.util.globalEval(text);
+    } catch (e) {
+        return false;
+    }
+    if (!response || !auraXHR.actions[response["id"]]) {
+        return false;
+    }
+    auraXHR.streamed[response["id"]] = true;
+    this.processActionResponse(auraXHR, response, auraXHR.streamedActions);
+    // it's done, errors in the rest of the response must not touch it.
+    delete auraXHR.actions[response["id"]];
+    return true;
+};
+
 /**
  * Mark actions from an XHR response as being in the error state and set the error on the actions.
  *
@@ -3103,7 +3292,7 @@ AuraClientService.prototype.processSystemError = function(auraXHR) {
 
 AuraClientService.prototype.processResponses = function(auraXHR, responseMessage) {
 
-    var action, actionResponses, response, dupes;
+    var actionResponses, response;
     var token = responseMessage["token"];
     if (token) {
         this.setToken(token, true);
@@ -3142,54 +3331,70 @@ AuraClientService.prototype.processResponses = function(auraXHR, responseMessage
 
     actionResponses = responseMessage["actions"];
 
-    var actionsToPersist = [];
+    // streamed actions were handed their responses as they arrived
+    var actionsToPersist = auraXHR.streamedActions.slice();
 
     // Process each action and its response
     for ( var r = 0; r < actionResponses.length; r++) {
-        action = null;
-        try {
-            response = actionResponses[r];
-            action = auraXHR.getAction(response["id"]);
-            if (action) {
-                if (response["storable"] && !action.isStorable()) {
-                    action.setStorable();
-                }
-            } else {
-                // the client didn't request the action response but the server sent it so
-                // a component is priming the actions cache. if the response isn't success
-                // (which should never happen) then skip processing the action
-                if (response["state"] !== "SUCCESS") {
-                    continue;
-                }
+        response = actionResponses[r];
+        if (!response || !auraXHR.streamed[response["id"]]) {
+            this.processActionResponse(auraXHR, response, actionsToPersist);
+        }
+    }
 
-                action = this.buildStorableServerAction(response);
-            }
-            if (!action) {
-                throw new $A.auraError("Unable to find an action for "+response["id"]+": "+response);
-            } else {
-                actionsToPersist.push(action);
-                var key = this.actionStoreMap[action.getId()];
-                dupes = this.getAndClearDupes(key);
-                this.singleAction(action, response);
-                if (dupes) {
-                    for (var i = 0; i < dupes.length; i++) {
-                        this.singleAction(dupes[i], response);
-                    }
-                }
+    this.persistStorableActions(actionsToPersist);
+};
 
+/**
+ * Hand an action response to its action, and to its dupes.
+ *
+ * @param {AuraXHR} auraXHR the xhr container.
+ * @param {Object} response the action response.
+ * @param {Array} actionsToPersist the actions to persist, the action is added to it.
+ * @private
+ */
+AuraClientService.prototype.processActionResponse = function(auraXHR, response, actionsToPersist) {
+    var action = null;
+    var dupes;
+    try {
+        action = auraXHR.getAction(response["id"]);
+        if (action) {
+            if (response["storable"] && !action.isStorable()) {
+                action.setStorable();
             }
-        } catch (e) {
-            if (e instanceof $A.auraError) {
-                throw e;
-            } else {
-                var errorWrapper = new $A.auraError("Error processing action response", e);
-                errorWrapper.action = action;
-                throw errorWrapper;
+        } else {
+            // the client didn't request the action response but the server sent it so
+            // a component is priming the actions cache. if the response isn't success
+            // (which should never happen) then skip processing the action
+            if (response["state"] !== "SUCCESS") {
+                return;
             }
+
+            action = this.buildStorableServerAction(response);
         }
-    }
+        if (!action) {
+            throw new $A.auraError("Unable to find an action for "+response["id"]+": "+response);
+        } else {
+            actionsToPersist.push(action);
+            var key = this.actionStoreMap[action.getId()];
+            dupes = this.getAndClearDupes(key);
+            this.singleAction(action, response);
+            if (dupes) {
+                for (var i = 0; i < dupes.length; i++) {
+                    this.singleAction(dupes[i], response);
+                }
+            }
 
-    this.persistStorableActions(actionsToPersist);
+        }
+    } catch (e) {
+        if (e instanceof $A.auraError) {
+            throw e;
+        } else {
+            var errorWrapper = new $A.auraError("Error processing action response", e);
+            errorWrapper.action = action;
+            throw errorWrapper;
+        }
+    }
 };
 
 AuraClientService.prototype.buildStorableServerAction = function(response) {
@@ -3867,6 +4072,18 @@ AuraClientService.prototype.setParallelBootstrapLoad = function(parallel) {
     this._parallelBootstrapLoad = !!parallel;
 };
 
+/**
+ * Sets whether actions are POSTed with the message as the JSON body of the request
+ * rather than as a form parameter. The server reads a body as it arrives, which
+ * keeps large messages from being held in memory as a whole. The context goes in a header,
+ * a POST whose context is too large for one is sent as a form. By default this is disabled.
+ * @param {Boolean} enabled if true send the message as the body.
+ * @export
+ */
+AuraClientService.prototype.setMessageBody = function(enabled) {
+    this._messageBody = !!enabled;
+};
+
 /**
  * On next load, serially load bootstrap.js from network then cache.
  *
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl;
+
+import java.io.StringWriter;
+
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+
+public class ActionFlushWriterTest extends UnitTestCase {
+
+    private static class FlushCountingWriter extends StringWriter {
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    @Test
+    public void testFlushesOnceSizeIsReached() throws Exception {
+        FlushCountingWriter out = new FlushCountingWriter();
+        ActionFlushWriter writer = new ActionFlushWriter(out, 10, 0);
+
+        writer.write("{\"id\":1}");
+        assertFalse(writer.actionWritten());
+        writer.append(",{\"id\":2}");
+        assertTrue(writer.actionWritten());
+        assertEquals(1, out.flushes);
+
+        writer.write(",");
+        assertFalse("the count starts over after a flush", writer.actionWritten());
+        assertEquals("{\"id\":1},{\"id\":2},", out.toString());
+    }
+
+    @Test
+    public void testFlushesOnceTimeIsReached() throws Exception {
+        FlushCountingWriter out = new FlushCountingWriter();
+        ActionFlushWriter writer = new ActionFlushWriter(out, 0, 20);
+
+        writer.write("{\"id\":1}");
+        Thread.sleep(40);
+        assertTrue(writer.actionWritten());
+        assertEquals(1, out.flushes);
+    }
+
+    @Test
+    public void testNothingWrittenNotFlushed() throws Exception {
+        FlushCountingWriter out = new FlushCountingWriter();
+        ActionFlushWriter writer = new ActionFlushWriter(out, 1, 1);
+
+        Thread.sleep(10);
+        assertFalse(writer.actionWritten());
+        assertEquals(0, out.flushes);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.auraframework.def.ActionDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.impl.cache.CacheImpl;
+import org.auraframework.instance.Action;
+import org.auraframework.instance.InstanceStack;
+import org.auraframework.system.Annotations.CacheableAction;
+import org.auraframework.system.AuraContext;
+import org.auraframework.util.json.DefaultJsonSerializationContext;
+import org.auraframework.util.json.JsonBinaryDecoder;
+import org.auraframework.util.json.JsonBinaryEncoder;
+import org.auraframework.util.json.JsonEncoder;
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ActionResultCacheTest extends UnitTestCase {
+
+    @CacheableAction
+    public void byParams() {
+    }
+
+    @CacheableAction(ttl = 0)
+    public void expired() {
+    }
+
+    @CacheableAction(user = true, locale = true)
+    public void byUserAndLocale() {
+    }
+
+    private ActionResultCache cache;
+    private AuraContext context;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        cache = new ActionResultCache(new CacheImpl.Builder<String, ActionResultCache.Entry>()
+                .setMaximumSize(10).build());
+        context = Mockito.mock(AuraContext.class);
+        Mockito.doReturn(new DefaultJsonSerializationContext(false, false)).when(context).getJsonSerializationContext();
+        Mockito.doReturn(Arrays.asList(Locale.US)).when(context).getRequestedLocales();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Action createAction(String cacheable, Object returnValue, Map<String, Object> params) throws Exception {
+        Action action = Mockito.mock(Action.class);
+        DefDescriptor<ActionDef> descriptor = Mockito.mock(DefDescriptor.class);
+        Mockito.doReturn("java://test.Controller/ACTION$get").when(descriptor).getQualifiedName();
+        Mockito.doReturn(descriptor).when(action).getDescriptor();
+        Mockito.doReturn(getClass().getMethod(cacheable).getAnnotation(CacheableAction.class)).when(action)
+                .getCacheable();
+        Mockito.doReturn(params).when(action).getParams();
+        Mockito.doReturn(Action.State.SUCCESS).when(action).getState();
+        Mockito.doReturn(new ArrayList<>()).when(action).getErrors();
+        Mockito.doReturn(new InstanceStack()).when(action).getInstanceStack();
+        Mockito.doReturn(returnValue).when(action).getReturnValue();
+        Mockito.doReturn("7;a").when(action).getId();
+        return action;
+    }
+
+    private static Map<String, Object> params(String... keysAndValues) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            params.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return params;
+    }
+
+    @Test
+    public void testResultCachedByParams() throws Exception {
+        Action action = createAction("byParams", Collections.singletonMap("label", "a<b"), params("a", "1", "b", "2"));
+        String key = cache.getKey(action, context, null);
+
+        assertNull(cache.get(key));
+        assertEquals("{\"label\":\"a\\u003Cb\"}", toString(cache.put(key, action, context, 0)));
+        assertEquals("{\"label\":\"a\\u003Cb\"}", toString(cache.get(key)));
+
+        Action reordered = createAction("byParams", null, params("b", "2", "a", "1"));
+        assertEquals(key, cache.getKey(reordered, context, null));
+        Action other = createAction("byParams", null, params("a", "1", "b", "3"));
+        assertNull(cache.get(cache.getKey(other, context, null)));
+    }
+
+    @Test
+    public void testExpiredResultDropped() throws Exception {
+        Action action = createAction("expired", "value", params());
+        String key = cache.getKey(action, context, null);
+
+        assertEquals("\"value\"", toString(cache.put(key, action, context, 0)));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testUserAndLocaleInKey() throws Exception {
+        Action action = createAction("byUserAndLocale", "value", params("a", "1"));
+
+        assertNull("Not cacheable without a user", cache.getKey(action, context, null));
+        String key = cache.getKey(action, context, "005A");
+        assertFalse(key.equals(cache.getKey(action, context, "005B")));
+        Mockito.doReturn(Arrays.asList(Locale.FRANCE)).when(context).getRequestedLocales();
+        assertFalse(key.equals(cache.getKey(action, context, "005A")));
+    }
+
+    @Test
+    public void testUnsuccessfulResultNotCached() throws Exception {
+        Action action = createAction("byParams", "value", params());
+        Mockito.doReturn(Action.State.ERROR).when(action).getState();
+        String key = cache.getKey(action, context, null);
+
+        assertNull(cache.put(key, action, context, 0));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testResultWithClientEventsNotCached() throws Exception {
+        Action action = createAction("byParams", "value", params());
+        Mockito.doReturn(Arrays.asList(Mockito.mock(org.auraframework.instance.Event.class))).when(context)
+                .getClientEvents();
+        String key = cache.getKey(action, context, null);
+
+        assertNull(cache.put(key, action, context, 0));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testCachedActionSerializesCachedValue() throws Exception {
+        Action action = createAction("byParams", null, params());
+        ActionResultCache.CachedAction cached = new ActionResultCache.CachedAction(action,
+                JsonBinaryEncoder.toBytes(Collections.singletonMap("x", 1), new DefaultJsonSerializationContext(false, false)));
+
+        String json = JsonEncoder.serialize(cached, new DefaultJsonSerializationContext(false, false));
+
+        assertEquals("{\"id\":\"7;a\",\"state\":\"SUCCESS\",\"returnValue\":{\"x\":1},\"error\":[]}", json);
+    }
+
+    @Test
+    public void testNullResultCached() throws Exception {
+        Action action = createAction("byParams", null, params());
+        String key = cache.getKey(action, context, null);
+
+        assertEquals("null", toString(cache.put(key, action, context, 0)));
+        assertEquals("null", toString(cache.get(key)));
+    }
+
+    private static String toString(byte[] returnValue) {
+        return returnValue != null
+                ? JsonBinaryDecoder.toString(returnValue, new DefaultJsonSerializationContext(false, false)) : null;
+    }
+}
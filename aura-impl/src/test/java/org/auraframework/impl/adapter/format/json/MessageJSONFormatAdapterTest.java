@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.impl.adapter.format.json;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import org.auraframework.def.ActionDef;
+import org.auraframework.instance.Action;
+import org.auraframework.service.DefinitionService;
+import org.auraframework.service.InstanceService;
+import org.auraframework.system.Message;
+import org.auraframework.util.json.JsonStreamReader.JsonParseException;
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+public class MessageJSONFormatAdapterTest extends UnitTestCase {
+
+    @Mock
+    private InstanceService instanceService;
+
+    @Mock
+    private DefinitionService definitionService;
+
+    @InjectMocks
+    private MessageJSONFormatAdapter adapter;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void testReadBuildsEachAction() throws Exception {
+        Action first = Mockito.mock(Action.class);
+        Action second = Mockito.mock(Action.class);
+        Mockito.doReturn(first).when(instanceService).getInstance(Mockito.eq("java://a/ACTION$one"),
+                Mockito.eq(ActionDef.class), Mockito.anyMap());
+        Mockito.doReturn(second).when(instanceService).getInstance(Mockito.eq("java://a/ACTION$two"),
+                Mockito.eq(ActionDef.class), Mockito.anyMap());
+
+        Message message = adapter.read(new StringReader("{\"before\":{\"actions\":[1]},\"list\":[1,[2]],"
+                + "\"actions\":[{\"id\":\"1;a\",\"descriptor\":\"java://a/ACTION$one\",\"params\":{\"x\":\"y\"},"
+                + "\"version\":\"1.0\"},{\"id\":\"2;a\",\"descriptor\":\"java://a/ACTION$two\",\"params\":{}}],"
+                + "\"after\":null}"));
+
+        assertEquals(2, message.getActions().size());
+        assertSame(first, message.getActions().get(0));
+        assertSame(second, message.getActions().get(1));
+        Mockito.verify(first).setId("1;a");
+        Mockito.verify(first).setCallerVersion("1.0");
+        Mockito.verify(second).setId("2;a");
+        Mockito.verify(second, Mockito.never()).setCallerVersion(Mockito.anyString());
+        ArgumentCaptor<Map> params = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(instanceService).getInstance(Mockito.eq("java://a/ACTION$one"), Mockito.eq(ActionDef.class),
+                params.capture());
+        assertEquals("y", params.getValue().get("x"));
+    }
+
+    @Test
+    public void testReadWithoutActions() throws Exception {
+        Message message = adapter.read(new StringReader("{\"actions\":[]}"));
+        assertTrue(message.getActions().isEmpty());
+
+        message = adapter.read(new StringReader("{}"));
+        assertTrue(message.getActions().isEmpty());
+    }
+
+    @Test
+    public void testReadTruncatedMessage() throws Exception {
+        try {
+            adapter.read(new StringReader("{\"actions\":[{\"id\":\"1;a\""));
+            fail("A truncated message should not read");
+        } catch (JsonParseException expected) {
+        }
+    }
+}
@@ -26,13 +26,19 @@ import org.auraframework.def.DefinitionAccess;
 import org.auraframework.def.DescriptorFilter;
 import org.auraframework.impl.AuraImplTestCase;
 import org.auraframework.impl.system.RegistryTrie;
+import org.auraframework.instance.Action;
+import org.auraframework.instance.BaseComponent;
+import org.auraframework.instance.InstanceStack;
+import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Authentication;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
 import org.auraframework.system.Location;
 import org.auraframework.system.SubDefDescriptor;
+import org.auraframework.throwable.SystemErrorException;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.json.Json;
+import org.auraframework.util.test.util.AuraPrivateAccessor;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -533,4 +539,109 @@ public class AuraContextImplTest extends AuraImplTestCase {
         impl.setSystemMode(false);
         assertFalse(impl.isSystemMode());
     }
+
+    @Test
+    public void testForkHasItsOwnCurrentAction() {
+        AuraContextImpl impl = new AuraContextImpl(null, null, null, null, null, null, null, null, null, null);
+        Action action = Mockito.mock(Action.class);
+        impl.setCurrentAction(action);
+
+        AuraContext fork = impl.fork();
+        assertNull(fork.getCurrentAction());
+        fork.setCurrentAction(Mockito.mock(Action.class));
+        assertSame(action, impl.getCurrentAction());
+    }
+
+    @Test
+    public void testForkSeesLocalDefsAndJoinAddsNewOnes() {
+        FakeDescriptor before = new FakeDescriptor("a", "b", "c", DefType.APPLICATION);
+        FakeDescriptor after = new FakeDescriptor("a", "b", "d", DefType.APPLICATION);
+        Definition definition = Mockito.mock(Definition.class);
+        AuraContextImpl impl = new AuraContextImpl(null, null, null, null, null, null, null, null, null, null);
+        impl.addLocalDef(before, definition);
+
+        AuraContext fork = impl.fork();
+        assertEquals(definition, fork.getLocalDef(before).orNull());
+        fork.addLocalDef(after, definition);
+        assertNull(impl.getLocalDef(after));
+
+        impl.join(fork);
+        assertEquals(definition, impl.getLocalDef(after).orNull());
+    }
+
+    @Test
+    public void testJoinKeepsLoadedOfParent() {
+        FakeDescriptor shared = new FakeDescriptor("a", "b", "c", DefType.APPLICATION);
+        FakeDescriptor added = new FakeDescriptor("a", "b", "d", DefType.APPLICATION);
+        AuraContextImpl impl = new AuraContextImpl(null, null, null, null, null, null, null, null, null, null);
+        impl.addLoaded(shared, "uid");
+
+        AuraContext fork = impl.fork();
+        assertEquals("uid", fork.getLoaded().get(shared));
+        fork.addLoaded(shared, "other");
+        fork.addLoaded(added, "added");
+        assertFalse(impl.getLoaded().containsKey(added));
+
+        impl.join(fork);
+        assertEquals("uid", impl.getLoaded().get(shared));
+        assertEquals("added", impl.getLoaded().get(added));
+    }
+
+    @Test
+    public void testGlobalValueSetInForkIsBroughtBackByJoin() {
+        final String name = getName();
+        AuraContextImpl.registerGlobal(name, true, "default");
+        addTearDownStep(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Map<String, AuraContext.GlobalValue> values = AuraPrivateAccessor.get(AuraContextImpl.class,
+                            "allowedGlobalValues");
+                    values.remove(name);
+                } catch (Exception e) {
+                    throw new Error(e);
+                }
+            }
+        });
+        AuraContextImpl impl = new AuraContextImpl(null, null, null, null, null, null, null, null, null, null);
+        impl.setGlobalValue(name, "parent");
+
+        AuraContext fork = impl.fork();
+        assertEquals("parent", fork.getGlobal(name));
+        fork.setGlobalValue(name, "fork");
+        assertEquals("parent", impl.getGlobal(name));
+
+        impl.join(fork);
+        assertEquals("fork", impl.getGlobal(name));
+    }
+
+    @Test
+    public void testComponentLimitIsSharedWithForks() {
+        AuraContextImpl impl = new AuraContextImpl(null, null, null, null, null, null, null, null, null, null);
+        AuraContext first = impl.fork();
+        AuraContext second = impl.fork();
+        first.setCurrentAction(actionWithExternalStack());
+        second.setCurrentAction(actionWithExternalStack());
+        BaseComponent<?, ?> component = Mockito.mock(BaseComponent.class);
+
+        for (int i = 0; i < 6000; i++) {
+            first.registerComponent(component);
+        }
+        try {
+            for (int i = 0; i < 6000; i++) {
+                second.registerComponent(component);
+            }
+            fail("Expected the components of both forks to count against one limit");
+        } catch (SystemErrorException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Too many components for "));
+        }
+    }
+
+    private static Action actionWithExternalStack() {
+        InstanceStack stack = Mockito.mock(InstanceStack.class);
+        Mockito.doReturn(true).when(stack).isExternal();
+        Action action = Mockito.mock(Action.class);
+        Mockito.doReturn(stack).when(action).getInstanceStack();
+        return action;
+    }
 }
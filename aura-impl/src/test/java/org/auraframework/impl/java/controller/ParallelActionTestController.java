@@ -22,6 +22,7 @@ import org.auraframework.ds.servicecomponent.Controller;
 import org.auraframework.system.Annotations.AuraEnabled;
 import org.auraframework.system.Annotations.BackgroundAction;
 import org.auraframework.system.Annotations.Key;
+import org.auraframework.system.Annotations.ParallelAction;
 import org.auraframework.throwable.ClientOutOfSyncException;
 import org.auraframework.util.json.Json;
 import org.auraframework.util.json.JsonSerializable;
@@ -61,6 +62,12 @@ public class ParallelActionTestController implements Controller {
         return new Record(i);
     }
 
+    @AuraEnabled
+    @ParallelAction
+    public static String executeInParallel(@Key("s") String s) {
+        return s;
+    }
+
     @AuraEnabled
     public static String executeInForegroundWithStringReturn(@Key("s")String s) {
         return s;
@@ -221,6 +221,26 @@ public class ConverterServiceImplTest extends UnitTestCase {
         }
     }
 
+    /**
+     * Verify that conversions keep working once they are resolved, including those that have no converter and those
+     * that fall back to a multi converter.
+     */
+    @Test
+    public void testRepeatedConversionsResolveTheSame() {
+        for (int i = 0; i < 3; i++) {
+            try {
+                converterService.convert(new CustomParentType(), CustomChildType.class);
+                fail("Should have thrown conversion exception due to missing converter");
+            } catch (ConversionException e) {
+                // expected
+            }
+            assertEquals(52, converterService.convert("blah:52", CustomConcreteType1.class).getIntValue());
+            assertEquals(Integer.valueOf(123), converterService.convert("123", Integer.class, new AuraLocaleImpl()));
+            assertTrue(converterService.hasConverter(String.class, CustomPairType.class, "String,Integer"));
+            assertFalse(converterService.hasConverter(String.class, CustomPairType.class, "Integer,String"));
+        }
+    }
+
     /**
      * Verify that converterService doesn't barf because of bad converters. Enable
      * converter registration in TestTypeConvertersConfig.java
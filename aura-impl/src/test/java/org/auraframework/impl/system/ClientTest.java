@@ -83,4 +83,15 @@ public class ClientTest extends AuraImplTestCase {
         Client client = new Client();
         assertEquals("Incorrect default client type.", client.getType().name(), "OTHER");
     }
+
+    @Test
+    public void testGetSharesClientPerUserAgent() throws Exception {
+        String userAgent = UserAgent.GOOGLE_CHROME.getUserAgentString();
+        Client client = Client.get(userAgent);
+
+        assertSame("Clients should be shared by user agent", client, Client.get(userAgent));
+        assertEquals(userAgent, client.getUserAgent());
+        assertEquals(Type.WEBKIT, client.getType());
+        assertSame(Client.OTHER, Client.get(null));
+    }
 }
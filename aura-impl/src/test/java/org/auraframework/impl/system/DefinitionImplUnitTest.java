@@ -182,6 +182,25 @@ extends AuraTestCase {
         assertTrue(actual);
     }
 
+    @Test
+    public void testJsonFragmentsBounded() throws Exception {
+        R def = buildDefinition();
+        if (!(def instanceof DefinitionImpl)) {
+            return;
+        }
+        DefinitionImpl<?> impl = (DefinitionImpl<?>) def;
+        impl.markValid();
+        for (int i = 0; i <= DefinitionImpl.MAX_JSON_FRAGMENTS; i++) {
+            impl.putJsonFragment("flavor" + i, "{\"i\":" + i + "}");
+        }
+        assertEquals("{\"i\":0}", impl.getJsonFragment("flavor0"));
+        assertNull(impl.getJsonFragment("flavor" + DefinitionImpl.MAX_JSON_FRAGMENTS));
+
+        // a kept flavor can still be replaced
+        impl.putJsonFragment("flavor0", "{}");
+        assertEquals("{}", impl.getJsonFragment("flavor0"));
+    }
+
     @Test
     public void testValidateDefinition() throws Exception {
         if (testAuraContext != null) {
@@ -16,7 +16,6 @@
 package org.auraframework.impl.util.json;
 
 import java.util.Map;
-import java.util.concurrent.ConcurrentMap;
 
 import org.auraframework.adapter.JsonSerializerAdapter;
 import org.auraframework.impl.AuraImplTestCase;
@@ -117,8 +116,8 @@ public class AuraJsonSerializerFactoryTest extends AuraImplTestCase {
 
         assertEquals("Should get the provided lookup serializer", serializer, factory.getSerializer(object));
 
-        ConcurrentMap<String, JsonSerializer<?>> cache = AuraPrivateAccessor.get(factory, "cache");
-        assertEquals("Serializer should be cached", serializer, cache.get(object.getClass().getName()));
+        ClassValue<JsonSerializer<?>> cache = AuraPrivateAccessor.get(factory, "cache");
+        assertEquals("Serializer should be cached", serializer, cache.get(object.getClass()));
     }
 
     @Test
@@ -136,8 +135,8 @@ public class AuraJsonSerializerFactoryTest extends AuraImplTestCase {
 
         assertEquals("Should get the provided lookup serializer", serializer, factory.getSerializer(object));
 
-        ConcurrentMap<String, JsonSerializer<?>> cache = AuraPrivateAccessor.get(factory, "cache");
-        assertEquals("Serializer should be cached", serializer, cache.get(object.getClass().getName()));
+        ClassValue<JsonSerializer<?>> cache = AuraPrivateAccessor.get(factory, "cache");
+        assertEquals("Serializer should be cached", serializer, cache.get(object.getClass()));
     }
 
     @Test
@@ -154,8 +153,10 @@ public class AuraJsonSerializerFactoryTest extends AuraImplTestCase {
         factory.setJsonSerializerAdapters(Lists.newArrayList(jsonSerializerAdapter));
 
         assertEquals("Should get null", null, factory.getSerializer(object));
+        assertEquals("Should get null", null, factory.getSerializer("other"));
 
-        ConcurrentMap<String, JsonSerializer<?>> cache = AuraPrivateAccessor.get(factory, "cache");
-        assertNotNull("Serializer (null) should be cached", cache.get(object.getClass().getName()));
+        ClassValue<JsonSerializer<?>> cache = AuraPrivateAccessor.get(factory, "cache");
+        assertNotNull("Serializer (null) should be cached", cache.get(object.getClass()));
+        Mockito.verify(loggingService, Mockito.times(1)).info(Mockito.anyString());
     }
 }
@@ -2055,6 +2055,118 @@ Test.Aura.AuraClientServiceTest = function() {
         }
     }
 
+    [Fixture]
+    function receiveProgress() {
+        var mockStreaming = Mocks.GetMocks(Object.Global(), {
+            "$A": {
+                auraError: function(msg) {
+                    this.message = msg;
+                },
+                util: {
+                    globalEval: function(src) {
+                        return JSON.parse(src);
+                    }
+                }
+            },
+            Aura: Aura,
+            AuraClientService: Aura.Services.AuraClientService
+        });
+
+        var createTarget = function(handled) {
+            var target;
+            mockGlobal(function() {
+                target = new Aura.Services.AuraClientService();
+            });
+            target.auraStack = {
+                push: function(){},
+                pop: function(){}
+            };
+            target.processActionResponse = function(auraXHR, response, actionsToPersist) {
+                handled.push(response["id"]);
+                actionsToPersist.push(response["id"]);
+            };
+            target.saveTokenToStorage = function() {};
+            return target;
+        };
+
+        var createXHR = function() {
+            var auraXHR = new Aura.Services.AuraClientService$AuraXHR();
+            auraXHR.actions = { "1": {}, "2": {} };
+            auraXHR.request = { status: 200, readyState: 3, responseText: "" };
+            return auraXHR;
+        };
+
+        var receive = function(target, auraXHR, text) {
+            auraXHR.request.responseText = text;
+            mockStreaming(function() {
+                target.receiveProgress(auraXHR);
+            });
+        };
+
+        var response = 'while(1);\n{"token":"t","streaming":true,"actions":['
+            + '{"id":"1","state":"SUCCESS","returnValue":"}\\"]"},'
+            + '{"id":"2","state":"SUCCESS","returnValue":[{"a":1}]}],"context":{}}';
+
+        [Fact]
+        function HandsActionResponsesToActionsAsTheyArrive() {
+            var handled = [];
+            var target = createTarget(handled);
+            var auraXHR = createXHR();
+            var firstEnd = response.indexOf(',{"id":"2"');
+
+            receive(target, auraXHR, response.substring(0, firstEnd - 1));
+            Assert.Equal([], handled);
+            receive(target, auraXHR, response.substring(0, firstEnd + 5));
+            Assert.Equal(["1"], handled);
+            receive(target, auraXHR, response);
+
+            Assert.Equal(["1", "2"], handled);
+            Assert.Equal(["1", "2"], auraXHR.streamedActions);
+            Assert.True(auraXHR.streamed["1"] && auraXHR.streamed["2"]);
+            Assert.Equal(undefined, auraXHR.actions["1"]);
+        }
+
+        [Fact]
+        function SetsTokenBeforeHandingOutActionResponses() {
+            var handled = [];
+            var target = createTarget(handled);
+            var auraXHR = createXHR();
+            var tokens = [];
+            target.processActionResponse = function(auraXHR, response, actionsToPersist) {
+                tokens.push(target._token);
+                actionsToPersist.push(response["id"]);
+            };
+
+            receive(target, auraXHR, response.replace('"token":"t"', '"token":"t\\"1"'));
+
+            Assert.Equal(['t"1', 't"1'], tokens);
+        }
+
+        [Fact]
+        function StopsAtActionResponseThatNeedsContext() {
+            var handled = [];
+            var target = createTarget(handled);
+            var auraXHR = createXHR();
+
+            receive(target, auraXHR, response.replace('"returnValue":"', '"components":[],"returnValue":"'));
+
+            Assert.Equal([], handled);
+            Assert.Equal(null, auraXHR.stream);
+        }
+
+        [Fact]
+        function IgnoresResponsesThatAreNotStreamed() {
+            var handled = [];
+            var target = createTarget(handled);
+            var auraXHR = createXHR();
+
+            receive(target, auraXHR, response.replace('"streaming":true,', ''));
+
+            Assert.Equal([], handled);
+            Assert.Equal(null, auraXHR.stream);
+        }
+    }
+
     [Fixture]
     function setXHRTimeout() {
         [Fact]
@@ -16,12 +16,19 @@
 package org.auraframework.integration.test.css;
 
 import com.google.common.collect.Sets;
+import org.auraframework.def.ComponentDef;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.StyleDef;
 import org.auraframework.def.TokensDef;
 import org.auraframework.impl.css.StyleTestCase;
 import org.auraframework.service.ContextService;
 import org.auraframework.service.DefinitionService;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.AuraContext.Authentication;
+import org.auraframework.system.AuraContext.Format;
+import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.Client;
+import org.auraframework.test.client.UserAgent;
 import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.throwable.quickfix.TokenValueNotFoundException;
 import org.auraframework.util.AuraTextUtil;
@@ -122,6 +129,36 @@ public class StyleDefImplTest extends StyleTestCase {
         assertTrue(tokenNames.contains("margin2"));
     }
 
+    /**
+     * A component keeps its json, which holds the code of its style for the client it was written for.
+     */
+    @Test
+    public void testComponentSerializedForEachClientType() throws Exception {
+        addStyleDef("@if (WEBKIT) { .THIS {color: red} } @if (FIREFOX) { .THIS {color: blue} }");
+        ComponentDef cmp = definitionService.getDefinition(getNs1() + ":style", ComponentDef.class);
+
+        String webkit = serializeForClient(cmp, UserAgent.GOOGLE_CHROME);
+        String firefox = serializeForClient(cmp, UserAgent.FIREFOX);
+
+        assertTrue(webkit, webkit.contains("red") && !webkit.contains("blue"));
+        assertTrue(firefox, firefox.contains("blue") && !firefox.contains("red"));
+        assertEquals(webkit, serializeForClient(cmp, UserAgent.GOOGLE_CHROME));
+    }
+
+    /**
+     * Serialize a definition in a new context for the client, where the client doesn't have the style yet.
+     */
+    private String serializeForClient(ComponentDef def, UserAgent userAgent) {
+        if (contextService.isEstablished()) {
+            contextService.endContext();
+        }
+        AuraContext context = contextService.startContext(Mode.PROD, Format.JSON, Authentication.AUTHENTICATED);
+        context.setClient(new Client(userAgent.getUserAgentString()));
+        context.setPreloading(false);
+        context.setPreloadedDefinitions(Sets.<DefDescriptor<?>> newHashSet());
+        return JsonEncoder.serialize(def, context.getJsonSerializationContext());
+    }
+
     @SuppressWarnings("unchecked")
     private void verifyStyleDefSerialization(DefDescriptor<StyleDef> styleDesc, Boolean expectCode) throws Exception {
         String serialized = JsonEncoder.serialize(definitionService.getDefinition(styleDesc));
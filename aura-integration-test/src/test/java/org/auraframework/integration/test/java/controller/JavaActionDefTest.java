@@ -51,6 +51,32 @@ public class JavaActionDefTest extends AuraImplTestCase {
         assertTrue("ActionDef should be background when class has Background annotation", actual);
     }
 
+    /**
+     * Verify Java action without parallel annotation is not parallel
+     */
+    @Test
+    public void testJavaActionDefIsNotParallelByDefault() throws Exception {
+        String controllerName = "java://org.auraframework.impl.java.controller.ParallelActionTestController";
+        String actionName = "executeInForeground";
+        ActionDef actionDef = getJavaActionDef(controllerName, actionName);
+
+        boolean actual = ((JavaActionDef) actionDef).isParallel();
+        assertFalse("JavaActionDef should NOT be parallel by default", actual);
+    }
+
+    /**
+     * Verify Java action with parallel annotation is parallel
+     */
+    @Test
+    public void testJavaActionDefIsParallelWithAnnotation() throws Exception {
+        String controllerName = "java://org.auraframework.impl.java.controller.ParallelActionTestController";
+        String actionName = "executeInParallel";
+        ActionDef actionDef = getJavaActionDef(controllerName, actionName);
+
+        boolean actual = ((JavaActionDef) actionDef).isParallel();
+        assertTrue("ActionDef should be parallel when method has ParallelAction annotation", actual);
+    }
+
     @Test
     public void testJavaActionDefWithMethodHasNoParams() throws Exception{
         String controllerName = "java://org.auraframework.components.test.java.controller.TestController";
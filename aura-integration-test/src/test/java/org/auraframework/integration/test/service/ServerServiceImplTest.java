@@ -45,6 +45,7 @@ import org.auraframework.instance.AbstractActionImpl;
 import org.auraframework.instance.Action;
 import org.auraframework.instance.ActionDelegate;
 import org.auraframework.instance.Component;
+import org.auraframework.service.CachingService;
 import org.auraframework.service.DefinitionService;
 import org.auraframework.service.InstanceService;
 import org.auraframework.service.ServerService;
@@ -74,6 +75,9 @@ public class ServerServiceImplTest extends AuraImplTestCase {
     @Inject
     private ServerService serverService;
 
+    @Inject
+    private CachingService cachingService;
+
     public ServerServiceImplTest() {
         super();
         setShouldSetupContext(false);
@@ -609,6 +613,44 @@ public class ServerServiceImplTest extends AuraImplTestCase {
         }
     }
 
+    /**
+     * The definitions are written to the client while they are made, but only cached once they are all written.
+     */
+    @Test
+    public void testWriteDefinitionsNotCachedWhenWritingFails() throws Exception {
+        DefDescriptor<ApplicationDef> appDesc = definitionService
+                .getDefDescriptor("appCache:withpreload", ApplicationDef.class);
+        AuraContext context = contextService
+                .startContext(Mode.DEV, AuraContext.Format.JS, AuraContext.Authentication.AUTHENTICATED, appDesc);
+        final String uid = definitionService.getUid(null, appDesc);
+        context.addLoaded(appDesc, uid);
+        Set<DefDescriptor<?>> dependencies = definitionService.getDependencies(uid);
+        String key = serverService.getDefinitionsCacheKey();
+        cachingService.getAltStringsCache().invalidate(key);
+
+        StringWriter partial = new StringWriter() {
+            @Override
+            public StringWriter append(CharSequence csq) {
+                if (getBuffer().length() > 100) {
+                    throw new IllegalStateException("client went away");
+                }
+                return super.append(csq);
+            }
+        };
+        try {
+            serverService.writeDefinitions(dependencies, partial);
+            fail("Expected the failure of the writer");
+        } catch (IllegalStateException expected) {
+            assertEquals("client went away", expected.getMessage());
+        }
+        assertNull("Partial definitions should not be cached", cachingService.getAltStringsCache().getIfPresent(key));
+
+        StringWriter output = new StringWriter();
+        serverService.writeDefinitions(dependencies, output);
+        assertEquals(output.toString(), cachingService.getAltStringsCache().getIfPresent(key));
+        assertTrue(output.toString().startsWith(partial.toString()));
+    }
+
     /**
      * Verify that toggling whether LockerService is enabled or not returns a different result from writeDefinitions
      */
@@ -145,6 +145,13 @@ public interface Json {
     void close() throws IOException;
 
     Appendable getAppendable();
+
+    /**
+     * A key for everything about this writer that changes the text of a value written next, like formatting and
+     * null values, or null if json written elsewhere can not be written here with {@link #writeFragment}.
+     */
+    String getFragmentLayout();
+
     String getIndent();
     JsonSerializationContext getSerializationContext();
     void pushIndent(IndentType type);
@@ -163,6 +170,12 @@ public interface Json {
     void writeCommentBody(String body) throws IOException;
     void writeCommentEnd() throws IOException;
     void writeDate(Date value) throws IOException;
+
+    /**
+     * Write json text, written before by a writer with the same {@link #getFragmentLayout()}, as the next value.
+     */
+    void writeFragment(CharSequence fragment) throws IOException;
+
     void writeIndent() throws IOException;
     void writeLiteral(Object value) throws IOException;
     void writeMap(Map<?, ?> map) throws IOException;
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.modules.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.auraframework.modules.ModulesCompilerData;
+import org.auraframework.util.json.JsonEncoder;
+import org.auraframework.util.text.Hash;
+
+import com.google.common.base.Charsets;
+
+/**
+ * On-disk cache of compiler output. The output only depends on the bundle sources and the compiler, so entries are
+ * keyed by a hash of the entry, the sources and the compiler JS and never need to be invalidated: a changed source or
+ * a new compiler simply hashes to a different file. The cache survives restarts and is shared by the J2V8 and node
+ * compilers.
+ * <p>
+ * The total size of the cached files is bounded, when it is exceeded the least recently used entries (by file
+ * modification time, which is touched on every hit) are deleted down to three quarters of the limit.
+ */
+final class ModulesCompilerCache {
+
+    private static final Logger logger = Logger.getLogger(ModulesCompilerCache.class.getName());
+
+    /**
+     * Bump when the layout of the cached files changes
+     */
+    private static final String FORMAT_VERSION = "1";
+
+    private static final String SUFFIX = ".json";
+
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static ModulesCompilerCache instance;
+
+    private final File directory;
+    private final long maxBytes;
+    private final String compilerHash;
+    private long size = -1;
+
+    ModulesCompilerCache(File directory, long maxBytes, String compilerHash) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.compilerHash = compilerHash;
+    }
+
+    /**
+     * The cache used by the compilers, in aura.modules.cacheDir (defaults to a directory in java.io.tmpdir) and
+     * bounded by aura.modules.cacheSize bytes.
+     */
+    static synchronized ModulesCompilerCache getInstance() {
+        if (instance == null) {
+            String path = System.getProperty("aura.modules.cacheDir",
+                    new File(System.getProperty("java.io.tmpdir"), "aura_modules_cache").getPath());
+            long maxBytes = Long.getLong("aura.modules.cacheSize", DEFAULT_MAX_BYTES);
+            String compilerHash;
+            try {
+                compilerHash = new Hash(new InputStreamReader(
+                        new FileInputStream(ModulesCompilerUtil.COMPILER_JS_PATH), Charsets.UTF_8)).toString();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            instance = new ModulesCompilerCache(new File(path), maxBytes, compilerHash);
+        }
+        return instance;
+    }
+
+    /**
+     * @return the cached output for the bundle, or the output of the compile, which is then cached. Failed compiles
+     *         aren't cached.
+     */
+    ModulesCompilerData get(String entry, Map<String, String> sources, Callable<ModulesCompilerData> compile)
+            throws Exception {
+        String key = getKey(entry, sources);
+        ModulesCompilerData data = read(key);
+        if (data == null) {
+            data = compile.call();
+            write(key, data);
+        }
+        return data;
+    }
+
+    /**
+     * @return the cached output for the bundle, or null if it hasn't been compiled
+     */
+    ModulesCompilerData get(String entry, Map<String, String> sources) {
+        return read(getKey(entry, sources));
+    }
+
+    void put(String entry, Map<String, String> sources, ModulesCompilerData data) {
+        write(getKey(entry, sources), data);
+    }
+
+    String getKey(String entry, Map<String, String> sources) {
+        Hash.StringBuilder hash = new Hash.StringBuilder();
+        hash.addString(FORMAT_VERSION);
+        hash.addString(compilerHash);
+        addWithLength(hash, entry);
+        // sorted, so the key doesn't depend on the iteration order of the map
+        for (Map.Entry<String, String> source : new TreeMap<>(sources).entrySet()) {
+            addWithLength(hash, source.getKey());
+            addWithLength(hash, source.getValue());
+        }
+        return hash.build().toString();
+    }
+
+    private static void addWithLength(Hash.StringBuilder hash, String value) {
+        // the length keeps adjacent values from running into each other
+        hash.addString(String.valueOf(value.length()));
+        hash.addString(":");
+        hash.addString(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ModulesCompilerData read(String key) {
+        File file = new File(directory, key + SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            String json = new String(Files.readAllBytes(file.toPath()), Charsets.UTF_8);
+            // entries are ours and large modules are over the limits for untrusted json
+            ModulesCompilerData data = ModulesCompilerUtil.parseCompilerOutput((Map<String, Object>) ModulesCompilerUtil
+                    .readJson(json));
+            if (data.code == null) {
+                throw new IOException("no code");
+            }
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (Exception e) {
+            // partial or corrupt entry, compile again
+            logger.log(Level.WARNING, "ModulesCompilerCache: unable to read " + file, e);
+            delete(file);
+            return null;
+        }
+    }
+
+    private void write(String key, ModulesCompilerData data) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("bundleDependencies", data.bundleDependencies);
+        metadata.put("templateUsedIds", data.templateUsedIds);
+        Map<String, Object> output = new HashMap<>();
+        output.put("code", data.code);
+        output.put("metadata", metadata);
+        byte[] bytes = JsonEncoder.serialize(output).getBytes(Charsets.UTF_8);
+
+        File file = new File(directory, key + SUFFIX);
+        long replaced;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("unable to create " + directory);
+            }
+            // write then move, so that readers never see a partial file
+            File temp = File.createTempFile(key, ".tmp", directory);
+            try {
+                Files.write(temp.toPath(), bytes);
+                // an entry written again replaces the one there, which no longer counts
+                replaced = file.length();
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                temp.delete();
+            }
+        } catch (IOException e) {
+            // the cache is only an optimization
+            logger.log(Level.WARNING, "ModulesCompilerCache: unable to write " + file, e);
+            return;
+        }
+        added(bytes.length - replaced);
+    }
+
+    private synchronized void added(long bytes) {
+        if (size < 0) {
+            size = 0;
+            for (File file : listEntries()) {
+                size += file.length();
+            }
+        } else {
+            size += bytes;
+        }
+        if (size > maxBytes) {
+            evict(maxBytes * 3 / 4);
+        }
+    }
+
+    private void evict(long target) {
+        File[] files = listEntries();
+        final Map<File, Long> lastModified = new HashMap<>();
+        // recount, other processes may share the directory
+        size = 0;
+        for (File file : files) {
+            lastModified.put(file, file.lastModified());
+            size += file.length();
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(lastModified.get(f1), lastModified.get(f2));
+            }
+        });
+        for (File file : files) {
+            if (size <= target) {
+                break;
+            }
+            long length = file.length();
+            if (delete(file)) {
+                size -= length;
+            }
+        }
+    }
+
+    private File[] listEntries() {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SUFFIX);
+            }
+        });
+        return files != null ? files : new File[0];
+    }
+
+    private static boolean delete(File file) {
+        return file.delete() || !file.exists();
+    }
+
+    /**
+     * Deletes all entries
+     */
+    synchronized void clear() {
+        for (File file : listEntries()) {
+            delete(file);
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.modules.impl;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.auraframework.modules.ModulesCompilerData;
+import org.auraframework.util.j2v8.J2V8Util;
+
+import com.eclipsesource.v8.JavaVoidCallback;
+import com.eclipsesource.v8.NodeJS;
+import com.eclipsesource.v8.V8;
+import com.eclipsesource.v8.V8Array;
+import com.eclipsesource.v8.V8Object;
+import com.eclipsesource.v8.utils.MemoryManager;
+
+/**
+ * Bounded pool of long-lived NodeJS runtimes, each with the modules compiler already required. Starting a runtime and
+ * warming up its JIT costs far more than compiling a typical module, so runtimes are reused until one of the recycling
+ * policies kicks in:
+ * <ul>
+ * <li>after {@link #MAX_COMPILES_PER_RUNTIME} compiles, to bound slow leaks in the compiler</li>
+ * <li>when the JS heap grows past {@link #MAX_HEAP_USED} bytes</li>
+ * <li>after any failed compile, since the compiler doesn't always recover from its own errors (a compile that follows
+ * a syntax error on the same runtime may never settle) and the runtime state can't be trusted after a script exception
+ * </li>
+ * </ul>
+ */
+final class ModulesCompilerJ2V8Pool {
+
+    private static final Logger logger = Logger.getLogger(ModulesCompilerJ2V8Pool.class.getName());
+
+    static final int DEFAULT_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    static final int MAX_COMPILES_PER_RUNTIME = 1000;
+    static final long MAX_HEAP_USED = 512L * 1024 * 1024;
+
+    /**
+     * Defined once per runtime, dispatches a compile and routes the outcome to the registered java callbacks. The
+     * compile is started from the event loop so that node drains the promise jobs it queues while we pump messages.
+     */
+    private static final String DISPATCH_SCRIPT = ""
+            + "function compileModule(compiler, entry, options) {"
+            + "    setImmediate(function() {"
+            + "        compiler.compile(entry, options).then(onResultCallback).catch(onErrorCallback);"
+            + "    });"
+            + "}";
+
+    private final Semaphore permits;
+    private final Queue<CompilerRuntime> idle = new ConcurrentLinkedQueue<>();
+
+    ModulesCompilerJ2V8Pool(int size) {
+        permits = new Semaphore(size, true);
+    }
+
+    /**
+     * Compiles on one of the pooled runtimes, waiting for one to become available if all are busy.
+     *
+     * @param entry the entry path passed to the compiler
+     * @param options compiler options, values may be Strings, Booleans or nested Maps of Strings
+     */
+    ModulesCompilerData compile(String entry, Map<String, Object> options) throws Exception {
+        permits.acquire();
+        CompilerRuntime runtime = null;
+        try {
+            runtime = idle.poll();
+            if (runtime == null) {
+                runtime = new CompilerRuntime();
+            } else {
+                runtime.lock();
+            }
+            return runtime.compile(entry, options);
+        } finally {
+            if (runtime != null) {
+                giveBack(runtime);
+            }
+            permits.release();
+        }
+    }
+
+    private void giveBack(CompilerRuntime runtime) {
+        String reason = runtime.getRecycleReason();
+        if (reason == null) {
+            runtime.unlock();
+            idle.offer(runtime);
+        } else {
+            logger.info("ModulesCompilerJ2V8Pool: recycling runtime, " + reason);
+            runtime.release();
+        }
+    }
+
+    /**
+     * Releases the idle runtimes. Runtimes in use are released when they are given back.
+     */
+    void clear() {
+        CompilerRuntime runtime;
+        while ((runtime = idle.poll()) != null) {
+            runtime.lock();
+            runtime.release();
+        }
+    }
+
+    /**
+     * A NodeJS runtime with the compiler loaded. Only ever used by one thread at a time, the V8 lock is handed over
+     * through {@link #lock()} and {@link #unlock()}.
+     */
+    private static final class CompilerRuntime {
+        private final NodeJS nodeJS;
+        private final V8 v8;
+        private final V8Object compiler;
+
+        private CompletableFuture<ModulesCompilerData> pending;
+        private String entry;
+        private int compiles;
+        private String broken;
+
+        CompilerRuntime() {
+            nodeJS = J2V8Util.createNodeJS();
+            v8 = nodeJS.getRuntime();
+            v8.registerJavaMethod(new JavaVoidCallback() {
+                @Override
+                public void invoke(final V8Object receiver, final V8Array parameters) {
+                    pending.complete(ModulesCompilerUtil.parseCompilerOutput(parameters.getObject(0)));
+                }
+            }, "onResultCallback");
+            v8.registerJavaMethod(new JavaVoidCallback() {
+                @Override
+                public void invoke(final V8Object receiver, final V8Array parameters) {
+                    String error = parameters.toString();
+                    broken = "compiler reported an error";
+                    pending.completeExceptionally(new RuntimeException(error));
+                    logger.warning("ModulesCompilerJ2v8: error " + entry + ": " + error);
+                }
+            }, "onErrorCallback");
+            compiler = nodeJS.require(new File(ModulesCompilerUtil.COMPILER_JS_PATH));
+            v8.executeVoidScript(DISPATCH_SCRIPT);
+        }
+
+        ModulesCompilerData compile(String entry, Map<String, Object> options) throws Exception {
+            CompletableFuture<ModulesCompilerData> future = new CompletableFuture<>();
+            this.pending = future;
+            this.entry = entry;
+            compiles++;
+            MemoryManager memoryManager = new MemoryManager(v8);
+            try {
+                V8Array parameters = new V8Array(v8);
+                parameters.push(compiler);
+                parameters.push(entry);
+                parameters.push(toV8Object(options));
+                v8.executeVoidFunction("compileModule", parameters);
+                while (!future.isDone() && nodeJS.isRunning()) {
+                    nodeJS.handleMessage();
+                }
+            } catch (Exception e) {
+                broken = "compile threw " + e;
+                throw e;
+            } finally {
+                memoryManager.release();
+                this.pending = null;
+                this.entry = null;
+            }
+            if (!future.isDone()) {
+                broken = "compile did not complete";
+                throw new IllegalStateException("ModulesCompilerJ2V8: compile did not complete for " + entry);
+            }
+            return future.get();
+        }
+
+        @SuppressWarnings("unchecked")
+        private V8Object toV8Object(Map<String, ?> map) {
+            V8Object object = new V8Object(v8);
+            for (Entry<String, ?> entry : map.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof Boolean) {
+                    object.add(entry.getKey(), (Boolean) value);
+                } else if (value instanceof Map) {
+                    object.add(entry.getKey(), toV8Object((Map<String, ?>) value));
+                } else {
+                    object.add(entry.getKey(), String.valueOf(value));
+                }
+            }
+            return object;
+        }
+
+        /**
+         * @return why this runtime shouldn't be reused, null if it can be
+         */
+        String getRecycleReason() {
+            if (broken != null) {
+                return broken;
+            }
+            if (compiles >= MAX_COMPILES_PER_RUNTIME) {
+                return compiles + " compiles";
+            }
+            try {
+                double heapUsed = v8.executeDoubleScript("process.memoryUsage().heapUsed");
+                if (heapUsed > MAX_HEAP_USED) {
+                    return "heap used " + (long) heapUsed;
+                }
+            } catch (Exception e) {
+                return "unable to check heap: " + e.getMessage();
+            }
+            return null;
+        }
+
+        void lock() {
+            if (!v8.getLocker().hasLock()) {
+                v8.getLocker().acquire();
+            }
+        }
+
+        void unlock() {
+            v8.getLocker().release();
+        }
+
+        void release() {
+            try {
+                compiler.release();
+                nodeJS.release();
+            } catch (Throwable t) {
+                logger.log(Level.WARNING, "ModulesCompilerJ2V8Pool: error releasing runtime", t);
+            }
+        }
+    }
+}
@@ -16,61 +16,206 @@
 package org.auraframework.modules.impl;
 
 import java.io.File;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
 import org.auraframework.modules.ModulesCompiler;
 import org.auraframework.modules.ModulesCompilerData;
 import org.auraframework.util.AuraFiles;
 
-import com.google.common.base.Charsets;
-import com.google.common.io.CharStreams;
-
 /**
- * ModulesCompiler implementation that spawns a process to invoke node
+ * ModulesCompiler implementation that sends compiles to a small pool of long running node processes executing
+ * compiler-daemon.js, see {@link ModulesCompilerNodeWorker} for the protocol. A worker that crashed or stopped
+ * answering health checks is replaced on next use. A compile that times out fails alone, its worker is retired: it is
+ * replaced for new compiles and stopped once the others it is working on are done.
  */
 public final class ModulesCompilerNode implements ModulesCompiler {
 
+    private static final Logger logger = Logger.getLogger(ModulesCompilerNode.class.getName());
+
     private static final String PATH_TO_NODE = AuraFiles.Core.getPath() + "/node/node";
 
+    static final int POOL_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    static final long START_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    static final long COMPILE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    static final long PING_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    /**
+     * Workers that have been quiet for longer than this are pinged before being handed a compile
+     */
+    static final long HEALTH_CHECK_IDLE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final ModulesCompilerNodeWorker[] workers = new ModulesCompilerNodeWorker[POOL_SIZE];
+    private static final AtomicInteger next = new AtomicInteger();
+
     public ModulesCompilerData compile(File file) throws Exception {
-        // executes: node .../compiler-cli.js .../compiler.js input.js output.js
+        // the compiler reads the sources from disk
         String filePath = file.getAbsolutePath();
-        File output = ModulesCompilerUtil.createTempFile("out");
-        List<String> command = new ArrayList<>();
-        command.add(PATH_TO_NODE);
-        command.add(ModulesCompilerUtil.COMPILER_CLI_JS_PATH);
-        command.add(ModulesCompilerUtil.COMPILER_JS_PATH);
-        command.add(filePath);
-        command.add(output.getAbsolutePath());
-
-        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
-
-        // can exec in current thread as stderr is redirected to stdout
-        String stdout = CharStreams.toString(new InputStreamReader(process.getInputStream(), Charsets.UTF_8));
-
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-            throw new RuntimeException(
-                    "ModulesCompilerNode failed for: " + filePath + "\n    exit code: " + exitCode + '\n' + stdout);
-        }
-
-        String result = new String(Files.readAllBytes(output.toPath()), Charsets.UTF_8);
-        output.delete();
-        // TODO: compiler metadata
-        return new ModulesCompilerData(result, null, null);
+        return compileWithOptions(filePath, ModulesCompilerUtil.createCompilerOptions());
     }
 
     @Override
-    public ModulesCompilerData compile(String componentPath, String sourceTemplate, String sourceClass) {
-        throw new Error("NYI");
+    public ModulesCompilerData compile(String entry, String sourceTemplate, String sourceClass) throws Exception {
+        return compileWithOptions(entry, ModulesCompilerUtil.createCompilerOptions(sourceTemplate, sourceClass));
     }
 
     @Override
-    public ModulesCompilerData compile(String entry, Map<String, String> sources) throws Exception {
-        throw new Error("NYI");
+    public ModulesCompilerData compile(final String entry, final Map<String, String> sources) throws Exception {
+        return ModulesCompilerCache.getInstance().get(entry, sources, new Callable<ModulesCompilerData>() {
+            @Override
+            public ModulesCompilerData call() throws Exception {
+                return compileWithOptions(entry, ModulesCompilerUtil.createCompilerOptions(entry, sources));
+            }
+        });
+    }
+
+    /**
+     * Compiles several bundles with a single submission, spread over the workers of the pool, which work on all of
+     * them at once. Bundles found in the {@link ModulesCompilerCache} aren't sent.
+     *
+     * @param bundles sources of each bundle, keyed by entry, as for {@link #compile(String, Map)}
+     * @return compiler output keyed by entry, in the order of the given bundles
+     * @throws Exception if any of the bundles failed to compile, after all of them are done
+     */
+    public Map<String, ModulesCompilerData> compile(Map<String, Map<String, String>> bundles) throws Exception {
+        ModulesCompilerCache cache = ModulesCompilerCache.getInstance();
+        Map<String, ModulesCompilerData> results = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        Map<String, ModulesCompilerNodeWorker> workersByEntry = new HashMap<>();
+        for (Entry<String, Map<String, String>> bundle : bundles.entrySet()) {
+            String entry = bundle.getKey();
+            ModulesCompilerData cached = cache.get(entry, bundle.getValue());
+            // keep the order of the bundles in the results
+            results.put(entry, cached);
+            if (cached == null) {
+                ModulesCompilerNodeWorker worker = getWorker();
+                workersByEntry.put(entry, worker);
+                futures.put(entry, worker.compile(entry,
+                        ModulesCompilerUtil.createCompilerOptions(entry, bundle.getValue())));
+            }
+        }
+        List<String> errors = new ArrayList<>();
+        Exception first = null;
+        long deadline = System.currentTimeMillis() + COMPILE_TIMEOUT_MILLIS
+                * Math.max(1, (futures.size() + POOL_SIZE - 1) / POOL_SIZE);
+        for (Entry<String, CompletableFuture<Object>> future : futures.entrySet()) {
+            try {
+                ModulesCompilerData data = getResult(workersByEntry.get(future.getKey()), future.getValue(),
+                        future.getKey(), Math.max(0, deadline - System.currentTimeMillis()));
+                cache.put(future.getKey(), bundles.get(future.getKey()), data);
+                results.put(future.getKey(), data);
+            } catch (Exception e) {
+                errors.add(future.getKey() + ": " + e.getMessage());
+                if (first == null) {
+                    first = e;
+                }
+            }
+        }
+        if (first != null) {
+            throw new RuntimeException("ModulesCompilerNode failed for " + errors, first);
+        }
+        return results;
+    }
+
+    private ModulesCompilerData compileWithOptions(String entry, Map<String, Object> options) throws Exception {
+        ModulesCompilerNodeWorker worker = getWorker();
+        return getResult(worker, worker.compile(entry, options), entry, COMPILE_TIMEOUT_MILLIS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ModulesCompilerData getResult(ModulesCompilerNodeWorker worker, CompletableFuture<Object> future,
+            String entry, long timeoutMillis) throws Exception {
+        try {
+            return ModulesCompilerUtil.parseCompilerOutput((Map<String, Object>) future.get(timeoutMillis,
+                    TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            // it may be stuck, have new compiles go to a fresh process but let the others in flight finish
+            logger.warning("ModulesCompilerNode: timed out compiling " + entry + ", retiring worker");
+            worker.abandon(future);
+            worker.retire();
+            throw new RuntimeException("ModulesCompilerNode timed out for: " + entry, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("ModulesCompilerNode failed for: " + entry, e.getCause());
+        }
+    }
+
+    /**
+     * @return true if every running worker answers a ping, retired workers are replaced on next use
+     */
+    public static boolean isHealthy() {
+        ModulesCompilerNodeWorker[] running;
+        synchronized (workers) {
+            running = workers.clone();
+        }
+        // pinged outside of the lock, so compiles can still get their workers meanwhile
+        for (ModulesCompilerNodeWorker worker : running) {
+            if (worker != null && !worker.isRetired() && (!worker.isAlive() || !worker.ping(PING_TIMEOUT_MILLIS))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Picks the next worker round robin, (re)starting it if it isn't there, isn't healthy or was retired.
+     *
+     * Only picking the worker and putting a new one in its place hold the lock. Pinging and starting a worker take
+     * seconds, so they are done outside of it, and don't hold up compiles going to the other workers. When two compiles
+     * start a worker for the same place at once, the first one in is kept and the other is stopped.
+     */
+    private static ModulesCompilerNodeWorker getWorker() throws Exception {
+        int index = Math.abs(next.getAndIncrement() % POOL_SIZE);
+        ModulesCompilerNodeWorker worker;
+        synchronized (workers) {
+            worker = workers[index];
+        }
+        if (worker != null && worker.isAlive() && worker.getIdleMillis() > HEALTH_CHECK_IDLE_MILLIS
+                && !worker.ping(PING_TIMEOUT_MILLIS)) {
+            logger.warning("ModulesCompilerNode: worker failed health check, restarting");
+            worker.destroy();
+        }
+        if (worker != null && worker.isAlive()) {
+            return worker;
+        }
+        ModulesCompilerNodeWorker started = ModulesCompilerNodeWorker.start(getPathToNode(), START_TIMEOUT_MILLIS);
+        synchronized (workers) {
+            ModulesCompilerNodeWorker current = workers[index];
+            if (current != worker && current != null && current.isAlive()) {
+                started.destroy();
+                return current;
+            }
+            workers[index] = started;
+        }
+        return started;
+    }
+
+    /**
+     * Stops all workers, they are started again as needed.
+     */
+    public static void shutdown() {
+        synchronized (workers) {
+            for (int i = 0; i < workers.length; i++) {
+                if (workers[i] != null) {
+                    workers[i].destroy();
+                    workers[i] = null;
+                }
+            }
+        }
+    }
+
+    private static String getPathToNode() {
+        // fall back on whatever node is on the path if the build didn't install one
+        return new File(PATH_TO_NODE).canExecute() ? PATH_TO_NODE : "node";
     }
 }
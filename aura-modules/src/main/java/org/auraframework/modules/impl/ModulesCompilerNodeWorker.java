@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.modules.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.auraframework.util.json.JsonEncoder;
+
+import com.google.common.base.Charsets;
+
+/**
+ * One long running node process executing compiler-daemon.js. Requests are written to its stdin as length prefixed
+ * JSON frames, a reader thread matches the responses on stdout back to the pending requests by id, so any number of
+ * requests can be in flight at once. If the process dies, everything pending fails and the worker stays dead, the owner
+ * is expected to start a new one. A worker that may be stuck is {@link #retire() retired} instead: it takes no new
+ * requests and is stopped once the ones in flight are answered.
+ */
+final class ModulesCompilerNodeWorker {
+
+    private static final Logger logger = Logger.getLogger(ModulesCompilerNodeWorker.class.getName());
+
+    private static final int READY_ID = 0;
+
+    private final Process process;
+    private final DataOutputStream toNode;
+    private final Map<Integer, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger(READY_ID);
+    private final CompletableFuture<Object> ready = new CompletableFuture<>();
+    private volatile boolean alive = true;
+    private volatile boolean retired;
+    private volatile long lastResponse = System.currentTimeMillis();
+
+    private ModulesCompilerNodeWorker(Process process) {
+        this.process = process;
+        this.toNode = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        pending.put(READY_ID, ready);
+    }
+
+    /**
+     * Starts a worker and waits for it to load the compiler.
+     */
+    static ModulesCompilerNodeWorker start(String pathToNode, long timeoutMillis) throws Exception {
+        Process process = new ProcessBuilder(pathToNode, ModulesCompilerUtil.COMPILER_DAEMON_JS_PATH,
+                ModulesCompilerUtil.COMPILER_JS_PATH).start();
+        ModulesCompilerNodeWorker worker = new ModulesCompilerNodeWorker(process);
+        worker.startReaders();
+        try {
+            worker.ready.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            worker.destroy();
+            throw e;
+        }
+        return worker;
+    }
+
+    private void startReaders() {
+        Thread stdout = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readResponses();
+            }
+        }, "ModulesCompilerNode.stdout");
+        stdout.setDaemon(true);
+        stdout.start();
+
+        Thread stderr = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                logErrors();
+            }
+        }, "ModulesCompilerNode.stderr");
+        stderr.setDaemon(true);
+        stderr.start();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readResponses() {
+        Throwable cause = null;
+        try {
+            DataInputStream fromNode = new DataInputStream(process.getInputStream());
+            while (true) {
+                byte[] payload = new byte[fromNode.readInt()];
+                fromNode.readFully(payload);
+                lastResponse = System.currentTimeMillis();
+                Map<String, Object> response = (Map<String, Object>) ModulesCompilerUtil
+                        .readJson(new String(payload, Charsets.UTF_8));
+                CompletableFuture<Object> future = pending.remove(((Number) response.get("id")).intValue());
+                if (future != null) {
+                    if (response.containsKey("error")) {
+                        future.completeExceptionally(new RuntimeException(String.valueOf(response.get("error"))));
+                    } else {
+                        future.complete(response.get("result"));
+                    }
+                }
+                destroyIfRetiredAndDrained();
+            }
+        } catch (EOFException e) {
+            // process went away
+        } catch (Throwable t) {
+            cause = t;
+        }
+        alive = false;
+        String message = "ModulesCompilerNode: node exited" + (cause == null ? "" : " (" + cause + ")");
+        for (Integer id : pending.keySet()) {
+            CompletableFuture<Object> future = pending.remove(id);
+            if (future != null) {
+                future.completeExceptionally(new IOException(message, cause));
+            }
+        }
+        destroy();
+    }
+
+    private void logErrors() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getErrorStream(), Charsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logger.info("ModulesCompilerNode: " + line);
+            }
+        } catch (IOException e) {
+            // process went away
+        }
+    }
+
+    /**
+     * Queues a compile.
+     *
+     * @return the compiler result: a map with code and metadata
+     */
+    CompletableFuture<Object> compile(String entry, Map<String, Object> options) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("type", "compile");
+        request.put("entry", entry);
+        request.put("options", options);
+        return send(request);
+    }
+
+    /**
+     * @return true if the daemon answered a ping within the timeout
+     */
+    boolean ping(long timeoutMillis) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("type", "ping");
+        try {
+            return "pong".equals(send(request).get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "ModulesCompilerNode: ping failed", e);
+            return false;
+        }
+    }
+
+    private CompletableFuture<Object> send(Map<String, Object> request) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        int id = ids.incrementAndGet();
+        request.put("id", id);
+        pending.put(id, future);
+        if (!alive) {
+            pending.remove(id);
+            future.completeExceptionally(new IOException("ModulesCompilerNode: node exited"));
+            return future;
+        }
+        byte[] payload = JsonEncoder.serialize(request).getBytes(Charsets.UTF_8);
+        try {
+            synchronized (toNode) {
+                toNode.writeInt(payload.length);
+                toNode.write(payload);
+                toNode.flush();
+            }
+        } catch (IOException e) {
+            pending.remove(id);
+            alive = false;
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Stops waiting for a request, e.g. after it timed out. Its answer is dropped if it ever comes.
+     */
+    void abandon(CompletableFuture<Object> future) {
+        pending.values().remove(future);
+        destroyIfRetiredAndDrained();
+    }
+
+    /**
+     * Takes the worker out of use without failing the requests in flight, the process is stopped once they are all
+     * answered or abandoned.
+     */
+    void retire() {
+        retired = true;
+        destroyIfRetiredAndDrained();
+    }
+
+    private void destroyIfRetiredAndDrained() {
+        if (retired && pending.isEmpty()) {
+            destroy();
+        }
+    }
+
+    boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * @return true if the worker can take new requests
+     */
+    boolean isAlive() {
+        return alive && !retired && process.isAlive();
+    }
+
+    /**
+     * @return milliseconds since node last answered anything
+     */
+    long getIdleMillis() {
+        return System.currentTimeMillis() - lastResponse;
+    }
+
+    void destroy() {
+        alive = false;
+        process.destroy();
+    }
+}
@@ -19,12 +19,16 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.auraframework.modules.ModulesCompilerData;
 import org.auraframework.util.IOUtil;
+import org.auraframework.util.json.JsonStreamReader;
+import org.auraframework.util.json.JsonStreamReader.JsonParseException;
 
 import com.eclipsesource.v8.V8Array;
 import com.eclipsesource.v8.V8Object;
@@ -32,7 +36,7 @@ import com.eclipsesource.v8.V8Object;
 final class ModulesCompilerUtil {
 
     static final String COMPILER_JS_PATH = pathToLocalTempFile("modules/compiler.min.js");
-    static final String COMPILER_CLI_JS_PATH = pathToLocalTempFile("modules/compiler-cli.js");
+    static final String COMPILER_DAEMON_JS_PATH = pathToLocalTempFile("modules/compiler-daemon.js");
 
     private static String pathToLocalTempFile(String classpathResource) {
         try {
@@ -46,19 +50,93 @@ final class ModulesCompilerUtil {
         }
     }
 
-    static File createTempScriptFile(String script, String name) throws IOException {
-        // create script in current dir for require to find the modules
-        File file = createTempFile(name);
-        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
-            writer.print(script);
+    /**
+     * @return compiler options for an entry in a bundle, the sources are keyed by path relative to the bundle
+     */
+    static Map<String, Object> createCompilerOptions(String entry, Map<String, String> sources) {
+        Map<String, String> allSources = new HashMap<>();
+        
+        String sourceClass = null;
+        
+        // add entries for all files in the bundle
+        for (Entry<String, String> sourceEntry: sources.entrySet()) {
+            String name = sourceEntry.getKey();
+            String source = sourceEntry.getValue();
+            
+            allSources.put(name, source);
+            
+            if (entry.endsWith(name.substring(1))) {
+                sourceClass = source;
+            }
         }
-        return file;
+        
+        if (sourceClass == null) {
+            throw new IllegalArgumentException("could not find entry in sources: " + entry);
+        }
+        
+        // add entry for sourceClass .js
+        allSources.put(entry, sourceClass);
+        
+        Map<String, Object> options = createCompilerOptions();
+        options.put("sources", allSources);
+        return options;
+    }
+
+    static Map<String, Object> createCompilerOptions(String sourceTemplate, String sourceClass) {
+        Map<String, Object> options = createCompilerOptions();
+        options.put("sourceTemplate", sourceTemplate);
+        options.put("sourceClass", sourceClass);
+        return options;
+    }
+
+    /**
+     * @return the options common to all compiles, the compiler reads the sources from disk if none are added
+     */
+    static Map<String, Object> createCompilerOptions() {
+        Map<String, Object> options = new HashMap<>();
+        options.put("format", "aura");
+        options.put("mapNamespaceFromPath", Boolean.TRUE);
+        return options;
+    }
+
+    /**
+     * Reads JSON written by our own node daemon or {@link ModulesCompilerCache}. Compiled code can be well over the
+     * length limits of {@link JsonStreamReader}, which are there for untrusted input, and the json is already in memory
+     * anyway, so the limits are turned off.
+     */
+    static Object readJson(String json) {
+        JsonStreamReader reader = new JsonStreamReader(json);
+        reader.disableLengthLimitsBecauseIAmStreamingAndMyMemoryUseIsNotProportionalToTheStreamLength();
+        try {
+            reader.next();
+        } catch (IOException e) {
+            throw new JsonParseException(e);
+        }
+        return reader.getValue();
+    }
+
+    /**
+     * Parses the compiler result once it's been turned into java objects (i.e. read back from JSON)
+     */
+    @SuppressWarnings("unchecked")
+    static ModulesCompilerData parseCompilerOutput(Map<String, Object> result) {
+        String code = (String) result.get("code");
+        Map<String, Object> metadata = (Map<String, Object>) result.get("metadata");
+        List<String> bundleDependencies = new ArrayList<>();
+        List<String> templateUsedIds = new ArrayList<>();
+        if (metadata != null) {
+            addStrings((List<Object>) metadata.get("bundleDependencies"), bundleDependencies);
+            addStrings((List<Object>) metadata.get("templateUsedIds"), templateUsedIds);
+        }
+        return new ModulesCompilerData(code, bundleDependencies, templateUsedIds);
     }
 
-    static File createTempFile(String name) throws IOException {
-        File file = File.createTempFile(name, ".js.tmp", new File("."));
-        file.deleteOnExit();
-        return file;
+    private static void addStrings(List<Object> values, List<String> strings) {
+        if (values != null) {
+            for (Object value : values) {
+                strings.add((String) value);
+            }
+        }
     }
 
     static ModulesCompilerData parseCompilerOutput(V8Object result) {
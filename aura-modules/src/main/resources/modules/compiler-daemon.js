@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+// usage: node compiler-daemon.js compiler.js
+//
+// Long running compiler. Requests and responses are UTF-8 JSON messages, each framed by a 4 byte big endian length,
+// read from stdin and written to stdout:
+//   {id, type: 'compile', entry, options} -> {id, result: {code, metadata}} or {id, error}
+//   {id, type: 'ping'}                    -> {id, result: 'pong'}
+// Once the compiler is loaded {id: 0, result: 'ready'} is written. Compiles run concurrently, responses are written
+// as they complete, so callers match them up by id. Closing stdin stops the daemon.
+'use strict';
+
+if (process.argv.length != 3) {
+    console.error('usage: ' + __filename + ' compiler.js');
+    process.exit(-1);
+}
+
+const compiler = require(process.argv[2]);
+const out = process.stdout;
+
+// stdout only carries frames, anything the compiler logs goes to stderr
+console.log = console.info = console.warn = console.error;
+
+function toBuffer(string) {
+    // Buffer.from(string) only exists from node 4.5, before that Buffer.from is the inherited Uint8Array.from
+    return Buffer.from !== Uint8Array.from ? Buffer.from(string, 'utf8') : new Buffer(string, 'utf8');
+}
+
+function send(message) {
+    const payload = toBuffer(JSON.stringify(message));
+    const header = toBuffer('\0\0\0\0');
+    header.writeUInt32BE(payload.length, 0);
+    out.write(Buffer.concat([header, payload]));
+}
+
+function handle(request) {
+    const id = request.id;
+    if (request.type === 'ping') {
+        send({id: id, result: 'pong'});
+        return;
+    }
+    if (request.type !== 'compile') {
+        send({id: id, error: 'unknown request type: ' + request.type});
+        return;
+    }
+    let promise;
+    try {
+        promise = compiler.compile(request.entry, request.options);
+    } catch (error) {
+        send({id: id, error: String(error)});
+        return;
+    }
+    promise.then(function(result) {
+        send({id: id, result: {code: result.code, metadata: result.metadata}});
+    }).catch(function(error) {
+        send({id: id, error: String(error)});
+    });
+}
+
+let pending = toBuffer('');
+process.stdin.on('data', function(chunk) {
+    pending = Buffer.concat([pending, chunk]);
+    while (pending.length >= 4) {
+        const length = pending.readUInt32BE(0);
+        if (pending.length < 4 + length) {
+            break;
+        }
+        const message = pending.slice(4, 4 + length).toString('utf8');
+        pending = pending.slice(4 + length);
+        let request;
+        try {
+            request = JSON.parse(message);
+        } catch (error) {
+            console.error('compiler-daemon: bad request: ' + error);
+            process.exit(-1);
+        }
+        handle(request);
+    }
+});
+process.stdin.on('end', function() {
+    process.exit(0);
+});
+
+send({id: 0, result: 'ready'});
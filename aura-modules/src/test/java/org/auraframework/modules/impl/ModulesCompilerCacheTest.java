@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.modules.impl;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.auraframework.modules.ModulesCompilerData;
+import org.auraframework.util.IOUtil;
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+
+public class ModulesCompilerCacheTest extends UnitTestCase {
+
+    private File directory;
+    private final AtomicInteger compiles = new AtomicInteger();
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        directory = new File(IOUtil.newTempDir("modulesCache"));
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        IOUtil.delete(directory);
+        super.tearDown();
+    }
+
+    @Test
+    public void testSecondCompileOfSameSourcesIsCached() throws Exception {
+        ModulesCompilerCache cache = new ModulesCompilerCache(directory, 1024 * 1024, "compiler");
+
+        ModulesCompilerData first = cache.get("x/y/y.js", sources("one"), compile("one"));
+        ModulesCompilerData second = cache.get("x/y/y.js", sources("one"), compile("one"));
+
+        assertEquals(1, compiles.get());
+        assertEquals(first.code, second.code);
+        assertEquals(first.bundleDependencies, second.bundleDependencies);
+        assertEquals(first.templateUsedIds, second.templateUsedIds);
+    }
+
+    @Test
+    public void testCacheSurvivesNewInstance() throws Exception {
+        new ModulesCompilerCache(directory, 1024 * 1024, "compiler").get("x/y/y.js", sources("one"), compile("one"));
+
+        ModulesCompilerData data = new ModulesCompilerCache(directory, 1024 * 1024, "compiler").get("x/y/y.js",
+                sources("one"), compile("one"));
+
+        assertEquals(1, compiles.get());
+        assertEquals("code one", data.code);
+    }
+
+    @Test
+    public void testChangedSourcesEntryOrCompilerMiss() throws Exception {
+        ModulesCompilerCache cache = new ModulesCompilerCache(directory, 1024 * 1024, "compiler");
+        cache.get("x/y/y.js", sources("one"), compile("one"));
+
+        assertEquals("code two", cache.get("x/y/y.js", sources("two"), compile("two")).code);
+        assertEquals(2, compiles.get());
+
+        cache.get("x/z/z.js", sources("one"), compile("one"));
+        assertEquals(3, compiles.get());
+
+        new ModulesCompilerCache(directory, 1024 * 1024, "newCompiler").get("x/y/y.js", sources("one"),
+                compile("one"));
+        assertEquals(4, compiles.get());
+    }
+
+    @Test
+    public void testKeyIgnoresSourceOrder() throws Exception {
+        ModulesCompilerCache cache = new ModulesCompilerCache(directory, 1024 * 1024, "compiler");
+        Map<String, String> sources = sources("one");
+        sources.put("a.js", "a");
+        sources.put("b.js", "b");
+        Map<String, String> reversed = new TreeMap<>(Collections.reverseOrder());
+        reversed.putAll(sources);
+
+        assertEquals(cache.getKey("x/y/y.js", sources), cache.getKey("x/y/y.js", reversed));
+    }
+
+    @Test
+    public void testFailedCompileNotCached() throws Exception {
+        ModulesCompilerCache cache = new ModulesCompilerCache(directory, 1024 * 1024, "compiler");
+        try {
+            cache.get("x/y/y.js", sources("one"), new Callable<ModulesCompilerData>() {
+                @Override
+                public ModulesCompilerData call() throws Exception {
+                    throw new RuntimeException("syntax error");
+                }
+            });
+            fail("should have thrown");
+        } catch (RuntimeException e) {
+            assertEquals("syntax error", e.getMessage());
+        }
+        assertNull(cache.get("x/y/y.js", sources("one")));
+    }
+
+    @Test
+    public void testCorruptEntryIsCompiledAgain() throws Exception {
+        ModulesCompilerCache cache = new ModulesCompilerCache(directory, 1024 * 1024, "compiler");
+        cache.get("x/y/y.js", sources("one"), compile("one"));
+        File entry = new File(directory, cache.getKey("x/y/y.js", sources("one")) + ".json");
+        Files.write(entry.toPath(), "{\"code\":".getBytes(Charsets.UTF_8));
+
+        assertEquals("code one", cache.get("x/y/y.js", sources("one"), compile("one")).code);
+        assertEquals(2, compiles.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        // room for about three entries
+        ModulesCompilerCache cache = new ModulesCompilerCache(directory, 3 * 1200, "compiler");
+        String padding = new String(new char[1000]).replace('\0', 'x');
+        cache.get("a", sources(padding), compile(padding));
+        cache.get("b", sources(padding), compile(padding));
+        cache.get("c", sources(padding), compile(padding));
+        // make the first one the most recently used
+        new File(directory, cache.getKey("b", sources(padding)) + ".json").setLastModified(1000);
+        new File(directory, cache.getKey("c", sources(padding)) + ".json").setLastModified(2000);
+        new File(directory, cache.getKey("a", sources(padding)) + ".json").setLastModified(3000);
+
+        cache.get("d", sources(padding), compile(padding));
+
+        assertNotNull(cache.get("a", sources(padding)));
+        assertNull(cache.get("b", sources(padding)));
+        assertNotNull(cache.get("d", sources(padding)));
+        long size = 0;
+        for (File file : directory.listFiles()) {
+            size += file.length();
+        }
+        assertTrue("cache exceeded its bound: " + size, size <= 3 * 1200);
+    }
+
+    /**
+     * An entry written again only counts once towards the bound
+     */
+    @Test
+    public void testRewrittenEntryCountedOnce() throws Exception {
+        // room for about three entries
+        ModulesCompilerCache cache = new ModulesCompilerCache(directory, 3 * 1200, "compiler");
+        String padding = new String(new char[1000]).replace('\0', 'x');
+        cache.get("a", sources(padding), compile(padding));
+        cache.get("b", sources(padding), compile(padding));
+        for (int i = 0; i < 5; i++) {
+            cache.put("c", sources(padding), compile(padding).call());
+        }
+
+        assertNotNull(cache.get("a", sources(padding)));
+        assertNotNull(cache.get("b", sources(padding)));
+        assertNotNull(cache.get("c", sources(padding)));
+    }
+
+    /**
+     * Entries over the length limits of untrusted json are still read back
+     */
+    @Test
+    public void testLargeEntryIsCached() throws Exception {
+        final String code = Strings.repeat("x", 1500000);
+        Callable<ModulesCompilerData> compile = new Callable<ModulesCompilerData>() {
+            @Override
+            public ModulesCompilerData call() throws Exception {
+                compiles.incrementAndGet();
+                return new ModulesCompilerData(code, Arrays.asList("x-test"), Arrays.asList("test"));
+            }
+        };
+        new ModulesCompilerCache(directory, 10 * 1024 * 1024, "compiler").get("x/y/y.js", sources("one"), compile);
+
+        ModulesCompilerData data = new ModulesCompilerCache(directory, 10 * 1024 * 1024, "compiler").get("x/y/y.js",
+                sources("one"), compile);
+        assertEquals(1, compiles.get());
+        assertEquals(code, data.code);
+    }
+
+    private static Map<String, String> sources(String name) {
+        Map<String, String> sources = new HashMap<>();
+        sources.put("y.js", "export default class " + name + " {}");
+        sources.put("y.html", "<template>" + name + "</template>");
+        return sources;
+    }
+
+    private Callable<ModulesCompilerData> compile(final String name) {
+        return new Callable<ModulesCompilerData>() {
+            @Override
+            public ModulesCompilerData call() throws Exception {
+                compiles.incrementAndGet();
+                return new ModulesCompilerData("code " + name, Arrays.asList("x-test"), Arrays.asList("test"));
+            }
+        };
+    }
+}
@@ -16,9 +16,15 @@ package org.auraframework.modules.impl;
  * limitations under the License.
  */
 
-import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.auraframework.modules.ModulesCompiler;
 import org.auraframework.modules.ModulesCompilerData;
@@ -26,6 +32,7 @@ import org.auraframework.util.test.util.UnitTestCase;
 import org.junit.Test;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import com.google.common.io.Files;
 
@@ -34,6 +41,13 @@ import com.google.common.io.Files;
  */
 public class ModulesCompilerTest extends UnitTestCase {
 
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        // make sure the compilers are exercised
+        ModulesCompilerCache.getInstance().clear();
+    }
+
     /**
      * Test the compile method that takes the sources map
      */
@@ -79,6 +93,40 @@ public class ModulesCompilerTest extends UnitTestCase {
         assertEquals("[test]", compilerData.templateUsedIds.toString());
     }
 
+    /**
+     * Compiles from more threads than there are pooled runtimes, runtimes are handed between threads
+     */
+    @Test
+    public void testModulesCompilerJ2V8Concurrent() throws Exception {
+        final ModulesCompiler compiler = new ModulesCompilerJ2V8();
+
+        final String componentPath = "modules/moduletest/moduletest.js";
+        final String sourceTemplate = Files
+                .toString(getResourceFile("/testdata/modules/moduletest/moduletest.html"), Charsets.UTF_8);
+        final String sourceClass = Files.toString(getResourceFile("/testdata/modules/moduletest/moduletest.js"),
+                Charsets.UTF_8);
+        String expected = Files.toString(getResourceFile("/testdata/modules/moduletest/expected.js"),
+                Charsets.UTF_8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(ModulesCompilerJ2V8Pool.DEFAULT_SIZE * 2);
+        try {
+            List<Future<ModulesCompilerData>> results = new ArrayList<>();
+            for (int i = 0; i < ModulesCompilerJ2V8Pool.DEFAULT_SIZE * 4; i++) {
+                results.add(executor.submit(new Callable<ModulesCompilerData>() {
+                    @Override
+                    public ModulesCompilerData call() throws Exception {
+                        return compiler.compile(componentPath, sourceTemplate, sourceClass);
+                    }
+                }));
+            }
+            for (Future<ModulesCompilerData> result : results) {
+                assertEquals(expected.trim(), result.get().code.trim());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     public void testModulesCompilerJ2V8ErrorInHtml() throws Exception {
         ModulesCompiler compiler = new ModulesCompilerJ2V8();
@@ -119,14 +167,94 @@ public class ModulesCompilerTest extends UnitTestCase {
 
     // tests for ModulesCompilerNode:
 
-//    @Test
-//    public void testModulesCompilerNode() throws Exception {
-//        ModulesCompilerNode compiler = new ModulesCompilerNode();
-//        File file = getResourceFile("/testdata/modules/moduletest/moduletest.js");
-//        assertTrue(file.getAbsolutePath(), file.exists());
-//        String result = compiler.compile(file).code;
-//        String expected = Files.toString(getResourceFile("/testdata/modules/moduletest/expected.js"),
-//                Charsets.UTF_8);
-//        assertEquals(expected, result);
-//    }
+    @Test
+    public void testModulesCompilerNode() throws Exception {
+        ModulesCompiler compiler = new ModulesCompilerNode();
+
+        ModulesCompilerData compilerData = compiler.compile("modules/moduletest/moduletest.js",
+                getSources("moduletest"));
+        String expected = Files.toString(getResourceFile("/testdata/modules/moduletest/expected.js"),
+                Charsets.UTF_8);
+
+        assertEquals(expected.trim(), compilerData.code.trim());
+        assertEquals("[x-test]", compilerData.bundleDependencies.toString());
+        assertEquals("[test]", compilerData.templateUsedIds.toString());
+    }
+
+    @Test
+    public void testModulesCompilerNodeErrorInJs() throws Exception {
+        ModulesCompiler compiler = new ModulesCompilerNode();
+
+        try {
+            compiler.compile("modules/errorInJs/errorInJs.js", getSources("errorInJs"));
+            fail("should report a syntax error");
+        } catch (Exception e) {
+            Throwable cause = Throwables.getRootCause(e);
+            assertEquals("Error: modules/errorInJs/errorInJs.js: Unexpected token (1:11)", cause.getMessage().substring(0, 62));
+        }
+    }
+
+    /**
+     * All bundles of a batch are compiled, a failure in one is reported once all are done
+     */
+    @Test
+    public void testModulesCompilerNodeBatch() throws Exception {
+        ModulesCompilerNode compiler = new ModulesCompilerNode();
+
+        Map<String, Map<String, String>> bundles = new LinkedHashMap<>();
+        bundles.put("modules/moduletest/moduletest.js", getSources("moduletest"));
+        bundles.put("modules/errorInHtml/errorInHtml.js", getSources("errorInHtml"));
+        try {
+            compiler.compile(bundles);
+            fail("should report a syntax error");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("modules/errorInHtml/errorInHtml.js: "));
+            assertFalse(e.getMessage(), e.getMessage().contains("modules/moduletest/moduletest.js: "));
+        }
+
+        bundles.remove("modules/errorInHtml/errorInHtml.js");
+        Map<String, ModulesCompilerData> results = compiler.compile(bundles);
+        assertEquals(bundles.keySet(), results.keySet());
+        assertEquals("[x-test]", results.get("modules/moduletest/moduletest.js").bundleDependencies.toString());
+    }
+
+    /**
+     * Workers are started again after they go away
+     */
+    @Test
+    public void testModulesCompilerNodeRestart() throws Exception {
+        ModulesCompiler compiler = new ModulesCompilerNode();
+        compiler.compile("modules/moduletest/moduletest.js", getSources("moduletest"));
+        assertTrue(ModulesCompilerNode.isHealthy());
+
+        ModulesCompilerNode.shutdown();
+        ModulesCompilerCache.getInstance().clear();
+        ModulesCompilerData compilerData = compiler.compile("modules/moduletest/moduletest.js",
+                getSources("moduletest"));
+        assertEquals("[test]", compilerData.templateUsedIds.toString());
+        assertTrue(ModulesCompilerNode.isHealthy());
+    }
+
+    /**
+     * Compiled code larger than the length limits of untrusted json still reads back
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testReadJsonOfLargeCode() throws Exception {
+        String code = Strings.repeat("x", 1500000);
+        Map<String, Object> result = (Map<String, Object>) ModulesCompilerUtil
+                .readJson("{\"code\":\"" + code + "\",\"metadata\":{\"templateUsedIds\":[\"test\"]}}");
+        ModulesCompilerData compilerData = ModulesCompilerUtil.parseCompilerOutput(result);
+        assertEquals(code, compilerData.code);
+        assertEquals("[test]", compilerData.templateUsedIds.toString());
+    }
+
+    private Map<String, String> getSources(String name) throws Exception {
+        Map<String, String> sources = new HashMap<>();
+        sources.put(name + ".js", Files.toString(getResourceFile("/testdata/modules/" + name + "/" + name + ".js"),
+                Charsets.UTF_8));
+        sources.put(name + ".html", Files.toString(
+                getResourceFile("/testdata/modules/" + name + "/" + name + ".html"), Charsets.UTF_8));
+        return sources;
+    }
 }
@@ -50,6 +50,52 @@ public interface Annotations {
     @interface CabooseAction {
     }
 
+    /**
+     * Marks a method as safe to run at the same time as the other actions sent with it, when the server is
+     * configured to run actions in parallel.
+     *
+     * The method runs on another thread with its own copy of the context, so it must not rely on the thread it is
+     * called from, nor on the changes other actions make to the context.
+     *
+     * The AuraEnabled annotation is still required to use this method as a server action.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    @interface ParallelAction {
+    }
+
+    /**
+     * Marks a method whose result only depends on its parameters, and on what the key adds to them, so that it can
+     * be cached on the server for a while instead of being run again.
+     *
+     * Only successful results are cached, and only when the action creates no components, events or other actions.
+     *
+     * The AuraEnabled annotation is still required to use this method as a server action.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    @interface CacheableAction {
+        /**
+         * How long a result is kept, in seconds.
+         */
+        long ttl() default 60;
+
+        /**
+         * Whether the result depends on the user, the result is not cached when the user can't be told.
+         */
+        boolean user() default false;
+
+        /**
+         * Whether the result depends on the requested locales.
+         */
+        boolean locale() default false;
+
+        /**
+         * Whether the result depends on the version of the application it is called from.
+         */
+        boolean app() default false;
+    }
+
     @Retention(RetentionPolicy.RUNTIME)
     @Target(ElementType.METHOD)
     @interface AuraEnabled {
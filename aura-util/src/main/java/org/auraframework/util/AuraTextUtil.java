@@ -15,6 +15,7 @@
  */
 package org.auraframework.util;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
@@ -43,6 +44,24 @@ public class AuraTextUtil {
             "\\u003C", "\\u003E", "\\n", "\\u2029", "", "\\u002A/" };
     private static final TrieMatcher JSON_SEARCH_REPLACE = TrieMatcher.compile(JSON_IN, JSON_OUT);
 
+    /**
+     * The replacements of JSON_IN by ascii char, for escaping straight to an Appendable. '!' and '*' are only
+     * replaced when followed by "--" and "/", and the two chars above ascii are checked on their own.
+     */
+    private static final String[] JSON_ESCAPES = new String[128];
+    static {
+        JSON_ESCAPES['\\'] = "\\\\";
+        JSON_ESCAPES['\n'] = "\\n";
+        JSON_ESCAPES['\r'] = "\\r";
+        JSON_ESCAPES['\t'] = "\\t";
+        JSON_ESCAPES['"'] = "\\\"";
+        JSON_ESCAPES['!'] = "\\u0021";
+        JSON_ESCAPES['<'] = "\\u003C";
+        JSON_ESCAPES['>'] = "\\u003E";
+        JSON_ESCAPES['\u0000'] = "";
+        JSON_ESCAPES['*'] = "\\u002A";
+    }
+
     private static final String[] RESERVED_METHODS = new String[]{
             "auraType","getDef","getRendering",
             "index","deIndex","find",
@@ -217,6 +236,51 @@ public class AuraTextUtil {
         return TrieMatcher.replaceMultiple(in, JSON_SEARCH_REPLACE);
     }
 
+    /**
+     * Escapes a string for JSON as {@link #escapeForJSONString(String)} does, writing it straight to out.
+     *
+     * The runs of chars that need no escaping are appended as ranges of the input, nothing is built on the side.
+     *
+     * @param in the incoming (unsafe) string
+     * @param out where to write the escaped string
+     */
+    public static void escapeForJSONString(CharSequence in, Appendable out) throws IOException {
+        int len = in.length();
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+            char c = in.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = JSON_ESCAPES[c];
+                if (replacement == null) {
+                    continue;
+                }
+                if (c == '!' && !(i + 2 < len && in.charAt(i + 1) == '-' && in.charAt(i + 2) == '-')) {
+                    continue;
+                }
+                if (c == '*' && !(i + 1 < len && in.charAt(i + 1) == '/')) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\n";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (start < i) {
+                out.append(in, start, i);
+            }
+            out.append(replacement);
+            start = i + 1;
+        }
+        if (start == 0) {
+            out.append(in);
+        } else if (start < len) {
+            out.append(in, start, len);
+        }
+    }
+
     /**
      * Properly escapes string for JSON Function.
      *
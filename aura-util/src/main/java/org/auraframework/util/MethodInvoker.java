@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.primitives.Primitives;
+
+/**
+ * A method bound once to a method handle, for methods that are called over and over, like the getters of a model or
+ * the methods of a controller.
+ *
+ * {@link #invoke(Object, Object...)} behaves as {@link Method#invoke(Object, Object...)} does: a target or arguments
+ * that do not fit the method throw before it is called, and anything thrown by the method is wrapped in an
+ * {@link InvocationTargetException}, so callers handle the two the same way as with reflection. Methods that a public
+ * lookup can not see, like public methods of a class that is not public, are still called by reflection.
+ *
+ * This object is immutable and thread-safe.
+ */
+public final class MethodInvoker {
+    /**
+     * The primitives each widen to those after them, and char widens to int and after.
+     */
+    private static final List<Class<?>> WIDENING = Arrays.<Class<?>> asList(byte.class, short.class, int.class,
+            long.class, float.class, double.class);
+
+    private final Method method;
+    private final Class<?>[] parameterTypes;
+    private final boolean isStatic;
+
+    /**
+     * The method as (Object target, Object[] args)Object, or null to use reflection.
+     */
+    private final MethodHandle handle;
+
+    public MethodInvoker(@Nonnull Method method) {
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.isStatic = Modifier.isStatic(method.getModifiers());
+
+        MethodHandle bound;
+        try {
+            bound = MethodHandles.publicLookup().unreflect(method);
+            if (isStatic) {
+                bound = MethodHandles.dropArguments(bound, 0, Object.class);
+            }
+            bound = bound.asType(MethodType.genericMethodType(parameterTypes.length + 1))
+                    .asSpreader(Object[].class, parameterTypes.length);
+        } catch (IllegalAccessException e) {
+            bound = null;
+        }
+        this.handle = bound;
+    }
+
+    /**
+     * @return the method that is invoked.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Invoke the method.
+     *
+     * @param target the object to invoke the method on, ignored for a static method.
+     * @param args the arguments of the method.
+     * @return what the method returns, boxed, or null for a void method.
+     * @throws NullPointerException if the method is not static and the target is null.
+     * @throws IllegalArgumentException if the target or the arguments are not of the types of the method.
+     * @throws IllegalAccessException if the method is called by reflection and can not be accessed.
+     * @throws InvocationTargetException if the method throws.
+     */
+    public Object invoke(Object target, Object... args) throws IllegalAccessException, InvocationTargetException {
+        if (handle == null) {
+            return method.invoke(target, args);
+        }
+        if (!isStatic) {
+            if (target == null) {
+                throw new NullPointerException("Cannot invoke " + method + " on null");
+            }
+            if (!method.getDeclaringClass().isInstance(target)) {
+                throw new IllegalArgumentException("object is not an instance of declaring class");
+            }
+        }
+        if (args == null) {
+            args = new Object[0];
+        }
+        if (args.length != parameterTypes.length) {
+            throw new IllegalArgumentException("wrong number of arguments");
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (!isAssignable(parameterTypes[i], args[i])) {
+                throw new IllegalArgumentException("argument type mismatch");
+            }
+        }
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * The conversions of reflection: a reference of the type, or a boxed primitive that unboxes and widens to it.
+     */
+    private static boolean isAssignable(Class<?> type, Object arg) {
+        if (!type.isPrimitive()) {
+            return arg == null || type.isInstance(arg);
+        }
+        if (arg == null) {
+            return false;
+        }
+        Class<?> argType = Primitives.unwrap(arg.getClass());
+        if (argType == type) {
+            return true;
+        }
+        if (argType == char.class) {
+            return WIDENING.indexOf(type) >= WIDENING.indexOf(int.class);
+        }
+        int from = WIDENING.indexOf(argType);
+        return from >= 0 && from < WIDENING.indexOf(type);
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+}
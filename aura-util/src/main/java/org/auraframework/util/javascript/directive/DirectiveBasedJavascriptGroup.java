@@ -20,12 +20,20 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
 import java.net.URL;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.auraframework.util.IOUtil;
 import org.auraframework.util.javascript.CommonJavascriptGroupImpl;
@@ -98,12 +106,25 @@ public class DirectiveBasedJavascriptGroup extends CommonJavascriptGroupImpl {
     // name for threads that compress and write the output
     public static final String THREAD_NAME = "jsgen.";
 
+    // upper bound on the number of modes generated at the same time, compression is cpu and memory hungry
+    public static final int MAX_GENERATION_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
     private final List<DirectiveType<?>> directiveTypes;
     private final Set<JavascriptGeneratorMode> modes;
     private final File startFile;
-    private CountDownLatch counter;
     private Map<String, Throwable> errors;
 
+    /**
+     * Hash of each file as of the last successful generation, used to tell which files changed since.
+     */
+    private final Map<File, Hash> generatedFileHashes = new ConcurrentHashMap<>();
+
+    /**
+     * The files that went into the output of each successfully generated mode. A mode that is missing here either was
+     * never generated or failed last time, and is always stale.
+     */
+    private final Map<JavascriptGeneratorMode, Set<File>> generatedModeFiles = new ConcurrentHashMap<>();
+
     // used during parsing, should be clear for storing in memory
     private DirectiveParser parser;
     
@@ -144,108 +165,202 @@ public class DirectiveBasedJavascriptGroup extends CommonJavascriptGroupImpl {
 
     @Override
     public void generate(File destRoot, boolean doValidation) throws IOException {
+        generate(destRoot, modes, false);
+    }
+
+    /**
+     * Generate the output for the given modes concurrently, on at most {@link #MAX_GENERATION_THREADS} threads.
+     *
+     * @param destRoot the directory to write into
+     * @param toGenerate the modes to generate
+     * @param force if true, existing output files are replaced even if they look up to date
+     */
+    protected void generate(final File destRoot, Set<JavascriptGeneratorMode> toGenerate, final boolean force)
+            throws IOException {
         if (parser == null) {
             throw new RuntimeException("No parser available to generate with");
         }
-
-        counter = new CountDownLatch(modes.size());
-        errors = new HashMap<>();
-        for (JavascriptGeneratorMode mode : modes) {
-            generateForMode(destRoot, mode);
+        if (toGenerate.isEmpty()) {
+            return;
         }
+
+        errors = new ConcurrentHashMap<>();
+        Map<JavascriptGeneratorMode, Future<?>> results = new EnumMap<>(JavascriptGeneratorMode.class);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(toGenerate.size(), MAX_GENERATION_THREADS),
+                new GeneratorThreadFactory());
         try {
-            counter.await();
+            for (final JavascriptGeneratorMode mode : toGenerate) {
+                results.put(mode, pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        String threadName = THREAD_NAME + mode;
+                        Thread.currentThread().setName(threadName);
+                        try {
+                            generateForMode(destRoot, mode, force);
+                        } catch (Throwable t) {
+                            // Store any problems, to be thrown in a composite runtime exception from the main thread.
+                            // Otherwise, they kill this worker thread but are basically ignored.
+                            errors.put(threadName, t);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> result : results.values()) {
+                result.get();
+            }
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
         }
+
+        recordGeneration(toGenerate);
         if (!errors.isEmpty()) {
             throw new CompositeRuntimeException("Errors generating javascript for " + getName(), errors);
         }
         errors = null;
     }
 
-    protected void generateForMode(File destRoot, final JavascriptGeneratorMode mode) throws IOException {
+    /**
+     * Remember which files went into each mode that was just generated, and what they looked like, so that a later
+     * {@link #regenerate(File)} only redoes the modes touched by a change.
+     */
+    private void recordGeneration(Set<JavascriptGeneratorMode> generated) throws IOException {
+        for (JavascriptGeneratorMode mode : generated) {
+            if (errors.containsKey(THREAD_NAME + mode)) {
+                generatedModeFiles.remove(mode);
+            } else {
+                Set<File> files = new HashSet<>();
+                parser.collectFiles(mode, files);
+                generatedModeFiles.put(mode, Collections.unmodifiableSet(files));
+            }
+        }
+        for (File file : getFiles()) {
+            generatedFileHashes.put(file, computeGroupHash(Collections.singleton(file)));
+        }
+    }
+
+    protected void generateForMode(File destRoot, final JavascriptGeneratorMode mode, boolean force)
+            throws IOException {
         final File dest = new File(destRoot, getName() + "_" + mode.getSuffix() + ".js");
         if (dest.exists()) {
-            if (dest.lastModified() < getLastMod()) {
+            if (force || dest.lastModified() < getLastMod()) {
                 dest.delete();
             } else {
                 // its up to date already, skip
-                counter.countDown();
                 return;
             }
         }
         dest.getParentFile().mkdirs();
-        final String everything = buildContent(mode);
-        final String threadName = THREAD_NAME + mode;
-        Thread t = new Thread(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    Writer writer = null;
-                    try {
-                        writer = new FileWriter(dest);
-                        mode.getJavascriptWriter().compress(everything, writer, dest.getName());
-                        writer.write('\n');
-                        appendExternalLibraries(writer);
-                    } finally {
-                        if (writer != null) {
-                            writer.close();
-                        }
-                        dest.setReadOnly();
-                    }
-                } catch (Throwable t) {
-                    // Store any problems, to be thrown in a composite runtime exception from the main thread.
-                    // Otherwise, they kill this worker thread but are basically ignored.
-                    errors.put(threadName, t);
-                } finally {
-                    counter.countDown();
-                }
+        String everything = buildContent(mode);
+        boolean written = false;
+        Writer writer = null;
+        try {
+            writer = new FileWriter(dest);
+            mode.getJavascriptWriter().compress(everything, writer, dest.getName());
+            writer.write('\n');
+            appendExternalLibraries(writer, mode);
+            written = true;
+        } finally {
+            if (writer != null) {
+                writer.close();
             }
+            if (written) {
+                dest.setReadOnly();
+            } else {
+                // don't leave a partial file around looking up to date
+                dest.delete();
+            }
+        }
+    }
 
-            private void appendExternalLibraries(Writer writer) throws IOException {
-                ResourceLoader rl = getResourceLoader();
-                String minified = "";
-                if (mode.allowedInProduction()) {
-                    minified = ".min";
-                }
-                writer.write("\n Aura.externalLibraries = function() {\n");
-                try {
-                    appendResourceToWriter(writer, "moment", rl.getResource("aura/resources/moment/moment" + minified + ".js"));
-                    // 1999 is selected since it's when SFDC starts
-                    appendResourceToWriter(writer, "moment-timezone-with-data-1999-2020", rl.getResource("aura/resources/moment-timezone/moment-timezone-with-data-1999-2020" + minified + ".js"));
-                    appendResourceToWriter(writer, "DOMPurify", rl.getResource("aura/resources/domPurify/DOMPurify" + minified + ".js"));
-                } catch (Exception ignored) {
-                }
+    private void appendExternalLibraries(Writer writer, JavascriptGeneratorMode mode) throws IOException {
+        ResourceLoader rl = getResourceLoader();
+        String minified = "";
+        if (mode.allowedInProduction()) {
+            minified = ".min";
+        }
+        writer.write("\n Aura.externalLibraries = function() {\n");
+        try {
+            appendResourceToWriter(writer, "moment", rl.getResource("aura/resources/moment/moment" + minified + ".js"));
+            // 1999 is selected since it's when SFDC starts
+            appendResourceToWriter(writer, "moment-timezone-with-data-1999-2020", rl.getResource("aura/resources/moment-timezone/moment-timezone-with-data-1999-2020" + minified + ".js"));
+            appendResourceToWriter(writer, "DOMPurify", rl.getResource("aura/resources/domPurify/DOMPurify" + minified + ".js"));
+        } catch (Exception ignored) {
+        }
 
-                writer.write("\n};");
-            }
+        writer.write("\n};");
+    }
 
-            private void appendResourceToWriter(Writer writer, String name, URL url) throws IOException {
-                writer.write("// " + name + "\n");
-                writer.write(Resources.toString(url, Charsets.UTF_8));
-                writer.write("\n");
-            }
+    private void appendResourceToWriter(Writer writer, String name, URL url) throws IOException {
+        writer.write("// " + name + "\n");
+        writer.write(Resources.toString(url, Charsets.UTF_8));
+        writer.write("\n");
+    }
 
-            private ResourceLoader getResourceLoader() throws IOException {
-                if (resourceLoader == null) {
-                    resourceLoader = new ResourceLoader(LIB_CACHE_TEMP_DIR, true);
-                }
-                return resourceLoader;
-            }
-        }, threadName);
-        t.start();
+    private synchronized ResourceLoader getResourceLoader() throws IOException {
+        if (resourceLoader == null) {
+            resourceLoader = new ResourceLoader(LIB_CACHE_TEMP_DIR, true);
+        }
+        return resourceLoader;
     }
 
     protected String buildContent(JavascriptGeneratorMode mode) {
         return parser.generate(mode);
     }
 
+    /**
+     * Gets the files whose contents changed since the last generation, including files that disappeared. New files
+     * only show up once something that includes them changes.
+     */
+    public Set<File> getStaleFiles() {
+        Set<File> stale = new HashSet<>();
+        for (Map.Entry<File, Hash> entry : generatedFileHashes.entrySet()) {
+            File file = entry.getKey();
+            try {
+                if (!file.isFile() || !entry.getValue().equals(computeGroupHash(Collections.singleton(file)))) {
+                    stale.add(file);
+                }
+            } catch (IOException e) {
+                stale.add(file);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Gets the modes whose output is out of date, i.e. those that were never generated successfully and those that
+     * include a stale file.
+     */
+    public Set<JavascriptGeneratorMode> getStaleModes() {
+        Set<JavascriptGeneratorMode> stale = EnumSet.noneOf(JavascriptGeneratorMode.class);
+        Set<File> staleFiles = null;
+        for (JavascriptGeneratorMode mode : modes) {
+            Set<File> files = generatedModeFiles.get(mode);
+            if (files == null) {
+                stale.add(mode);
+                continue;
+            }
+            if (staleFiles == null) {
+                staleFiles = getStaleFiles();
+            }
+            if (!Collections.disjoint(files, staleFiles)) {
+                stale.add(mode);
+            }
+        }
+        return stale;
+    }
+
     @Override
     public boolean isStale() {
         if (!isGroupHashKnown()) {
             return true;
         }
+        if (!generatedFileHashes.isEmpty()) {
+            return !getStaleModes().isEmpty();
+        }
         // Otherwise, we're stale IFF we have changed contents.
         try {
             Hash currentTextHash = computeGroupHash(getFiles());
@@ -262,12 +377,24 @@ public class DirectiveBasedJavascriptGroup extends CommonJavascriptGroupImpl {
         parser = null;
     }
 
+    /**
+     * Regenerates only the modes affected by files changed since the last generation. If nothing was generated
+     * before, every mode is.
+     */
     @Override
     public void regenerate(File destRoot) throws IOException {
+        boolean incremental = !generatedFileHashes.isEmpty();
+        Set<JavascriptGeneratorMode> stale = incremental ? getStaleModes() : modes;
+        if (stale.isEmpty()) {
+            return;
+        }
         reset();
-        // 202: Disable JS validation since we precompile definitions
-        generate(destRoot, false);
-        postProcess();
+        try {
+            // 202: Disable JS validation since we precompile definitions
+            generate(destRoot, stale, incremental);
+        } finally {
+            postProcess();
+        }
     }
 
     @Override
@@ -276,4 +403,18 @@ public class DirectiveBasedJavascriptGroup extends CommonJavascriptGroupImpl {
         parse();
         getGroupHash(); // Ensure the new bundle knows its hash once the directives are parsed.
     }
+
+    /**
+     * Daemon threads for the generation pool, so that a stuck compression never holds up shutdown.
+     */
+    private static class GeneratorThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, THREAD_NAME + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
 }
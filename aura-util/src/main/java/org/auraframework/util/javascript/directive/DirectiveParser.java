@@ -23,10 +23,12 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.auraframework.util.javascript.JavascriptProcessingError;
+import org.auraframework.util.javascript.directive.impl.IncludeDirective;
 
 /**
  * parses files for directives
@@ -165,4 +167,18 @@ public class DirectiveParser {
         return generated.toString();
     }
 
+    /**
+     * Collects the files that make up the output for a mode: this one, and whatever it includes for that mode.
+     */
+    public void collectFiles(JavascriptGeneratorMode mode, Set<File> files) {
+        files.add(file);
+        for (Directive d : directives) {
+            if (d instanceof IncludeDirective && d.hasOutput(mode)) {
+                DirectiveParser included = ((IncludeDirective) d).getIncludedParser();
+                if (included != null) {
+                    included.collectFiles(mode, files);
+                }
+            }
+        }
+    }
 }
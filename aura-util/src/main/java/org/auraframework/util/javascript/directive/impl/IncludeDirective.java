@@ -62,4 +62,10 @@ public class IncludeDirective extends DirectiveImpl {
         return includedParser.generate(mode);
     }
 
+    /**
+     * @return the parser for the included file, null until the directive is processed
+     */
+    public DirectiveParser getIncludedParser() {
+        return includedParser;
+    }
 }
@@ -26,6 +26,23 @@ import static org.auraframework.util.json.JsonSerializers.STRING;
  */
 public class ClassMapJsonSerializationContext extends BaseJsonSerializationContext {
 
+    /**
+     * The serializer for arrays and enums by class, or FROM_FACTORY. Contexts are made for each request, so this is
+     * shared by all of them, and what the factory finds is cached by the factory.
+     */
+    private static final JsonSerializer<?> FROM_FACTORY = new DefaultJsonSerializer();
+    private static final ClassValue<JsonSerializer<?>> BUILT_IN = new ClassValue<JsonSerializer<?>>() {
+        @Override
+        protected JsonSerializer<?> computeValue(Class<?> c) {
+            if (c.isArray()) {
+                return ARRAY;
+            } else if (c.isEnum()) {
+                return STRING;
+            }
+            return FROM_FACTORY;
+        }
+    };
+
     private final JsonSerializerFactory jsonSerializerFactory;
 
     public ClassMapJsonSerializationContext(JsonSerializerFactory jsonSerializerFactory,
@@ -42,11 +59,9 @@ public class ClassMapJsonSerializationContext extends BaseJsonSerializationConte
         if (o == null) {
             return (JsonSerializer<T>) LITERAL;
         }
-        Class<?> c = o.getClass();
-        if (c.isArray()) {
-            return (JsonSerializer<T>) ARRAY;
-        } else if (c.isEnum()) {
-            return (JsonSerializer<T>) STRING;
+        JsonSerializer<?> s = BUILT_IN.get(o.getClass());
+        if (s != FROM_FACTORY) {
+            return (JsonSerializer<T>) s;
         }
 
         return jsonSerializerFactory.getSerializer(o);
@@ -28,9 +28,17 @@ public class DefaultJsonSerializationContext extends BaseJsonSerializationContex
         super(format, -1, -1, nullValues);
     }
 
+    /**
+     * Every value gets the same serializer, it is looked up once per context rather than once per value.
+     */
+    private JsonSerializer<Object> serializer;
+
     @Override
     public JsonSerializer<Object> getSerializer(Object o) {
-        return ServiceLocator.get().get(DefaultJsonSerializer.class);
+        if (serializer == null) {
+            serializer = ServiceLocator.get().get(DefaultJsonSerializer.class);
+        }
+        return serializer;
     }
 
 }
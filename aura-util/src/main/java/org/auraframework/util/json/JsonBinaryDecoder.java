@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.auraframework.util.json.Json.IndentType;
+import org.auraframework.util.json.JsonStreamReader.JsonParseException;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+
+/**
+ * Plays back json written by {@link JsonBinaryEncoder}.
+ *
+ * Each call that was made on the binary writer is made again on the given {@link Json}. With a {@link JsonEncoder}
+ * that gives the text json, with the commas, indents and line breaks of that encoder's context.
+ */
+public class JsonBinaryDecoder {
+    private static final IndentType[] indentTypes = IndentType.values();
+
+    /**
+     * The longest string read, so that a damaged length can't ask for more memory than any real record needs.
+     */
+    static final int MAX_CHARS_LENGTH = 1 << 26;
+
+    private final CountingInputStream counted;
+    private final DataInputStream in;
+    private final long length;
+    private final List<String> table = Lists.newArrayList();
+
+    /**
+     * @param in the stream to read, it is read to its end.
+     * @throws JsonParseException if the stream was not written by a {@link JsonBinaryEncoder}, or by another version
+     *             of it.
+     */
+    public JsonBinaryDecoder(@Nonnull InputStream in) throws IOException {
+        this(in, -1);
+    }
+
+    /**
+     * @param bytes the binary json.
+     * @throws JsonParseException if the bytes were not written by a {@link JsonBinaryEncoder}, or by another version
+     *             of it.
+     */
+    public JsonBinaryDecoder(@Nonnull byte[] bytes) throws IOException {
+        this(new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    /**
+     * @param length the number of bytes in the stream, or -1 if it isn't known.
+     */
+    private JsonBinaryDecoder(InputStream in, long length) throws IOException {
+        this.counted = new CountingInputStream(in);
+        this.in = new DataInputStream(counted);
+        this.length = length;
+        int magic = this.in.read();
+        int version = this.in.read();
+        if (magic != JsonBinaryEncoder.MAGIC || version != JsonBinaryEncoder.VERSION) {
+            throw new JsonParseException(String.format("Not binary json of version %d", JsonBinaryEncoder.VERSION));
+        }
+    }
+
+    /**
+     * Write the binary json as text.
+     *
+     * @param bytes the binary json
+     * @param context the context for the text, for formatting
+     * @throws JsonSerializationException if there's an issue during serialization
+     */
+    public static String toString(byte[] bytes, JsonSerializationContext context) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        try {
+            new JsonBinaryDecoder(bytes).writeTo(JsonEncoder.createJsonStream(sb, context));
+        } catch (IOException e) {
+            throw new JsonSerializationException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Play back all of the stream onto the writer.
+     *
+     * @param json the writer to play back onto.
+     * @throws JsonParseException if the stream is cut short or holds something that was not written by a
+     *             {@link JsonBinaryEncoder}.
+     */
+    public void writeTo(Json json) throws IOException {
+        int tag;
+        while ((tag = in.read()) != -1) {
+            try {
+                writeRecord(tag, json);
+            } catch (EOFException e) {
+                throw new JsonParseException("Binary json ended in the middle of a record", e);
+            }
+        }
+    }
+
+    private void writeRecord(int tag, Json json) throws IOException {
+        switch (tag) {
+        case JsonBinaryEncoder.MAP_BEGIN:
+            json.writeMapBegin();
+            break;
+        case JsonBinaryEncoder.MAP_END:
+            json.writeMapEnd();
+            break;
+        case JsonBinaryEncoder.ARRAY_BEGIN:
+            json.writeArrayBegin();
+            break;
+        case JsonBinaryEncoder.ARRAY_END:
+            json.writeArrayEnd();
+            break;
+        case JsonBinaryEncoder.COMMA:
+            json.writeComma();
+            break;
+        case JsonBinaryEncoder.INDENT:
+            json.writeIndent();
+            break;
+        case JsonBinaryEncoder.BREAK:
+            json.writeBreak();
+            break;
+        case JsonBinaryEncoder.MAP_SEPARATOR:
+            json.writeMapSeparator();
+            break;
+        case JsonBinaryEncoder.ENTRY:
+            json.writeComma();
+            json.writeIndent();
+            break;
+        case JsonBinaryEncoder.KEY:
+            json.writeMapKey(readTabled());
+            break;
+        case JsonBinaryEncoder.KEY_REF:
+            json.writeMapKey(readRef());
+            break;
+        case JsonBinaryEncoder.STRING:
+            json.writeString(readTabled());
+            break;
+        case JsonBinaryEncoder.STRING_REF:
+            json.writeString(readRef());
+            break;
+        case JsonBinaryEncoder.LITERAL:
+            json.writeLiteral(readTabled());
+            break;
+        case JsonBinaryEncoder.LITERAL_REF:
+            json.writeLiteral(readRef());
+            break;
+        case JsonBinaryEncoder.DATE:
+            json.writeDate(new Date(in.readLong()));
+            break;
+        case JsonBinaryEncoder.RAW:
+            json.getAppendable().append(readChars());
+            break;
+        case JsonBinaryEncoder.COMMENT_BEGIN:
+            json.writeCommentBegin();
+            break;
+        case JsonBinaryEncoder.COMMENT_BODY:
+            json.writeCommentBody(readChars());
+            break;
+        case JsonBinaryEncoder.COMMENT_END:
+            json.writeCommentEnd();
+            break;
+        case JsonBinaryEncoder.PUSH_INDENT:
+            json.pushIndent(readIndentType());
+            break;
+        case JsonBinaryEncoder.POP_INDENT:
+            json.popIndent(readIndentType(), "Mismatched indent in binary json");
+            break;
+        case JsonBinaryEncoder.BINARY_STREAM:
+            long length = in.readLong();
+            OutputStream out = json.writeBinaryStreamBegin(length);
+            if (ByteStreams.copy(ByteStreams.limit(in, length), out) != length) {
+                throw new EOFException();
+            }
+            json.writeBinaryStreamEnd();
+            break;
+        default:
+            throw new JsonParseException(String.format("Unknown tag %d in binary json", tag));
+        }
+    }
+
+    private String readTabled() throws IOException {
+        String value = readChars();
+        if (JsonBinaryEncoder.isTabled(value, table.size())) {
+            table.add(value);
+        }
+        return value;
+    }
+
+    private String readRef() throws IOException {
+        int index = readVarInt();
+        if (index >= table.size()) {
+            throw new JsonParseException(String.format("Unknown string %d in binary json", index));
+        }
+        return table.get(index);
+    }
+
+    private IndentType readIndentType() throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= indentTypes.length) {
+            throw new JsonParseException(String.format("Unknown indent %d in binary json", ordinal));
+        }
+        return indentTypes[ordinal];
+    }
+
+    /**
+     * Each char takes at least a byte, so a length is checked against what is left of the input before anything is
+     * read, and the string grows as its chars are read rather than being allocated up front.
+     */
+    private String readChars() throws IOException {
+        int length = readVarInt();
+        if (length < 0 || length > MAX_CHARS_LENGTH) {
+            throw new JsonParseException(String.format("Malformed length %d in binary json", length));
+        }
+        if (this.length >= 0 && length > this.length - counted.getCount()) {
+            throw new EOFException();
+        }
+        StringBuilder chars = new StringBuilder(Math.min(length, 1024));
+        for (int i = 0; i < length; i++) {
+            chars.append((char) readVarInt());
+        }
+        return chars.toString();
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new JsonParseException("Malformed length in binary json");
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.auraframework.util.UncloseableOutputStream;
+
+import com.google.common.collect.Maps;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * A binary form of the json writer, for json that is stored or sent between servers rather than to a client.
+ *
+ * Instead of text this writes a record of each call on the writer: the begin and end of maps and arrays, commas,
+ * strings, literals and so on, each a tag byte followed by its data. Strings and literals of up to
+ * {@link #MAX_TABLED_LENGTH} chars are kept in a table the first time they are written and are written as their index
+ * in the table after that, so the keys that every definition repeats, like "descriptor" or "attributes", take a byte
+ * or two. Lengths and indexes are written as variable length ints.
+ *
+ * {@link JsonBinaryDecoder} plays the record back onto a {@link Json}, a {@link JsonEncoder} writes the same text as
+ * if it had been written to directly. Commas, indents and line breaks are decided by the writer the record is played
+ * onto, so a record can be played back formatted or not.
+ *
+ * The serializers are run when writing, with the serialization context given here. Any text written to
+ * {@link #getAppendable()} is kept as it is.
+ *
+ * This Object is NOT thread-safe, and should not be reused.
+ */
+public class JsonBinaryEncoder extends JsonEncoder {
+    static final int MAGIC = 0x4A;
+    static final int VERSION = 1;
+
+    static final int MAP_BEGIN = 1;
+    static final int MAP_END = 2;
+    static final int ARRAY_BEGIN = 3;
+    static final int ARRAY_END = 4;
+    static final int COMMA = 5;
+    static final int INDENT = 6;
+    static final int BREAK = 7;
+    static final int MAP_SEPARATOR = 8;
+    static final int STRING = 9;
+    static final int STRING_REF = 10;
+    static final int LITERAL = 11;
+    static final int LITERAL_REF = 12;
+    static final int DATE = 13;
+    static final int RAW = 14;
+    static final int COMMENT_BEGIN = 15;
+    static final int COMMENT_BODY = 16;
+    static final int COMMENT_END = 17;
+    static final int PUSH_INDENT = 18;
+    static final int POP_INDENT = 19;
+    static final int BINARY_STREAM = 20;
+    static final int ENTRY = 21;
+    static final int KEY = 22;
+    static final int KEY_REF = 23;
+
+    /**
+     * Longer strings are rarely repeated, and would make the table big.
+     */
+    static final int MAX_TABLED_LENGTH = 64;
+    static final int MAX_TABLE_SIZE = 1 << 16;
+
+    private final DataOutputStream data;
+    private final Map<String, Integer> table = Maps.newHashMap();
+    private CountingOutputStream currentBinaryStream;
+    private long currentBinaryStreamLength;
+
+    /**
+     * @param out the stream to write to, see {@link #close()}.
+     * @param context the context for the serializers.
+     */
+    public JsonBinaryEncoder(@Nonnull OutputStream out, JsonSerializationContext context) throws IOException {
+        super(new RawAppendable(), null, context);
+        this.data = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+        data.writeByte(MAGIC);
+        data.writeByte(VERSION);
+    }
+
+    /**
+     * Write the object in the binary form.
+     *
+     * @param obj The thing to serialize
+     * @param context The context for the serializers
+     * @throws JsonSerializationException if there's an issue during serialization
+     */
+    public static byte[] toBytes(Object obj, JsonSerializationContext context) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            JsonBinaryEncoder json = new JsonBinaryEncoder(bytes, context);
+            json.writeValue(obj);
+            json.close();
+        } catch (IOException e) {
+            throw new JsonSerializationException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void pushIndent(IndentType type) {
+        try {
+            writeTag(PUSH_INDENT);
+            data.writeByte(type.ordinal());
+        } catch (IOException e) {
+            throw new JsonSerializationException(e);
+        }
+        super.pushIndent(type);
+    }
+
+    @Override
+    public void popIndent(IndentType type, String message) {
+        super.popIndent(type, message);
+        try {
+            writeTag(POP_INDENT);
+            data.writeByte(type.ordinal());
+        } catch (IOException e) {
+            throw new JsonSerializationException(e);
+        }
+    }
+
+    @Override
+    public void writeIndent() throws IOException {
+        writeTag(INDENT);
+    }
+
+    @Override
+    public void writeMapBegin() throws IOException {
+        writeTag(MAP_BEGIN);
+        super.pushIndent(IndentType.BRACE);
+    }
+
+    @Override
+    public void writeMapEnd() throws IOException {
+        super.popIndent(IndentType.BRACE, "Json.writeMapBegin must be called before calling Json.writeMapEnd");
+        writeTag(MAP_END);
+    }
+
+    @Override
+    public void writeCommentBegin() throws IOException {
+        writeTag(COMMENT_BEGIN);
+        super.pushIndent(IndentType.COMMENT);
+    }
+
+    @Override
+    public void writeCommentEnd() throws IOException {
+        super.popIndent(IndentType.COMMENT, "Json.writeCommentEnd must be preceded by Json.writeCommentBegin");
+        writeTag(COMMENT_END);
+    }
+
+    @Override
+    public void writeCommentBody(String body) throws IOException {
+        checkIndent(IndentType.COMMENT, "Json.writeCommentBody must be preceded by Json.writeCommentBegin");
+        writeTag(COMMENT_BODY);
+        writeChars(body);
+    }
+
+    @Override
+    public void writeArrayBegin() throws IOException {
+        writeTag(ARRAY_BEGIN);
+        super.pushIndent(IndentType.SQUARE);
+    }
+
+    @Override
+    public void writeArrayEnd() throws IOException {
+        super.popIndent(IndentType.SQUARE, "Json.writeArrayBegin must be called before calling Json.writeArrayEnd");
+        writeTag(ARRAY_END);
+    }
+
+    @Override
+    public void writeComma() throws IOException {
+        writeTag(COMMA);
+    }
+
+    @Override
+    public void writeMapSeparator() throws IOException {
+        writeTag(MAP_SEPARATOR);
+    }
+
+    /**
+     * The comma and indent before an entry are written as one tag.
+     */
+    @Override
+    public void writeArrayEntry(Object value) throws IOException {
+        if (value != null || getSerializationContext().isNullValueEnabled()) {
+            writeTag(ENTRY);
+            writeValue(value);
+        }
+    }
+
+    /**
+     * A string key is written as one record with the comma, indent and separator, other keys as the calls they make.
+     */
+    @Override
+    public void writeMapKey(Object key) throws IOException {
+        if (key instanceof String) {
+            writeTabled(KEY, KEY_REF, (String) key);
+        } else {
+            super.writeMapKey(key);
+        }
+    }
+
+    @Override
+    public void writeLiteral(Object value) throws IOException {
+        writeTabled(LITERAL, LITERAL_REF, value.toString());
+    }
+
+    @Override
+    public void writeString(Object value) throws IOException {
+        writeTabled(STRING, STRING_REF, value.toString());
+    }
+
+    @Override
+    public void writeDate(Date value) throws IOException {
+        writeTag(DATE);
+        data.writeLong(value.getTime());
+    }
+
+    @Override
+    public void writeBreak() throws IOException {
+        writeTag(BREAK);
+    }
+
+    /**
+     * The text of a fragment depends on the format of the writer it is played back onto, which is not known here.
+     */
+    @Override
+    public String getFragmentLayout() {
+        return null;
+    }
+
+    /**
+     * Start a binary stream, which is written as its length and its bytes. See
+     * {@link JsonEncoder#writeBinaryStreamBegin(long)}.
+     */
+    @Override
+    public OutputStream writeBinaryStreamBegin(long streamLength) throws IOException {
+        if (currentBinaryStream != null) {
+            throw new IllegalStateException("Previous binary stream was not ended");
+        }
+        writeTag(BINARY_STREAM);
+        data.writeLong(streamLength);
+        currentBinaryStreamLength = streamLength;
+        return currentBinaryStream = new CountingOutputStream(new UncloseableOutputStream(data));
+    }
+
+    @Override
+    public void writeBinaryStreamEnd() throws IOException {
+        if (currentBinaryStream == null) {
+            throw new IllegalStateException("Binary stream was not started");
+        }
+        if (currentBinaryStreamLength != currentBinaryStream.getCount()) {
+            throw new IllegalStateException("Length of the binary stream was written out as "
+                    + currentBinaryStreamLength + " bytes, but " + currentBinaryStream.getCount()
+                    + " bytes were actually written to the OutputStream returned by writeBinaryStreamBegin()");
+        }
+        currentBinaryStream = null;
+        currentBinaryStreamLength = 0;
+    }
+
+    /**
+     * Write out any text pending for {@link #getAppendable()} and flush the stream.
+     */
+    public void flush() throws IOException {
+        flushRaw();
+        data.flush();
+    }
+
+    /**
+     * Write out any text pending for {@link #getAppendable()} and close the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        flushRaw();
+        data.close();
+    }
+
+    private void writeTag(int tag) throws IOException {
+        flushRaw();
+        data.writeByte(tag);
+    }
+
+    private void writeTabled(int tag, int refTag, String value) throws IOException {
+        Integer index = table.get(value);
+        if (index != null) {
+            writeTag(refTag);
+            writeVarInt(index);
+            return;
+        }
+        writeTag(tag);
+        writeChars(value);
+        if (isTabled(value, table.size())) {
+            table.put(value, table.size());
+        }
+    }
+
+    /**
+     * The decoder must make the same choice from what it reads.
+     */
+    static boolean isTabled(String value, int tableSize) {
+        return value.length() <= MAX_TABLED_LENGTH && tableSize < MAX_TABLE_SIZE;
+    }
+
+    /**
+     * Chars are written one at a time as variable length ints, so that any string, even one with an unpaired
+     * surrogate, comes back as it was. Ascii takes one byte a char.
+     */
+    private void writeChars(CharSequence value) throws IOException {
+        int length = value.length();
+        writeVarInt(length);
+        for (int i = 0; i < length; i++) {
+            writeVarInt(value.charAt(i));
+        }
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    private void flushRaw() throws IOException {
+        RawAppendable raw = (RawAppendable) getAppendable();
+        if (raw.pending.length() > 0) {
+            data.writeByte(RAW);
+            writeChars(raw.pending);
+            raw.pending.setLength(0);
+        }
+    }
+
+    /**
+     * Text written straight to the appendable is gathered and written as one record before the next call on the
+     * writer.
+     */
+    private static class RawAppendable implements Appendable {
+        private final StringBuilder pending = new StringBuilder();
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            pending.append(csq);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            pending.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            pending.append(c);
+            return this;
+        }
+    }
+}
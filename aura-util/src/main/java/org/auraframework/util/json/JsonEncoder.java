@@ -592,7 +592,7 @@ public class JsonEncoder implements Json {
     @Override
     public void writeString(Object value) throws IOException {
         out.append('"');
-        out.append(AuraTextUtil.escapeForJSONString(value.toString()));
+        AuraTextUtil.escapeForJSONString(value.toString(), out);
         out.append('"');
     }
 
@@ -607,16 +607,48 @@ public class JsonEncoder implements Json {
     public void writeDate(Date value) throws IOException {
         out.append('"');
         // Use the ISO DateTime format to write the date.
-        synchronized (ISO8601FORMAT) {
-            out.append(ISO8601FORMAT.format(value));
-        }
+        out.append(ISO8601FORMAT.get().format(value));
         out.append('"');
     }
 
-    private static final SimpleDateFormat ISO8601FORMAT;
-    static {
-        ISO8601FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        ISO8601FORMAT.setTimeZone(TimeZone.getTimeZone("GMT"));
+    /**
+     * One per thread, so it's used without a lock. A SimpleDateFormat writes dates before the Gregorian cutover as
+     * Julian dates and years as they are, which json written before relies on.
+     */
+    private static final ThreadLocal<SimpleDateFormat> ISO8601FORMAT = ThreadLocal.withInitial(() -> {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format;
+    });
+
+    /**
+     * Write json that was written before as the next value. The text is kept as it is, so it must have been written
+     * by an encoder with the same {@link #getFragmentLayout()}.
+     *
+     * @param fragment the json of one value.
+     * @throws IOException
+     */
+    @Override
+    public void writeFragment(CharSequence fragment) throws IOException {
+        out.append(fragment);
+    }
+
+    /**
+     * A value written by a new encoder on the same context has the same text as one written here, unless this is
+     * formatting, where the indent depends on the depth, or formatting the root items below the root. Limits on the
+     * size of collections and data cut the text, so they are not kept either.
+     *
+     * @return the layout, or null if a fragment can not be written here.
+     */
+    @Override
+    public String getFragmentLayout() {
+        if (isFormatting() || (serializationContext.formatRootItems() && !indentStack.isEmpty())
+                || serializationContext.getCollectionSizeLimit() > -1
+                || serializationContext.getVariableDataSizeLimit() > -1) {
+            return null;
+        }
+        return (serializationContext.formatRootItems() ? "r" : "")
+                + (serializationContext.isNullValueEnabled() ? "n" : "");
     }
 
     /**
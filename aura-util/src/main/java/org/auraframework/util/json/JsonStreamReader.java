@@ -41,11 +41,8 @@ import static org.auraframework.util.json.JsonConstant.WHITESPACE;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PushbackReader;
 import java.io.Reader;
-import java.io.StringReader;
 import java.math.BigDecimal;
-import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Map;
 
@@ -109,6 +106,13 @@ import javax.annotation.Nonnull;
 public class JsonStreamReader {
 
     private static final int MAX_LENGTH = 1000000;
+    private static final int BUFFER_SIZE = 8192;
+    private static final JsonConstant[] tokens = new JsonConstant[256];
+    static {
+        for (char c = 0; c < tokens.length; c++) {
+            tokens[c] = JsonConstant.valueOf(c);
+        }
+    }
     private static JsonHandlerProvider defaultProvider = new JsonHandlerProviderImpl();
     private static Map<Character, Character> escapes = Maps.newHashMapWithExpectedSize(13);
     static {
@@ -125,14 +129,22 @@ public class JsonStreamReader {
         escapes.put('v', '\u000B');
     }
 
-    private final PushbackReader reader;
+    /**
+     * The input is scanned from this buffer, the reader only fills it. Chars before pos are consumed, chars between
+     * limit and end are held back by the length limit. The reader is null when parsing a string, the string is the
+     * buffer.
+     */
+    private final Reader reader;
+    private final char[] buffer;
+    private int pos;
+    private int limit;
+    private int end;
+    private long base = 0; // number of chars consumed before the start of the buffer
 
     private JsonConstant currentToken;
     private Object current;
-    private int charNum = 0;
-    private int colNum = 1; // current parse column number
-    private int prevColNum = 0; // max colNum of previously parsed line
     private int lineNum = 1; // current parse line number (start at 1)
+    private long lineStart = 0; // char number of the start of the current line
     private int lastLineNum = 0;        // the line number before the last token.
     private int lastColNum = 0;         // the column number before the last token.
     private JsonHandlerProvider provider;
@@ -148,7 +160,10 @@ public class JsonStreamReader {
         if (reader == null) {
             throw new JsonParseException("Reader cannot be null");
         }
-        this.reader = new PushbackReader(reader, 2);
+        this.reader = reader;
+        // Binary data is read straight from the stream, so with a binary stream no char past the current one may
+        // be read ahead.
+        this.buffer = new char[binaryInput == null ? BUFFER_SIZE : 2];
         this.binaryInput = binaryInput == null ? null
                 : (binaryInput instanceof DataInputStream ? (DataInputStream) binaryInput : new DataInputStream(
                         binaryInput));
@@ -156,7 +171,15 @@ public class JsonStreamReader {
     }
 
     public JsonStreamReader(String string, JsonHandlerProvider provider) {
-        this(createStringReader(string), null, provider);
+        if (string == null) {
+            throw new JsonParseException("String cannot be null");
+        }
+        this.reader = null;
+        this.buffer = string.toCharArray();
+        this.limit = buffer.length;
+        this.binaryInput = null;
+        this.provider = provider;
+        updateEnd();
     }
 
     /**
@@ -211,13 +234,7 @@ public class JsonStreamReader {
      */
     public void disableLengthLimitsBecauseIAmStreamingAndMyMemoryUseIsNotProportionalToTheStreamLength() {
         lengthLimitsEnabled = false;
-    }
-
-    private static StringReader createStringReader(String string) {
-        if (string == null) {
-            throw new JsonParseException("String cannot be null");
-        }
-        return new StringReader(string);
+        updateEnd();
     }
 
     public JsonStreamReader(Reader reader) {
@@ -342,20 +359,16 @@ public class JsonStreamReader {
     }
 
     public int getCharNum() {
-        return charNum;
+        return (int) (base + pos);
     }
 
     public boolean hasNext() throws IOException {
-        Character c = null;
         try {
-            ignoreWhitespace();
-            c = readChar();
-            unreadChar(c);
-        } catch (Exception e) {
-            // We may have hit the end of the stream, which in most cases is a
-            // bad thing -- except this case.
+            return skipWhitespace();
+        } catch (JsonParseException e) {
+            // Input that is too long is reported by the read that follows.
+            return false;
         }
-        return c != null;
     }
 
     public JsonConstant next() throws IOException {
@@ -398,7 +411,7 @@ public class JsonStreamReader {
 
         // Read and dispatch the next character
         char c = readChar();
-        JsonConstant token = JsonConstant.valueOf(c);
+        JsonConstant token = token(c);
         switch (token) {
         case OBJECT_START:
             if (hint == FUNCTION_BODY) {
@@ -429,7 +442,8 @@ public class JsonStreamReader {
         case MULTICOMMENT_DELIM:
             throw new JsonStreamParseException("Illegal '*' token");
         case LITERAL_START:
-            unreadChar(c);
+            // The literal is scanned from its first char, which is still in the buffer.
+            pos--;
             if (hint == STRING || Character.isJavaIdentifierStart(c)) {
                 String result = readLiteralString();
                 token = null;
@@ -554,34 +568,46 @@ public class JsonStreamReader {
     }
 
     private void readWhitespaceAndComments() throws IOException, JsonEndOfStreamException {
-        char c;
-        do {
-            c = readChar();
-        } while (Character.isWhitespace(c));
-
-        if (JsonConstant.valueOf(c) == COMMENT_DELIM) {
+        while (true) {
+            if (!skipWhitespace()) {
+                throw new JsonEndOfStreamException("End of stream unexpectedly reached.");
+            }
+            if (buffer[pos] != COMMENT_DELIM.getToken()) {
+                return;
+            }
             // Peek one more to see if this is a comment or not.
-            c = readChar();
-            unreadChar(c);
-            if (JsonConstant.valueOf(c) == COMMENT_DELIM || JsonConstant.valueOf(c) == MULTICOMMENT_DELIM) {
-                current = readComment();
-                readWhitespaceAndComments();
-            } else {
-                // Just a slash token, not a comment: restore the slash
-                unreadChar(COMMENT_DELIM.getToken());
+            if (!ensure(2)) {
+                throw new JsonEndOfStreamException("End of stream unexpectedly reached.");
             }
-        } else {
-            // We always read one char too many, so step back one.
-            unreadChar(c);
+            char c = buffer[pos + 1];
+            if (c != COMMENT_DELIM.getToken() && c != MULTICOMMENT_DELIM.getToken()) {
+                // Just a slash token, not a comment.
+                return;
+            }
+            pos++;
+            current = readComment();
         }
     }
 
-    private void ignoreWhitespace() throws IOException, JsonEndOfStreamException {
-        char c;
+    /**
+     * Skip whitespace, without consuming the char after it.
+     *
+     * @return false if the end of the stream was reached.
+     */
+    private boolean skipWhitespace() throws IOException {
         do {
-            c = readChar();
-        } while (Character.isWhitespace(c));
-        unreadChar(c);
+            while (pos < end) {
+                char c = buffer[pos];
+                if (token(c) != WHITESPACE) {
+                    return true;
+                }
+                pos++;
+                if (c == '\n') {
+                    newLine();
+                }
+            }
+        } while (ensure(1));
+        return false;
     }
 
     private Object readObject() throws IOException, JsonEndOfStreamException {
@@ -689,38 +715,62 @@ public class JsonStreamReader {
         return token;
     }
 
+    /**
+     * Read a string after its opening quote.
+     *
+     * Runs of plain chars are copied from the buffer in one go, a string that has no escapes and does not cross the
+     * end of the buffer is made straight from it.
+     *
+     * @param keepEscapers keep the backslashes and the chars they escape as they are, for function bodies.
+     */
     private String readString(JsonConstant delim, boolean keepEscapers) throws IOException, JsonEndOfStreamException {
-        StringBuilder sb = new StringBuilder();
-        boolean isEscaped = false;
+        char quote = delim.getToken();
+        StringBuilder sb = null;
         markPosition(1);
+        int start = pos;
         try {
             while (true) {
-                char c = readChar();
-                if (c == delim.getToken()) {
-                    if (!isEscaped) {
+                while (pos < end) {
+                    char c = buffer[pos];
+                    if (c == quote) {
                         // We consume the delimiter and call it a day.
+                        String result;
+                        if (sb == null) {
+                            result = new String(buffer, start, pos - start);
+                        } else {
+                            result = sb.append(buffer, start, pos - start).toString();
+                        }
+                        pos++;
+                        return result;
+                    }
+                    if (c == '\\' || c == '\n') {
                         break;
                     }
+                    pos++;
                 }
-                if (!isEscaped && c == '\n') {
-                    throw new JsonStreamParseException("Unterminated string", sb.toString(), getLineNum(), getColNum());
+                if (sb == null) {
+                    sb = new StringBuilder(pos - start + 16);
                 }
-                // A backslash might togle isEscaped; anything else clears it.
-                if (c == '\\') {
+                sb.append(buffer, start, pos - start);
+                if (pos == end) {
+                    if (!ensure(1)) {
+                        throw new JsonEndOfStreamException("End of stream unexpectedly reached.");
+                    }
+                } else if (buffer[pos] == '\n') {
+                    throw new JsonStreamParseException("Unterminated string", sb.toString(), getLineNum(), getColNum());
+                } else {
+                    pos++;
                     if (keepEscapers) {
-                        isEscaped = !isEscaped;
+                        sb.append('\\').append(readChar());
                     } else {
-                        c = readEscapedChar();
+                        sb.append(readEscapedChar());
                     }
-                } else {
-                    isEscaped = false;
                 }
-                sb.append(c);
+                start = pos;
             }
         } catch (JsonEndOfStreamException e) {
             throw new JsonStreamParseException("Unterminated string", sb.toString(), getLineNum(), getColNum());
         }
-        return sb.toString();
     }
 
     /**
@@ -749,34 +799,48 @@ public class JsonStreamReader {
         }
 
         StringBuilder sb = new StringBuilder();
-        char c;
-        try {
-            while (true) {
-                c = readChar();
-                if (!isMulti && c == '\n') {
-                    break;
-                } else if (isMulti && c == MULTICOMMENT_DELIM.getToken()) {
-                    char c2 = readChar();
-                    if (c2 == COMMENT_DELIM.getToken()) {
-                        break;
-                    } else {
-                        unreadChar(c2);
+        int start = pos;
+        LOOP: while (true) {
+            while (pos < end) {
+                char c = buffer[pos];
+                if (c == '\n') {
+                    if (!isMulti) {
+                        sb.append(buffer, start, pos - start);
+                        pos++;
+                        newLine();
+                        break LOOP;
                     }
+                    pos++;
+                    newLine();
+                } else if (isMulti && c == MULTICOMMENT_DELIM.getToken()) {
+                    break;
+                } else {
+                    pos++;
                 }
-                sb.append(c);
             }
-        } catch (JsonEndOfStreamException e) {
-            if (isMulti) {
-                // We finished the stream before reaching end-of-comment!
-                throw new JsonStreamParseException("Unclosed comment");
+            sb.append(buffer, start, pos - start);
+            if (pos < end) {
+                pos++;
+                if (ensure(1) && buffer[pos] == COMMENT_DELIM.getToken()) {
+                    pos++;
+                    break;
+                }
+                sb.append(MULTICOMMENT_DELIM.getToken());
+            } else if (!ensure(1)) {
+                if (isMulti) {
+                    // We finished the stream before reaching end-of-comment!
+                    throw new JsonStreamParseException("Unclosed comment");
+                }
+                break;
             }
+            start = pos;
         }
         return new JsComment(sb.toString(), getLineNum(), getColNum());
     }
 
     private JsFunction readFunction() throws IOException, JsonEndOfStreamException {
         int line = lineNum;
-        int col = colNum;
+        int col = getCurrentColNum();
         // We hint 'literal' to let the parser know that arbitrary literals are ok.
         JsonConstant next = next(LITERAL);
         String functionName = null;
@@ -817,29 +881,41 @@ public class JsonStreamReader {
     }
 
     private String readFunctionBody() throws IOException, JsonEndOfStreamException {
-        // We have to have a bit of a stack in order to find the end of function
-        // body properly.
-        ArrayDeque<JsonConstant> stack = new ArrayDeque<>();
+        // We have to count the braces in order to find the end of function
+        // body properly. Everything else is copied a run at a time.
+        int depth = 0;
         StringBuilder sb = new StringBuilder();
-        char c;
-        JsonConstant token;
         LOOP: while (true) {
-            c = readChar();
-            token = JsonConstant.valueOf(c);
+            int start = pos;
+            while (pos < end) {
+                char c = buffer[pos];
+                if (c == '{' || c == '}' || c == '"' || c == '\'' || c == '/') {
+                    break;
+                }
+                pos++;
+                if (c == '\n') {
+                    newLine();
+                }
+            }
+            sb.append(buffer, start, pos - start);
+            if (pos == end) {
+                if (!ensure(1)) {
+                    throw new JsonEndOfStreamException("End of stream unexpectedly reached.");
+                }
+                continue;
+            }
+            char c = readChar();
+            JsonConstant token = token(c);
             switch (token) {
             case OBJECT_START:
-                stack.push(token);
+                depth++;
                 break;
             case OBJECT_END:
-                if (stack.isEmpty()) {
+                if (depth == 0) {
                     // End of function
                     break LOOP;
-                } else {
-                    JsonConstant peek = stack.peek();
-                    if (peek == OBJECT_START) {
-                        stack.pop();
-                    }
                 }
+                depth--;
                 break;
             case QUOTE_DOUBLE:
             case QUOTE_SINGLE:
@@ -847,13 +923,12 @@ public class JsonStreamReader {
                 sb.append(readString(token, true));
                 break;
             case COMMENT_DELIM:
-                char delim = readChar();
-                unreadChar(delim);
-                if (delim == COMMENT_DELIM.getToken() || delim == MULTICOMMENT_DELIM.getToken()) {
+                if (ensure(1) && (buffer[pos] == COMMENT_DELIM.getToken()
+                        || buffer[pos] == MULTICOMMENT_DELIM.getToken())) {
                     readComment();
                     c = '\n';
-                    break;
                 }
+                break;
             default:
             }
             sb.append(c);
@@ -862,16 +937,33 @@ public class JsonStreamReader {
     }
 
     private Number readNumber() throws IOException, JsonEndOfStreamException {
-        StringBuilder sb = new StringBuilder();
-        while (hasNext()) {
-            char c = readChar();
-            JsonConstant token = JsonConstant.valueOf(c);
-            if ((!token.equals(LITERAL_START))) {
-                unreadChar(c);
+        StringBuilder sb = null;
+        int start = pos;
+        while (true) {
+            while (pos < end && token(buffer[pos]) == LITERAL_START) {
+                pos++;
+            }
+            if (pos < end) {
                 break;
-            } else {
-                sb.append(c);
             }
+            // The number goes on past the buffer.
+            if (sb == null) {
+                sb = new StringBuilder();
+            }
+            sb.append(buffer, start, pos - start);
+            if (!ensure(1)) {
+                break;
+            }
+            start = pos;
+        }
+        if (sb == null) {
+            BigDecimal integer = parseInteger(buffer, start, pos);
+            if (integer != null) {
+                return integer;
+            }
+            sb = new StringBuilder(pos - start).append(buffer, start, pos - start);
+        } else if (pos < end) {
+            sb.append(buffer, start, pos - start);
         }
         BigDecimal ret;
         try {
@@ -884,7 +976,7 @@ public class JsonStreamReader {
                     return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
                 }
             }
-            ret = new BigDecimal(sb.toString());
+            ret = new BigDecimal(s);
 
         } catch (NumberFormatException e) {
             throw new JsonStreamParseException("Could not parse a number", sb.toString(), getLineNum(), getColNum(), e);
@@ -892,6 +984,31 @@ public class JsonStreamReader {
         return ret;
     }
 
+    /**
+     * Parse the common case of a plain integer without going through a string.
+     *
+     * @return the integer, or null if the chars are not an optional minus and at most 18 digits.
+     */
+    private static BigDecimal parseInteger(char[] chars, int from, int to) {
+        int i = from;
+        boolean negative = i < to && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == to || to - i > 18) {
+            return null;
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+        }
+        return BigDecimal.valueOf(negative ? -value : value);
+    }
+
     /**
      * Literal Strings can only be used as keys in maps, so the entry separator
      * and whitespace chars are treated as the delimiters.
@@ -900,64 +1017,131 @@ public class JsonStreamReader {
      * @throws IOException
      */
     private String readLiteralString() throws IOException, JsonEndOfStreamException {
-        StringBuilder sb = new StringBuilder();
-        try {
-            while (true) {
-                char c = readChar();
-                JsonConstant token = JsonConstant.valueOf(c);
-                if (token != LITERAL_START) {
-                    unreadChar(c);
+        StringBuilder sb = null;
+        int start = pos;
+        while (true) {
+            while (pos < end) {
+                char c = buffer[pos];
+                if (c == '\\' || token(c) != LITERAL_START) {
                     break;
-                } else if (c == '\\') {
-                    c = readEscapedChar();
                 }
-                sb.append(c);
+                pos++;
+            }
+            if (pos < end && buffer[pos] != '\\') {
+                break;
+            }
+            // An escape, or the end of the buffer.
+            if (sb == null) {
+                sb = new StringBuilder();
+            }
+            sb.append(buffer, start, pos - start);
+            try {
+                if (pos < end) {
+                    pos++;
+                    sb.append(readEscapedChar());
+                } else if (!ensure(1)) {
+                    return sb.toString();
+                }
+            } catch (JsonEndOfStreamException eof) {
+                // ignore, just return what we have.
+                return sb.toString();
             }
-        } catch (JsonEndOfStreamException eof) {
-            // ignore, just return what we have.
+            start = pos;
         }
-        return sb.toString();
+        if (sb == null) {
+            return new String(buffer, start, pos - start);
+        }
+        return sb.append(buffer, start, pos - start).toString();
     }
 
-    private char readChar() throws IOException, JsonEndOfStreamException {
-        int i = reader.read();
+    private static JsonConstant token(char c) {
+        return c < tokens.length ? tokens[c] : JsonConstant.valueOf(c);
+    }
 
-        if (i == -1) {
+    private char readChar() throws IOException, JsonEndOfStreamException {
+        if (pos == end && !ensure(1)) {
             throw new JsonEndOfStreamException("End of stream unexpectedly reached.");
         }
-
-        charNum++;
-
-        // If we have a binary input stream and if length limits were disabled,
-        // then don't validate the length because
-        // we are streaming in, and memory use is supposed to be O(1) with
-        // respect to the stream length by callers
-        // that are using streaming
-        if (charNum > MAX_LENGTH && lengthLimitsEnabled) {
-            throw new JsonStreamParseException("Input too long.");
+        char c = buffer[pos++];
+        if (c == '\n') {
+            newLine();
         }
+        return c;
+    }
 
-        char c = (char) i;
+    /**
+     * Called after consuming a newline.
+     */
+    private void newLine() {
+        lineNum++;
+        lineStart = base + pos;
+    }
 
-        if (c == '\n') {
-            prevColNum = colNum;
-            lineNum++;
-            colNum = 1;
-        } else {
-            colNum++;
+    /**
+     * Make sure there are at least count chars after pos in the buffer, reading more if needed.
+     *
+     * @return false if the stream ends first.
+     * @throws JsonStreamParseException if the chars are past the length limit.
+     */
+    private boolean ensure(int count) throws IOException {
+        while (end - pos < count) {
+            if (end < limit) {
+                throw new JsonStreamParseException("Input too long.");
+            }
+            if (!fill()) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        return c;
+    /**
+     * Move the unread chars to the front of the buffer and read more after them.
+     *
+     * With a binary stream only one char is read at a time, the binary data that follows a backtick is read from
+     * the stream itself.
+     *
+     * @return false if the stream has ended.
+     */
+    private boolean fill() throws IOException {
+        if (reader == null) {
+            return false;
+        }
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            base += pos;
+            limit -= pos;
+            pos = 0;
+        }
+        int read = binaryInput != null ? 0 : reader.read(buffer, limit, buffer.length - limit);
+        if (read == 0) {
+            // One char at a time, also for a reader that gave us nothing without blocking.
+            int c = reader.read();
+            if (c != -1) {
+                buffer[limit] = (char) c;
+            }
+            read = c == -1 ? -1 : 1;
+        }
+        if (read == -1) {
+            updateEnd();
+            return false;
+        }
+        limit += read;
+        updateEnd();
+        return true;
     }
 
-    private void unreadChar(char c) throws IOException {
-        reader.unread(c);
-        charNum--;
-        if (c == '\n') {
-            colNum = prevColNum;
-            lineNum--;
+    /**
+     * If we have a binary input stream and if length limits were disabled,
+     * then don't limit the length because we are streaming in, and memory
+     * use is supposed to be O(1) with respect to the stream length by
+     * callers that are using streaming.
+     */
+    private void updateEnd() {
+        if (lengthLimitsEnabled && base + limit > MAX_LENGTH) {
+            end = (int) (MAX_LENGTH - base);
         } else {
-            colNum--;
+            end = limit;
         }
     }
 
@@ -981,7 +1165,7 @@ public class JsonStreamReader {
 
         // Read the next 4 hex digits.
         int line = lineNum;
-        int col = colNum;
+        int col = getCurrentColNum();
         StringBuilder sb = new StringBuilder(4);
         for (int i = 0; i < 4; i++) {
             sb.append(readChar());
@@ -996,7 +1180,9 @@ public class JsonStreamReader {
     }
 
     public void close() throws IOException {
-        reader.close();
+        if (reader != null) {
+            reader.close();
+        }
     }
 
     private void assertTokenType(JsonConstant expected, JsonConstant actual) {
@@ -1018,7 +1204,14 @@ public class JsonStreamReader {
 
     private void markPosition(int offset) {
         lastLineNum = lineNum;
-        lastColNum = colNum-offset;
+        lastColNum = getCurrentColNum() - offset;
+    }
+
+    /**
+     * @return the column of the next char to be read, starting at 1.
+     */
+    private int getCurrentColNum() {
+        return (int) (base + pos - lineStart) + 1;
     }
 
     public int getLineNum() {
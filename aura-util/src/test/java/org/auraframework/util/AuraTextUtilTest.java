@@ -17,6 +17,7 @@ package org.auraframework.util;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.auraframework.util.test.util.UnitTestCase;
 import org.junit.Test;
@@ -205,6 +206,34 @@ public class AuraTextUtilTest extends UnitTestCase {
         }
     }
 
+    @Test
+    public void testEscapeForJSONStringToAppendable() throws Exception {
+        for (StringPair p : JSON_STRING_PAIRS) {
+            StringBuilder sb = new StringBuilder();
+            AuraTextUtil.escapeForJSONString(p.input, sb);
+            assertEquals(p.expected, sb.toString());
+        }
+    }
+
+    /**
+     * The escaping to an Appendable must match the trie for any mix of the chars it treats specially.
+     */
+    @Test
+    public void testEscapeForJSONStringToAppendableMatchesTrie() throws Exception {
+        String chars = "\\\n\r\t\"!-<>*/\u2028\u2029\u0000 a\u00e9'";
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            char[] input = new char[random.nextInt(12)];
+            for (int j = 0; j < input.length; j++) {
+                input[j] = chars.charAt(random.nextInt(chars.length()));
+            }
+            String in = new String(input);
+            StringBuilder sb = new StringBuilder();
+            AuraTextUtil.escapeForJSONString(in, sb);
+            assertEquals(AuraTextUtil.escapeForJSONString(in), sb.toString());
+        }
+    }
+
     private static class SplitMatch {
         public final String input;
         public final String delimiter;
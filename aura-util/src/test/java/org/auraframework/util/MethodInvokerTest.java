@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+
+/**
+ * Test that {@link MethodInvoker} behaves as reflection does.
+ */
+public class MethodInvokerTest extends UnitTestCase {
+
+    public static class Bean {
+        private final String name;
+
+        public Bean(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isEmpty() {
+            return name.isEmpty();
+        }
+
+        public void touch() {
+        }
+
+        public void fail() {
+            throw new IllegalStateException("failed " + name);
+        }
+
+        public static long add(long a, int b) {
+            return a + b;
+        }
+    }
+
+    private static class Hidden {
+        public String getValue() {
+            return "hidden";
+        }
+    }
+
+    @Test
+    public void testInvokeGetters() throws Exception {
+        Bean bean = new Bean("a");
+        assertEquals("a", new MethodInvoker(Bean.class.getMethod("getName")).invoke(bean));
+        assertEquals(Boolean.FALSE, new MethodInvoker(Bean.class.getMethod("isEmpty")).invoke(bean));
+    }
+
+    @Test
+    public void testInvokeStaticWithWidening() throws Exception {
+        MethodInvoker invoker = new MethodInvoker(Bean.class.getMethod("add", long.class, int.class));
+        assertEquals(Long.valueOf(5), invoker.invoke(null, 2, (short) 3));
+        assertEquals(Long.valueOf(100), invoker.invoke(null, 'a', 3));
+    }
+
+    @Test
+    public void testVoidReturnsNull() throws Exception {
+        assertNull(new MethodInvoker(Bean.class.getMethod("touch")).invoke(new Bean("a")));
+    }
+
+    @Test
+    public void testExceptionOfMethodIsWrapped() throws Exception {
+        try {
+            new MethodInvoker(Bean.class.getMethod("fail")).invoke(new Bean("b"));
+            fail("Expected the exception of the method");
+        } catch (InvocationTargetException expected) {
+            assertEquals(IllegalStateException.class, expected.getCause().getClass());
+            assertEquals("failed b", expected.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testArgumentsAreCheckedBeforeTheCall() throws Exception {
+        MethodInvoker invoker = new MethodInvoker(Bean.class.getMethod("add", long.class, int.class));
+        assertIllegalArgument(invoker, null, 1L, 2L);
+        assertIllegalArgument(invoker, null, 1L, null);
+        assertIllegalArgument(invoker, null, 1L);
+        assertIllegalArgument(invoker, null, "1", 2);
+        assertIllegalArgument(new MethodInvoker(Bean.class.getMethod("getName")), "not a bean");
+
+        try {
+            new MethodInvoker(Bean.class.getMethod("getName")).invoke(null);
+            fail("Expected an instance method to need a target");
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void testClassThatIsNotPublicUsesReflection() throws Exception {
+        // a public lookup can not see it, but reflection from this package can.
+        MethodInvoker invoker = new MethodInvoker(Hidden.class.getMethod("getValue"));
+        assertEquals("hidden", invoker.invoke(new Hidden()));
+    }
+
+    private static void assertIllegalArgument(MethodInvoker invoker, Object target, Object... args) throws Exception {
+        try {
+            invoker.invoke(target, args);
+            fail("Expected the arguments to be refused");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
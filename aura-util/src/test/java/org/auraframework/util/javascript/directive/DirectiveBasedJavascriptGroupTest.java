@@ -93,6 +93,55 @@ public class DirectiveBasedJavascriptGroupTest extends UnitTestCase {
         }
     }
 
+    /**
+     * regenerate() should only redo the modes whose files changed, and a change to a file included for a single mode
+     * should only make that mode stale.
+     */
+    @Test
+    public void testRegenerateOnlyStaleModes() throws Exception {
+        File dir = getResourceFile("/testdata/javascript/");
+        File start = new File(dir, "testRegenerateStart.js");
+        File inner = new File(dir, "testRegenerateInner.js");
+        File generated = getResourceFile("/testdata/javascript/generated/");
+        writeFile(start, "//#include {\"modes\": [\"MOCK1\"], \"path\": \"testRegenerateInner\"}\nvar start = 1;\n");
+        writeFile(inner, "var inner = 1;\n");
+        try {
+            DirectiveBasedJavascriptGroup jg = new DirectiveBasedJavascriptGroup("testRegenerate", dir,
+                    start.getName(), ImmutableList.<DirectiveType<?>> of(DirectiveTypes.includeType), EnumSet.of(
+                            JavascriptGeneratorMode.MOCK1, JavascriptGeneratorMode.MOCK2));
+            assertEquals(EnumSet.of(JavascriptGeneratorMode.MOCK1, JavascriptGeneratorMode.MOCK2), jg.getStaleModes());
+
+            jg.regenerate(generated);
+            assertTrue("Nothing changed, no mode should be stale", jg.getStaleModes().isEmpty());
+            assertFalse(jg.isStale());
+
+            writeFile(inner, "var inner = 2;\n");
+            assertEquals(ImmutableList.of(inner), ImmutableList.copyOf(jg.getStaleFiles()));
+            assertEquals(EnumSet.of(JavascriptGeneratorMode.MOCK1), jg.getStaleModes());
+            assertTrue(jg.isStale());
+
+            jg.regenerate(generated);
+            assertTrue(jg.getStaleModes().isEmpty());
+
+            writeFile(start, "var start = 2;\n");
+            assertEquals(EnumSet.of(JavascriptGeneratorMode.MOCK1, JavascriptGeneratorMode.MOCK2), jg.getStaleModes());
+        } finally {
+            start.delete();
+            inner.delete();
+            new File(generated, "testRegenerate_mock1.js").delete();
+            new File(generated, "testRegenerate_mock2.js").delete();
+        }
+    }
+
+    private void writeFile(File file, String contents) throws IOException {
+        Writer writer = new FileWriter(file, false);
+        try {
+            writer.append(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
     /**
      * Use the javascript processor to generate javascript files in 5 modes. Gold file the five modes and also verify
      * that the file was not created in the 6th mode.
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.util.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.auraframework.util.json.JsonStreamReader.JsonParseException;
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+
+/**
+ * Test that {@link JsonBinaryEncoder} and {@link JsonBinaryDecoder} give the same text as {@link JsonEncoder}.
+ */
+public class JsonBinaryEncoderTest extends UnitTestCase {
+
+    private static class Definition implements JsonSerializable {
+        private final String name;
+        private final List<Object> attributes;
+
+        Definition(String name, Object... attributes) {
+            this.name = name;
+            this.attributes = Arrays.asList(attributes);
+        }
+
+        @Override
+        public void serialize(Json json) throws IOException {
+            json.writeMapBegin();
+            json.writeMapEntry("descriptor", "markup://test:" + name);
+            json.writeMapEntry("attributes", attributes);
+            json.writeMapKey("componentDef");
+            json.getAppendable().append("function(){return \"").append(name).append("\";}");
+            json.writeMapEntry("empty", null, "java://java.util.List");
+            json.writeMapEnd();
+            json.writeComment("end of " + name);
+        }
+    }
+
+    private static Object createValue() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("string", "a \"quoted\" </script>   string");
+        map.put("surrogate", "\ud800 alone");
+        map.put("number", 123);
+        map.put("decimal", new BigDecimal("-1.25E-7"));
+        map.put("true", Boolean.TRUE);
+        map.put("null", null);
+        map.put("date", new Date(1234567890123L));
+        map.put("long", "x" + new String(new char[500]).replace('\0', 'y'));
+        List<Object> defs = Lists.newArrayList();
+        for (int i = 0; i < 20; i++) {
+            defs.add(new Definition("cmp" + i, "a", i, Lists.newArrayList(), new LinkedHashMap<>()));
+        }
+        map.put("defs", defs);
+        return map;
+    }
+
+    private static void assertSameText(Object value, JsonSerializationContext context) {
+        String expected = JsonEncoder.serialize(value, context);
+        byte[] bytes = JsonBinaryEncoder.toBytes(value, context);
+        assertEquals(expected, JsonBinaryDecoder.toString(bytes, context));
+    }
+
+    @Test
+    public void testRoundTripMatchesText() throws Exception {
+        assertSameText(createValue(), new DefaultJsonSerializationContext(false, false));
+    }
+
+    @Test
+    public void testRoundTripMatchesFormattedText() throws Exception {
+        assertSameText(createValue(), new DefaultJsonSerializationContext(true, true));
+    }
+
+    @Test
+    public void testRoundTripOfScalars() throws Exception {
+        JsonSerializationContext context = new DefaultJsonSerializationContext(false, true);
+        assertSameText("", context);
+        assertSameText(null, context);
+        assertSameText(12e20, context);
+        assertSameText(new Object[] { "a", "a", "a" }, context);
+    }
+
+    @Test
+    public void testPlayedBackWithTheFormatOfTheTarget() throws Exception {
+        Object value = createValue();
+        byte[] bytes = JsonBinaryEncoder.toBytes(value, new DefaultJsonSerializationContext(false, true));
+
+        JsonSerializationContext formatted = new DefaultJsonSerializationContext(true, true);
+        assertEquals(JsonEncoder.serialize(value, formatted), JsonBinaryDecoder.toString(bytes, formatted));
+    }
+
+    @Test
+    public void testRepeatedKeysAreTabled() throws Exception {
+        JsonSerializationContext context = new DefaultJsonSerializationContext(false, false);
+        Object value = createValue();
+        byte[] bytes = JsonBinaryEncoder.toBytes(value, context);
+        int textLength = JsonEncoder.serialize(value, context).getBytes(Charsets.UTF_8).length;
+
+        assertTrue("binary " + bytes.length + " should be under text " + textLength, bytes.length < textLength);
+        String ascii = new String(bytes, Charsets.ISO_8859_1);
+        assertEquals("descriptor should be written once", ascii.indexOf("descriptor"), ascii.lastIndexOf("descriptor"));
+    }
+
+    @Test
+    public void testBinaryStreamRoundTrip() throws Exception {
+        JsonSerializationContext context = new DefaultJsonSerializationContext(false, false);
+        byte[] data = { 0, 1, 2, '`', (byte) 0xff };
+
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        JsonEncoder json = JsonEncoder.createJsonStream(text, context);
+        writeWithStream(json, data);
+        json.close();
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        JsonBinaryEncoder binaryJson = new JsonBinaryEncoder(binary, context);
+        writeWithStream(binaryJson, data);
+        binaryJson.close();
+
+        ByteArrayOutputStream played = new ByteArrayOutputStream();
+        json = JsonEncoder.createJsonStream(played, context);
+        new JsonBinaryDecoder(new ByteArrayInputStream(binary.toByteArray())).writeTo(json);
+        json.close();
+
+        assertTrue(Arrays.equals(text.toByteArray(), played.toByteArray()));
+    }
+
+    private static void writeWithStream(Json json, byte[] data) throws IOException {
+        json.writeArrayBegin();
+        json.writeArrayEntry("before");
+        json.writeComma();
+        OutputStream out = json.writeBinaryStreamBegin(data.length);
+        out.write(data);
+        json.writeBinaryStreamEnd();
+        json.writeArrayEntry("after");
+        json.writeArrayEnd();
+    }
+
+    @Test
+    public void testRejectsOtherInput() throws Exception {
+        try {
+            JsonBinaryDecoder.toString("{}".getBytes(Charsets.UTF_8), new DefaultJsonSerializationContext(false, false));
+            fail("Text json should not be read as binary");
+        } catch (JsonParseException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Not binary json"));
+        }
+
+        byte[] bytes = JsonBinaryEncoder.toBytes("some string", new DefaultJsonSerializationContext(false, false));
+        try {
+            JsonBinaryDecoder.toString(Arrays.copyOf(bytes, bytes.length - 3),
+                    new DefaultJsonSerializationContext(false, false));
+            fail("A cut short record should fail");
+        } catch (JsonParseException expected) {
+            assertEquals("Binary json ended in the middle of a record", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testLengthsAreBoundBeforeReading() throws Exception {
+        // a string of Integer.MAX_VALUE chars, with none of them there.
+        byte[] huge = { JsonBinaryEncoder.MAGIC, JsonBinaryEncoder.VERSION, JsonBinaryEncoder.STRING,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 };
+        StringBuilder sb = new StringBuilder();
+        try {
+            new JsonBinaryDecoder(new ByteArrayInputStream(huge)).writeTo(JsonEncoder.createJsonStream(sb,
+                    new DefaultJsonSerializationContext(false, false)));
+            fail("A length over the maximum should fail");
+        } catch (JsonParseException expected) {
+            assertEquals("Malformed length 2147483647 in binary json", expected.getMessage());
+        }
+
+        // a million chars, with two there.
+        byte[] cut = { JsonBinaryEncoder.MAGIC, JsonBinaryEncoder.VERSION, JsonBinaryEncoder.STRING,
+                (byte) 0xC0, (byte) 0x84, 0x3D, 'a', 'b' };
+        try {
+            JsonBinaryDecoder.toString(cut, new DefaultJsonSerializationContext(false, false));
+            fail("A length over what is left should fail");
+        } catch (JsonParseException expected) {
+            assertEquals("Binary json ended in the middle of a record", expected.getMessage());
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -37,6 +38,7 @@ import org.auraframework.util.test.util.UnitTestCase;
 import org.junit.Test;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
@@ -1035,6 +1037,75 @@ public class JsonStreamReaderTest extends UnitTestCase {
         reader.disableLengthLimitsBecauseIAmStreamingAndMyMemoryUseIsNotProportionalToTheStreamLength();
     }
 
+    /**
+     * Tokens cut across the refills of the buffer read the same as from a string.
+     */
+    @Test
+    public void testReadAcrossBufferRefills() throws Exception {
+        String json = "{ // comment\n 'key' : \"a\\\"b\\u00e9c\", longString : '" + Strings.repeat("xy", 5000)
+                + "', num : [12345, -678, 1.5e3, 12345678901234567890],\n /* multi\n * line */ fn : function(a, b) "
+                + "{ if (a) { return \"}\"; } /* } */ return b; }, lit\\u0041 : true }";
+        Object expected = parseAndRetrieve(json);
+
+        for (int chunk = 1; chunk < 6; chunk++) {
+            final StringReader in = new StringReader(json);
+            final int size = chunk;
+            Reader chunked = new Reader() {
+                @Override
+                public int read(char[] cbuf, int off, int len) throws IOException {
+                    return in.read(cbuf, off, Math.min(len, size));
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            jsonStreamReader = new JsonStreamReader(chunked);
+            jsonStreamReader.next();
+            assertEquals("chunks of " + chunk, expected, jsonStreamReader.getValue());
+        }
+    }
+
+    /**
+     * Plain integers are read without a string, everything else still goes through BigDecimal.
+     */
+    @Test
+    public void testReadIntegers() throws Exception {
+        assertEquals(new BigDecimal("-42"), ((List<?>) parseAndRetrieve("[-42]")).get(0));
+        assertEquals(new BigDecimal("007"), ((List<?>) parseAndRetrieve("[007 ]")).get(0));
+        assertEquals(new BigDecimal("999999999999999999"), ((List<?>) parseAndRetrieve("[999999999999999999]")).get(0));
+        assertEquals(new BigDecimal("9999999999999999999"),
+                ((List<?>) parseAndRetrieve("[9999999999999999999]")).get(0));
+        try {
+            parseAndRetrieve("[-]");
+            fail("A lone minus is not a number");
+        } catch (JsonStreamParseException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Could not parse a number"));
+        }
+    }
+
+    @Test
+    public void testInputTooLong() throws Exception {
+        String json = "['" + Strings.repeat("x", 1000000) + "']";
+        try {
+            new JsonStreamReader(new StringReader(json)).next();
+            fail("Should have stopped at the length limit");
+        } catch (JsonStreamParseException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Input too long."));
+        }
+    }
+
+    @Test
+    public void testErrorPositionAfterNewlines() throws Exception {
+        try {
+            parseAndRetrieve("{\n  a : 1,\n  b : 'unterminated\n}");
+            fail("Should have failed on the newline in the string");
+        } catch (JsonStreamParseException expected) {
+            assertEquals(3, expected.line);
+            assertEquals(7, expected.col);
+        }
+    }
+
     /**
      * A convenience method to verify the functioning of JsonStreamReader. All
      * this method does is accepts a String, creates a stream with this and
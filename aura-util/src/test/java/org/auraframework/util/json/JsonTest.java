@@ -21,11 +21,16 @@ import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.math.RoundingMode;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.UUID;
 
@@ -183,6 +188,51 @@ public class JsonTest extends UnitTestCase {
         }
     }
 
+    @Test
+    public void testWriteDate() throws Exception {
+        SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        expected.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            // between 1970 and 2100
+            Date date = new Date((long) (random.nextDouble() * 4102444800000L));
+            StringBuilder sb = new StringBuilder();
+            new JsonEncoder(sb, false).writeDate(date);
+            assertEquals("\"" + expected.format(date) + "\"", sb.toString());
+        }
+        StringBuilder sb = new StringBuilder();
+        new JsonEncoder(sb, false).writeDate(new java.sql.Date(0));
+        assertEquals("\"1970-01-01T00:00:00Z\"", sb.toString());
+
+        // Julian dates before the Gregorian cutover, and years past 9999, are written as they always were
+        String[] dates = { "0001-01-01T00:00:00Z", "1582-10-04T23:59:59Z", "1582-10-15T00:00:00Z",
+                "9999-12-31T23:59:59Z", "10000-01-01T00:00:00Z", "292278994-08-17T07:12:55Z" };
+        for (String text : dates) {
+            sb = new StringBuilder();
+            new JsonEncoder(sb, false).writeDate(expected.parse(text));
+            assertEquals("\"" + text + "\"", sb.toString());
+        }
+    }
+
+    @Test
+    public void testClassMapContextDispatchesArraysAndEnums() throws IOException {
+        JsonSerializer<Object> fromFactory = new DefaultJsonSerializer();
+        ClassMapJsonSerializationContext context = new ClassMapJsonSerializationContext(new JsonSerializerFactory() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T> JsonSerializer<T> getSerializer(T o) {
+                return (JsonSerializer<T>) fromFactory;
+            }
+        }, false, -1, -1);
+
+        assertSame(JsonSerializers.ARRAY, context.getSerializer(new String[0]));
+        assertSame(JsonSerializers.ARRAY, context.getSerializer(new int[0]));
+        assertSame(JsonSerializers.STRING, context.getSerializer(RoundingMode.UP));
+        assertSame(JsonSerializers.LITERAL, context.getSerializer(null));
+        assertSame(fromFactory, context.getSerializer("value"));
+        assertSame(fromFactory, context.getSerializer(new StringBuilder()));
+    }
+
     @Test
     public void testWriteValueNoSerializer() throws IOException {
         JsonEncoder json = new JsonEncoder(new StringBuilder(), null, new NoSerializerContext());
@@ -781,4 +831,49 @@ public class JsonTest extends UnitTestCase {
         jsonSkipNull.close();
         assertEquals("fail with Json Stream Skip null", expect2, new String(baos.toByteArray(), Charsets.UTF_8) );
     }
+
+    @Test
+    public void testWriteFragmentMatchesSerializedValue() throws IOException {
+        JsonSerializationContext context = new DefaultJsonSerializationContext(false, false);
+        Map<Object, Object> value = new LinkedHashMap<>(2);
+        value.put("descriptor", "markup://test:fragment");
+        value.put("attributes", Lists.newArrayList("a", 1));
+        String fragment = JsonEncoder.serialize(value, context);
+
+        StringBuilder direct = new StringBuilder();
+        JsonEncoder json = JsonEncoder.createJsonStream(direct, context);
+        json.writeArrayBegin();
+        json.writeArrayEntry("before");
+        json.writeArrayEntry(value);
+        json.writeArrayEnd();
+
+        StringBuilder spliced = new StringBuilder();
+        json = JsonEncoder.createJsonStream(spliced, context);
+        json.writeArrayBegin();
+        json.writeArrayEntry("before");
+        assertEquals("", json.getFragmentLayout());
+        json.writeComma();
+        json.writeIndent();
+        json.writeFragment(fragment);
+        json.writeArrayEnd();
+
+        assertEquals(direct.toString(), spliced.toString());
+    }
+
+    @Test
+    public void testFragmentLayout() throws IOException {
+        assertNull("formatting depends on depth",
+                JsonEncoder.createJsonStream(new StringBuilder(), new DefaultJsonSerializationContext(true, false))
+                        .getFragmentLayout());
+        assertEquals("n",
+                JsonEncoder.createJsonStream(new StringBuilder(), new DefaultJsonSerializationContext(false, true))
+                        .getFragmentLayout());
+
+        JsonSerializationContext context = new DefaultJsonSerializationContext(false, false);
+        context.pushFormatRootItems();
+        JsonEncoder json = JsonEncoder.createJsonStream(new StringBuilder(), context);
+        assertEquals("r", json.getFragmentLayout());
+        json.writeArrayBegin();
+        assertNull("root items are only formatted at the root", json.getFragmentLayout());
+    }
 }
@@ -70,6 +70,16 @@ public interface ConfigAdapter extends AuraAdapter {
      */
     String getSessionCacheKey();
 
+    /**
+     * UserCacheKey is a key that is used for caches whose content depends on the current user.
+     * if this returns null, it means that caches that use this key will not be active.
+     *
+     * @return a String, may be null
+     */
+    default String getUserCacheKey() {
+        return null;
+    }
+
     // TODO: This shouldn't be a API of config adapter.
     // check reference. Remove it if not needed.
     /**
@@ -55,6 +55,16 @@ public interface ContextAdapter extends AuraAdapter {
             Map<String, GlobalValueProvider> globalProviders,
             DefDescriptor<? extends BaseComponentDef> appDesc);
 
+    /**
+     * Make a context established on another thread current on this one.
+     *
+     * This is used to finish a request on a different thread than the one it started on. The context must no longer
+     * be used by the thread that established it, and is released like any other.
+     *
+     * @param context the context to use.
+     */
+    void attach(AuraContext context);
+
     /**
      * is a context established in this thread?.
      *
@@ -23,6 +23,11 @@ public interface LoggingAdapter extends AuraAdapter {
 
     LoggingContext establish();
 
+    /**
+     * Make a logging context established on another thread current on this one.
+     */
+    void attach(LoggingContext loggingContext);
+
     boolean isEstablished();
 
     void release();
@@ -40,9 +40,7 @@ import org.auraframework.adapter.ConfigAdapter;
 import org.auraframework.adapter.LocalizationAdapter;
 import org.auraframework.def.ApplicationDef;
 import org.auraframework.def.BaseComponentDef;
-import org.auraframework.def.ComponentDef;
 import org.auraframework.def.DefDescriptor;
-import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.http.RequestParam.BooleanParam;
 import org.auraframework.http.RequestParam.EnumParam;
 import org.auraframework.http.RequestParam.InvalidParamException;
@@ -58,9 +56,11 @@ import org.auraframework.system.AuraContext.Mode;
 import org.auraframework.system.Client;
 import org.auraframework.util.AuraTextUtil;
 import org.auraframework.util.json.JsonReader;
+import org.auraframework.util.text.Hash;
 import org.springframework.web.context.support.SpringBeanAutowiringSupport;
 
-import com.google.common.collect.Maps;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 public class AuraContextFilter implements Filter {
     public static final EnumParam<AuraContext.Mode> mode = new EnumParam<>(AuraServlet.AURA_PREFIX
@@ -75,10 +75,23 @@ public class AuraContextFilter implements Filter {
     private static final StringParam app = new StringParam(AuraServlet.AURA_PREFIX + "app", 0, false);
     private static final StringParam num = new StringParam(AuraServlet.AURA_PREFIX + "num", 0, false);
     private static final StringParam contextConfig = new StringParam(AuraServlet.AURA_PREFIX + "context", 0, false);
+
+    /**
+     * The request attribute holding the config of the request, once it has been looked up.
+     */
+    static final String CONTEXT_CONFIG_ATTRIBUTE = AuraServlet.AURA_PREFIX + "contextConfig";
+
+    /**
+     * Stands in the request attribute for a request without a config.
+     */
+    private static final Object NO_CONTEXT_CONFIG = new Object();
     protected static final BooleanParam modulesParam = new BooleanParam(AuraServlet.AURA_PREFIX + "modules", false);
 
     private String componentDir = null;
 
+    private final Cache<Hash, ContextConfig> contextConfigCache = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger("aura.cache.contextConfigCacheSize", 1000)).build();
+
     private static final Log LOG = LogFactory.getLog(AuraContextFilter.class);
 
     private AuraTestFilter testFilter;
@@ -170,18 +183,23 @@ public class AuraContextFilter implements Filter {
             out.append(e.getMessage());
             return;
         } finally {
-            try {
-                if (loggingService != null) {
-                    try {
-                        loggingService.setValue(LoggingService.STATUS,
-                                String.valueOf(((HttpServletResponse) res).getStatus()));
-                    } catch (Throwable t) {
-                        // ignore.
+            if (req.getAttribute(AuraServlet.ASYNC_ACTIONS_ATTRIBUTE) != null) {
+                // the request is being finished on another thread, which now owns the context and logs it.
+                endContext();
+            } else {
+                try {
+                    if (loggingService != null) {
+                        try {
+                            loggingService.setValue(LoggingService.STATUS,
+                                    String.valueOf(((HttpServletResponse) res).getStatus()));
+                        } catch (Throwable t) {
+                            // ignore.
+                        }
+                        loggingService.flush(); // flush out logging values
                     }
-                    loggingService.flush(); // flush out logging values
+                } finally {
+                    endContext();
                 }
-            } finally {
-                endContext();
             }
         }
     }
@@ -192,10 +210,11 @@ public class AuraContextFilter implements Filter {
         Format f = format.get(request);
         Authentication a = access.get(request, Authentication.AUTHENTICATED);
 
-        Map<String, Object> configMap = getConfigMap(request);
+        ContextConfig config = getContextConfig(request);
+        Map<String, Object> configMap = config != null ? config.getMap() : null;
         Mode m = getMode(request, configMap);
 
-        DefDescriptor<? extends BaseComponentDef> appDesc = getAppParam(request, configMap);
+        DefDescriptor<? extends BaseComponentDef> appDesc = getAppParam(request, config);
 
         if (componentDir != null) {
             System.setProperty("aura.componentDir", componentDir);
@@ -237,27 +256,23 @@ public class AuraContextFilter implements Filter {
         context.setContextPath(contextPath);
         context.setNum(num.get(request));
         context.setRequestedLocales(requestedLocales);
-        context.setClient(new Client(request.getHeader(HttpHeaders.USER_AGENT)));
+        context.setClient(Client.get(request.getHeader(HttpHeaders.USER_AGENT)));
         context.setModulesEnabled(isModulesEnabled(request, configMap, m));
-        if (configMap != null) {
-            getLoaded(context, configMap.get("loaded"));
-            @SuppressWarnings("unchecked")
-            List<Object> dns = (List<Object>) configMap.get("dn");
-            if (dns != null) {
-                for (Object dn : dns) {
-                    context.addDynamicNamespace((String) dn);
-                }
+        if (config != null) {
+            if (config.getLoaded() != null) {
+                context.setClientLoaded(config.getLoaded());
             }
-            context.setFrameworkUID((String) configMap.get("fwuid"));
+            for (String dn : config.getDynamicNamespaces()) {
+                context.addDynamicNamespace(dn);
+            }
+            context.setFrameworkUID(config.getFrameworkUID());
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> styleContext = (Map<String, Object>) configMap.get("styleContext");
+            Map<String, Object> styleContext = config.getStyleContext();
             if (styleContext != null) {
                 context.setStyleContext(styleContext);
             }
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> gvp = (Map<String, Object>) configMap.get("globals");
+            Map<String, Object> gvp = config.getGlobals();
             if (gvp != null) {
                 for (Map.Entry<String, Object> entry : gvp.entrySet()) {
                     context.setGlobalValue(entry.getKey(), entry.getValue());
@@ -268,60 +283,57 @@ public class AuraContextFilter implements Filter {
         return context;
     }
 
+    private Map<String, Object> getConfigMap(HttpServletRequest request) {
+        ContextConfig config = getContextConfig(request);
+        return config != null ? config.getMap() : null;
+    }
+
     /**
-     * Pull in the map of loaded defDescriptors and uids from the context.
+     * Get the decoded aura.context param, or the context header of a POST with a message body.
+     *
+     * Decoded configs are cached by a digest of the raw param, so a client sending the same context again skips the
+     * decoding, the parsing and the lookup of its loaded descriptors. The config is kept in a request attribute, so the
+     * digest is only computed once per request however often the config is asked for.
+     *
+     * @return the decoded config, or null if there is none.
      */
-    private void getLoaded(AuraContext context, Object loadedEntry) {
-        if (loadedEntry == null || !(loadedEntry instanceof Map)) {
-            //
-            // If someone gives us bogus input, just ignore it.
-            //
-            return;
-        }
-        @SuppressWarnings("unchecked")
-        Map<String, String> loaded = (Map<String, String>) loadedEntry;
-        Map<DefDescriptor<?>, String> clientLoaded = Maps.newHashMap();
-
-        for (Map.Entry<String, String> entry : loaded.entrySet()) {
-            String uid = entry.getValue();
-            if (uid != null && !uid.equals("null")) {
-                String key = entry.getKey();
-                int posn = key.indexOf("@");
-                if (posn > 0) {
-                    String typeStr = key.substring(0, posn);
-                    String defStr = key.substring(posn + 1);
-                    DefType type = null;
-                    try {
-                        type = DefType.valueOf(typeStr);
-                    } catch (Throwable t) {
-                        // ignore unknown types...
-                        // We really should log these at a level where we can
-                        // see them, but, well, we don't have that now.
-                    }
-                    if (type != null) {
-                        DefDescriptor<?> ld = null;
-
-                        ld = definitionService.getDefDescriptor(defStr, type.getPrimaryInterface());
-                        clientLoaded.put(ld, uid);
-                    }
-                }
-            }
+    ContextConfig getContextConfig(HttpServletRequest request) {
+        Object attribute = request.getAttribute(CONTEXT_CONFIG_ATTRIBUTE);
+        if (attribute != null) {
+            return attribute != NO_CONTEXT_CONFIG ? (ContextConfig) attribute : null;
         }
-        context.setClientLoaded(clientLoaded);
+        ContextConfig config = readContextConfig(request);
+        request.setAttribute(CONTEXT_CONFIG_ATTRIBUTE, config != null ? config : NO_CONTEXT_CONFIG);
+        return config;
     }
 
     @SuppressWarnings("unchecked")
-    private Map<String, Object> getConfigMap(HttpServletRequest request) {
-        Map<String, Object> configMap = null;
-        String config = contextConfig.get(request);
-        if (!AuraTextUtil.isNullEmptyOrWhitespace(config)) {
-            if (config.startsWith(AuraTextUtil.urlencode("{"))) {
+    private ContextConfig readContextConfig(HttpServletRequest request) {
+        String raw = contextConfig.get(request);
+        if (raw == null && AuraServlet.isMessageBody(request)) {
+            raw = request.getHeader(AuraServlet.CONTEXT_HEADER);
+        }
+        if (AuraTextUtil.isNullEmptyOrWhitespace(raw)) {
+            return null;
+        }
+        Hash.StringBuilder digest = new Hash.StringBuilder();
+        digest.addString(raw);
+        Hash key = digest.build();
+        ContextConfig config = contextConfigCache.getIfPresent(key);
+        if (config == null) {
+            String json = raw;
+            if (json.startsWith(AuraTextUtil.urlencode("{"))) {
                 // Decode encoded context json. Serialized AuraContext json always starts with "{"
-                config = AuraTextUtil.urldecode(config);
+                json = AuraTextUtil.urldecode(json);
             }
-            configMap = (Map<String, Object>) new JsonReader().read(config);
+            Map<String, Object> configMap = (Map<String, Object>) new JsonReader().read(json);
+            if (configMap == null) {
+                return null;
+            }
+            config = new ContextConfig(configMap, definitionService);
+            contextConfigCache.put(key, config);
         }
-        return configMap;
+        return config;
     }
 
     private Mode getModeParam(HttpServletRequest request, Map<String, Object> configMap) {
@@ -388,21 +400,12 @@ public class AuraContextFilter implements Filter {
         return configAdapter.isModulesEnabled();
     }
 
-    private DefDescriptor<? extends BaseComponentDef> getAppParam(HttpServletRequest request, Map<String, Object> configMap) {
-        String appName = null;
-        String cmpName = null;
-
-        appName = app.get(request, null);
-        if (appName == null && configMap != null) {
-            appName = (String) configMap.get("app");
-            if (appName == null) {
-                cmpName = (String) configMap.get("cmp");
-            }
-        }
+    private DefDescriptor<? extends BaseComponentDef> getAppParam(HttpServletRequest request, ContextConfig config) {
+        String appName = app.get(request, null);
         if (appName != null) {
             return definitionService.getDefDescriptor(appName, ApplicationDef.class);
-        } else if (cmpName != null) {
-            return definitionService.getDefDescriptor(cmpName, ComponentDef.class);
+        } else if (config != null) {
+            return config.getAppDescriptor();
         }
         return null;
     }
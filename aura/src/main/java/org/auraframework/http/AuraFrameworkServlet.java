@@ -27,9 +27,10 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.http.HttpHeaders;
 import org.auraframework.adapter.ConfigAdapter;
+import org.auraframework.http.resource.AuraResourceImpl;
 import org.auraframework.http.resource.FileStaticResource;
+import org.auraframework.http.resource.StaticResourceCache;
 import org.auraframework.system.StaticResource;
-import org.auraframework.util.IOUtil;
 import org.auraframework.util.resource.ResourceLoader;
 
 public class AuraFrameworkServlet extends AuraBaseServlet {
@@ -43,7 +44,9 @@ public class AuraFrameworkServlet extends AuraBaseServlet {
     public static final String RESOURCES_FORMAT = "%s/auraFW/resources/%s/%s";
 
     private ConfigAdapter configAdapter;
-    
+
+    private final StaticResourceCache resourceCache = new StaticResourceCache();
+
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         ResourceLoader resourceLoader = configAdapter.getResourceLoader();
@@ -149,16 +152,35 @@ public class AuraFrameworkServlet extends AuraBaseServlet {
                 haveUid = hasUid;
             }
 
-            in = staticResource.getResourceStream();
-
             //
-            // Check if it exists. DANGER: if there is a nonce, this is really an
-            // 'out-of-date' problem, and we may break the browser by telling it a
-            // lie here.
+            // Resources under the current nonce can't change until it does, so they are only read once.
             //
-            if (in == null) {
-                response.sendError(HttpServletResponse.SC_NOT_FOUND);
-                return;
+            StaticResourceCache.Entry cached = null;
+            String cacheKey = null;
+            if (matchedUid) {
+                cacheKey = currentUid + ":" + isProduction + ":" + String.format(format, file);
+                cached = resourceCache.get(cacheKey);
+            }
+
+            if (cached == null) {
+                in = staticResource.getResourceStream();
+
+                //
+                // Check if it exists. DANGER: if there is a nonce, this is really an
+                // 'out-of-date' problem, and we may break the browser by telling it a
+                // lie here.
+                //
+                if (in == null) {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
+
+                //
+                // Resources under another nonce aren't kept, but are still read the same way, so that they go out
+                // gzipped too. The compression filter is kept off this servlet.
+                //
+                cached = matchedUid ? resourceCache.put(cacheKey, in) : StaticResourceCache.load(in);
+                in = null;
             }
 
             // handle any MIME content type, using only file name (not contents)
@@ -197,7 +219,7 @@ public class AuraFrameworkServlet extends AuraBaseServlet {
                 servletUtilAdapter.setShortCache(response);
             }
 
-            IOUtil.copyStream(in, response.getOutputStream());
+            writeCached(request, response, cached);
         } finally {
             if (in != null) {
                 try {
@@ -209,6 +231,26 @@ public class AuraFrameworkServlet extends AuraBaseServlet {
         }
     }
 
+    /**
+     * Write a resource, gzipped if the client takes it, answering If-None-Match with a 304.
+     */
+    private void writeCached(HttpServletRequest request, HttpServletResponse response, StaticResourceCache.Entry cached)
+            throws IOException {
+        boolean gzip = cached.hasGzip() && AuraResourceImpl.acceptsGzip(request);
+        if (cached.hasGzip()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (AuraResourceImpl.checkNotModified(request, response, cached.getETag(gzip))) {
+            return;
+        }
+
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLength(cached.getLength(gzip));
+        cached.write(response.getOutputStream(), gzip);
+    }
+
     @Inject
     public void setConfigAdapter(ConfigAdapter configAdapter) {
         this.configAdapter = configAdapter;
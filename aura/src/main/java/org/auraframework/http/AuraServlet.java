@@ -17,6 +17,7 @@ package org.auraframework.http;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringReader;
 import java.net.URI;
 import java.util.Enumeration;
@@ -24,16 +25,26 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpHeaders;
 import org.auraframework.adapter.ConfigAdapter;
 import org.auraframework.adapter.ExceptionAdapter;
@@ -56,6 +67,7 @@ import org.auraframework.service.ServerService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.LoggingContext;
 import org.auraframework.system.Message;
 import org.auraframework.throwable.AuraRuntimeException;
 import org.auraframework.throwable.ClientOutOfSyncException;
@@ -124,8 +136,41 @@ public class AuraServlet extends AuraBaseServlet {
     private final static StringParam csrfToken = new StringParam(AURA_PREFIX + "token", 0, true);
     private final static StringParam formatAdapterParam = new StringParam(AURA_PREFIX + "formatAdapter", 0, false);
     private final static StringParam messageParam = new StringParam("message", 0, false);
+
+    /**
+     * A POST of this content type carries the message as its body rather than as the "message" parameter. The context
+     * comes url encoded in the {@link #CONTEXT_HEADER} header and the CSRF token in the {@link #TOKEN_HEADER} header,
+     * any other parameters in the query string.
+     */
+    public final static String MESSAGE_BODY_CONTENT_TYPE = "application/json";
+    public final static String CONTEXT_HEADER = "X-Aura-Context";
+    public final static String TOKEN_HEADER = "X-Aura-Token";
+
+    /**
+     * The longest body read to look for failed actions of a client with an unknown framework.
+     */
+    private final static int MAX_FAILED_ACTIONS_LENGTH = 1000000;
     private final static StringParam nocacheParam = new StringParam("nocache", 0, false);
 
+    /**
+     * Set on a POST whose actions have been handed to the action executor, which then owns the context.
+     */
+    public final static String ASYNC_ACTIONS_ATTRIBUTE = AURA_PREFIX + "asyncActions";
+
+    /**
+     * Init parameters for running actions off the container threads. Off unless asyncActions is true, which also needs
+     * async-supported on the servlet and every filter in front of it. Otherwise actions still run on the container
+     * threads, with a warning. The compression filter of the default web.xml is not async-supported, and it closes
+     * the response as soon as the servlet returns, so it has to be kept off /aura or replaced by one that supports
+     * async requests.
+     */
+    public final static String ASYNC_ACTIONS_PARAM = "asyncActions";
+    public final static String ASYNC_ACTION_THREADS_PARAM = "asyncActionThreads";
+    public final static String ASYNC_ACTION_QUEUE_DEPTH_PARAM = "asyncActionQueueDepth";
+
+    private final static int DEFAULT_ASYNC_ACTION_THREADS = 32;
+    private final static int DEFAULT_ASYNC_ACTION_QUEUE_DEPTH = 256;
+
     private ExceptionAdapter exceptionAdapter;
     private ContextService contextService;
     private DefinitionService definitionService;
@@ -134,11 +179,53 @@ public class AuraServlet extends AuraBaseServlet {
     private LoggingService loggingService;
     private ServerService serverService;
     private ManifestUtil manifestUtil;
+    private transient ThreadPoolExecutor actionExecutor;
+    private final AtomicBoolean warnedAsyncUnsupported = new AtomicBoolean();
+
+    private static final Log LOG = LogFactory.getLog(AuraServlet.class);
 
     @Override
     public void init(ServletConfig config) throws ServletException {
         super.init(config);
         manifestUtil = new ManifestUtil(definitionService, contextService, configAdapter);
+        if (Boolean.parseBoolean(config.getInitParameter(ASYNC_ACTIONS_PARAM))) {
+            actionExecutor = createActionExecutor(
+                    getIntParameter(config, ASYNC_ACTION_THREADS_PARAM, DEFAULT_ASYNC_ACTION_THREADS),
+                    getIntParameter(config, ASYNC_ACTION_QUEUE_DEPTH_PARAM, DEFAULT_ASYNC_ACTION_QUEUE_DEPTH));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (actionExecutor != null) {
+            actionExecutor.shutdown();
+        }
+        super.destroy();
+    }
+
+    private static int getIntParameter(ServletConfig config, String name, int defaultValue) {
+        String value = config.getInitParameter(name);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    /**
+     * Create the executor running actions for async POSTs.
+     *
+     * At most queueDepth messages wait for a thread, past that requests are turned away rather than piling up.
+     */
+    static ThreadPoolExecutor createActionExecutor(int threads, int queueDepth) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueDepth), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "AuraAction-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -420,7 +507,6 @@ public class AuraServlet extends AuraBaseServlet {
             throws ServletException, IOException {
         AuraContext context = contextService.getCurrentContext();
         response.setCharacterEncoding(UTF_ENCODING);
-        boolean written = false;
 
         servletUtilAdapter.setNoCache(response);
 
@@ -430,36 +516,103 @@ public class AuraServlet extends AuraBaseServlet {
         if (servletUtilAdapter.actionServletPostPre(request, response)) {
             return;
         }
+        if (actionExecutor != null) {
+            if (request.isAsyncSupported()) {
+                postAsync(request, response, context);
+                return;
+            }
+            if (warnedAsyncUnsupported.compareAndSet(false, true)) {
+                LOG.warn(ASYNC_ACTIONS_PARAM + " is on, but a filter in front of " + getServletName()
+                        + " is not async-supported, so actions run on the container threads."
+                        + " A compression filter has to be kept off the servlet or replaced by one that supports"
+                        + " async requests.");
+            }
+        }
+        post(request, response, context);
+    }
+
+    /**
+     * Hand the message over to the action executor, freeing the container thread while the actions run.
+     *
+     * The context and logging context of the request go along, the executor thread finishes the logging and ends the
+     * context instead of {@link AuraContextFilter}. When the executor is saturated the request gets a 503.
+     */
+    private void postAsync(final HttpServletRequest request, final HttpServletResponse response,
+            final AuraContext context) {
+        final LoggingContext loggingContext = loggingService.getLoggingContext();
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        // actions are bounded by the executor, not by a timeout
+        asyncContext.setTimeout(0);
+        request.setAttribute(ASYNC_ACTIONS_ATTRIBUTE, Boolean.TRUE);
+        try {
+            actionExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    contextService.attachContext(context, loggingContext);
+                    try {
+                        post(request, response, context);
+                    } catch (Throwable t) {
+                        exceptionAdapter.handleException(t);
+                    } finally {
+                        try {
+                            try {
+                                loggingService.setValue(LoggingService.STATUS, String.valueOf(response.getStatus()));
+                            } catch (Throwable t) {
+                                // ignore.
+                            }
+                            loggingService.flush();
+                        } finally {
+                            contextService.endContext();
+                            asyncContext.complete();
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            // Too many actions waiting, shed the load. The context filter logs and ends the context as usual.
+            request.removeAttribute(ASYNC_ACTIONS_ATTRIBUTE);
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            asyncContext.complete();
+        }
+    }
+
+    private void post(HttpServletRequest request, HttpServletResponse response, AuraContext context)
+            throws ServletException, IOException {
+        boolean written = false;
         try {
             if (context.getFormat() != Format.JSON) {
                 throw new AuraRuntimeException("Invalid request, post must use JSON");
             }
             response.setContentType(servletUtilAdapter.getContentType(Format.JSON));
-            String msg = messageParam.get(request);
-            if (msg == null) {
+            boolean messageBody = isMessageBody(request);
+            String msg = messageBody ? null : messageParam.get(request);
+            if (!messageBody && msg == null) {
                 throw new AuraRuntimeException("Invalid request, no message");
             }
 
             String fwUID = configAdapter.getAuraFrameworkNonce();
             if (!fwUID.equals(context.getFrameworkUID())) {
-                if (UNKNOWN_FRAMEWORK_UID.equals(context.getFrameworkUID()) && msg.contains(REPORT_ERROR_ACTION)) {
+                if (UNKNOWN_FRAMEWORK_UID.equals(context.getFrameworkUID())
+                        && (messageBody || msg.contains(REPORT_ERROR_ACTION))) {
                     // we had a serious boostrap issue and want to log the failed action (5x reload)
-                    Message message = serializationService.read(new StringReader(msg), Message.class);
-                    List<Action> actions = message.getActions();
-                    // with an unknown fwuid, only execute failed actions. we don't want anything else potentially creeping in.
-                    // at this point the sid should have already been checked and the user is authenticated, but their browser is in a hosed state
-                    Iterator<Action> actionsIterator = actions.iterator();
-                    while(actionsIterator.hasNext()) {
-                        Action action = actionsIterator.next();
-                        if (action == null || action.getDescriptor() == null || !REPORT_ERROR_ACTION.equals(action.getDescriptor().getDescriptorName())) {
-                            // since actions was a reference from message, we're actually modifying the list of actions in 'message'
-                            actionsIterator.remove();
+                    Message message = readFailedActions(request, msg);
+                    if (message != null) {
+                        List<Action> actions = message.getActions();
+                        // with an unknown fwuid, only execute failed actions. we don't want anything else potentially creeping in.
+                        // at this point the sid should have already been checked and the user is authenticated, but their browser is in a hosed state
+                        Iterator<Action> actionsIterator = actions.iterator();
+                        while(actionsIterator.hasNext()) {
+                            Action action = actionsIterator.next();
+                            if (action == null || action.getDescriptor() == null || !REPORT_ERROR_ACTION.equals(action.getDescriptor().getDescriptorName())) {
+                                // since actions was a reference from message, we're actually modifying the list of actions in 'message'
+                                actionsIterator.remove();
+                            }
+                        }
+                        // this will write the response to the output, and then the COOS will be appended, so the resulting json response will be invalid
+                        // but this case should only happen when the code isn't even checking for a response.
+                        if (actions.size() > 0) {
+                            serverService.run(message, context, response.getWriter(), null);
                         }
-                    }
-                    // this will write the response to the output, and then the COOS will be appended, so the resulting json response will be invalid
-                    // but this case should only happen when the code isn't even checking for a response.
-                    if (actions.size() > 0) {
-                        serverService.run(message, context, response.getWriter(), null);
                     }
                 }
                 throw new ClientOutOfSyncException("Framework has been updated. Expected: " + fwUID +
@@ -485,7 +638,7 @@ public class AuraServlet extends AuraBaseServlet {
             Message message;
             loggingService.startTimer(LoggingService.TIMER_DESERIALIZATION);
             try {
-                message = serializationService.read(new StringReader(msg), Message.class);
+                message = readMessage(request, msg);
             } finally {
                 loggingService.stopTimer(LoggingService.TIMER_DESERIALIZATION);
             }
@@ -494,7 +647,7 @@ public class AuraServlet extends AuraBaseServlet {
             boolean isBootstrapAction = isBootstrapAction(message, servletUtilAdapter.isProductionMode(context.getMode()));
 
             if (!isBootstrapAction) {
-                configAdapter.validateCSRFToken(csrfToken.get(request));
+                configAdapter.validateCSRFToken(getCSRFToken(request, messageBody));
             }
 
             // Knowing the app, we can do the HTTP headers, some of which depend on
@@ -521,6 +674,87 @@ public class AuraServlet extends AuraBaseServlet {
         }
     }
 
+    /**
+     * Whether the message is the body of the request rather than a parameter.
+     */
+    static boolean isMessageBody(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.regionMatches(true, 0, MESSAGE_BODY_CONTENT_TYPE, 0,
+                MESSAGE_BODY_CONTENT_TYPE.length());
+    }
+
+    /**
+     * Read the message, either from the parameter or straight from the body of the request.
+     *
+     * The body is parsed as it comes in, so it is never held as a whole, and the length limits of the JSON reader apply
+     * to it as it is read.
+     *
+     * @param msg the message parameter, null when the message is the body.
+     */
+    private Message readMessage(HttpServletRequest request, String msg) throws IOException, QuickFixException {
+        if (msg != null) {
+            return serializationService.read(new StringReader(msg), Message.class);
+        }
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding(UTF_ENCODING);
+        }
+        Reader body = request.getReader();
+        return serializationService.read(body, Message.class);
+    }
+
+    /**
+     * Read the message of a client with an unknown framework, for the failed actions it is reporting.
+     *
+     * As with the parameter, a body is only parsed if it names the error report action, so nothing else sent by such a
+     * client gets deserialized. A body too long to hold or a message that doesn't read has nothing to report.
+     *
+     * @param msg the message parameter, null when the message is the body.
+     * @return the message, or null if there are no failed actions in it.
+     */
+    private Message readFailedActions(HttpServletRequest request, String msg) throws IOException, QuickFixException {
+        if (msg != null) {
+            return readMessage(request, msg);
+        }
+        try {
+            if (request.getCharacterEncoding() == null) {
+                request.setCharacterEncoding(UTF_ENCODING);
+            }
+            String body = readAtMost(request.getReader(), MAX_FAILED_ACTIONS_LENGTH);
+            if (body == null || !body.contains(REPORT_ERROR_ACTION)) {
+                return null;
+            }
+            return readMessage(request, body);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return all that the reader has, or null if that is more than the given number of chars.
+     */
+    private static String readAtMost(Reader reader, int maxLength) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            if (sb.length() + read > maxLength) {
+                return null;
+            }
+            sb.append(buffer, 0, read);
+        }
+        return sb.toString();
+    }
+
+    private static String getCSRFToken(HttpServletRequest request, boolean messageBody) {
+        if (messageBody) {
+            String token = request.getHeader(TOKEN_HEADER);
+            if (token != null) {
+                return token;
+            }
+        }
+        return csrfToken.get(request);
+    }
+
     /**
      * Get tag name from params.
      *
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.http;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.auraframework.def.ApplicationDef;
+import org.auraframework.def.BaseComponentDef;
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DefDescriptor.DefType;
+import org.auraframework.service.DefinitionService;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * The decoded aura.context parameter.
+ *
+ * The client sends the same context with most of its requests, so the filter decodes it once, including the
+ * descriptors of the loaded definitions, and shares the result between the requests that send it. Nothing here
+ * depends on the request, and nothing here may be changed once built.
+ */
+class ContextConfig {
+    private final Map<String, Object> map;
+    private final DefDescriptor<? extends BaseComponentDef> appDescriptor;
+    private final Map<DefDescriptor<?>, String> loaded;
+    private final List<String> dynamicNamespaces;
+    private final Map<String, Object> globals;
+
+    @SuppressWarnings("unchecked")
+    ContextConfig(Map<String, Object> map, DefinitionService definitionService) {
+        this.map = Collections.unmodifiableMap(map);
+
+        String appName = (String) map.get("app");
+        String cmpName = appName == null ? (String) map.get("cmp") : null;
+        if (appName != null) {
+            this.appDescriptor = definitionService.getDefDescriptor(appName, ApplicationDef.class);
+        } else if (cmpName != null) {
+            this.appDescriptor = definitionService.getDefDescriptor(cmpName, ComponentDef.class);
+        } else {
+            this.appDescriptor = null;
+        }
+
+        this.loaded = readLoaded(map.get("loaded"), definitionService);
+
+        List<Object> dns = (List<Object>) map.get("dn");
+        if (dns != null) {
+            List<String> names = Lists.newArrayListWithCapacity(dns.size());
+            for (Object dn : dns) {
+                names.add((String) dn);
+            }
+            this.dynamicNamespaces = Collections.unmodifiableList(names);
+        } else {
+            this.dynamicNamespaces = Collections.emptyList();
+        }
+
+        Map<String, Object> gvp = (Map<String, Object>) map.get("globals");
+        this.globals = gvp != null ? Collections.unmodifiableMap(gvp) : null;
+    }
+
+    /**
+     * Pull in the map of loaded defDescriptors and uids from the context.
+     */
+    private static Map<DefDescriptor<?>, String> readLoaded(Object loadedEntry, DefinitionService definitionService) {
+        if (loadedEntry == null || !(loadedEntry instanceof Map)) {
+            //
+            // If someone gives us bogus input, just ignore it.
+            //
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> loaded = (Map<String, String>) loadedEntry;
+        Map<DefDescriptor<?>, String> clientLoaded = Maps.newHashMap();
+
+        for (Map.Entry<String, String> entry : loaded.entrySet()) {
+            String uid = entry.getValue();
+            if (uid != null && !uid.equals("null")) {
+                String key = entry.getKey();
+                int posn = key.indexOf("@");
+                if (posn > 0) {
+                    String typeStr = key.substring(0, posn);
+                    String defStr = key.substring(posn + 1);
+                    DefType type = null;
+                    try {
+                        type = DefType.valueOf(typeStr);
+                    } catch (Throwable t) {
+                        // ignore unknown types...
+                        // We really should log these at a level where we can
+                        // see them, but, well, we don't have that now.
+                    }
+                    if (type != null) {
+                        clientLoaded.put(definitionService.getDefDescriptor(defStr, type.getPrimaryInterface()), uid);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableMap(clientLoaded);
+    }
+
+    /**
+     * @return the raw config, read only.
+     */
+    Map<String, Object> getMap() {
+        return map;
+    }
+
+    /**
+     * @return the descriptor of the app, or of the component if there is no app, or null.
+     */
+    DefDescriptor<? extends BaseComponentDef> getAppDescriptor() {
+        return appDescriptor;
+    }
+
+    /**
+     * @return the definitions the client has loaded with their uids, or null if the config has none.
+     */
+    Map<DefDescriptor<?>, String> getLoaded() {
+        return loaded;
+    }
+
+    List<String> getDynamicNamespaces() {
+        return dynamicNamespaces;
+    }
+
+    String getFrameworkUID() {
+        return (String) map.get("fwuid");
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> getStyleContext() {
+        return (Map<String, Object>) map.get("styleContext");
+    }
+
+    /**
+     * @return the values of the globals, or null.
+     */
+    Map<String, Object> getGlobals() {
+        return globals;
+    }
+}
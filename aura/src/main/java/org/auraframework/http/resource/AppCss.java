@@ -42,6 +42,15 @@ public class AppCss extends AuraResourceImpl {
         }
 
         try {
+            String key = serverService.getAppCssCacheKey();
+            if (key != null) {
+                boolean compress = acceptsGzip(request);
+                if (checkNotModified(request, response, compress, getName(), key)) {
+                    return;
+                }
+                writeCached(response, compress, key, out -> serverService.writeAppCssUncached(dependencies, out));
+                return;
+            }
             serverService.writeAppCss(dependencies, response.getWriter());
         } catch (Throwable t) {
             servletUtilAdapter.handleServletException(t, false, context, request, response, false);
@@ -17,7 +17,7 @@
 package org.auraframework.http.resource;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
@@ -27,6 +27,7 @@ import org.auraframework.annotations.Annotations.ServiceComponent;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
+import org.auraframework.throwable.quickfix.QuickFixException;
 
 @ServiceComponent
 public class AppJs extends AuraResourceImpl {
@@ -45,14 +46,35 @@ public class AppJs extends AuraResourceImpl {
         }
 
         try {
-            PrintWriter writer = response.getWriter();
-            writer.append(APPJS_PREPEND);
-            serverService.writeDefinitions(dependencies, writer);
-            writer.append(APPJS_APPEND);
+            String key = serverService.getDefinitionsCacheKey();
+            if (key != null) {
+                boolean compress = acceptsGzip(request);
+                if (checkNotModified(request, response, compress, getName(), key)) {
+                    return;
+                }
+                writeCached(response, compress, key, out -> writeAppJs(dependencies, out, false));
+                return;
+            }
+            writeAppJs(dependencies, response.getWriter(), true);
         } catch (Throwable t) {
             servletUtilAdapter.handleServletException(t, false, context, request, response, false);
             exceptionAdapter.handleException(new AuraResourceException(getName(), response.getStatus(), t));
         }
     }
 
+    /**
+     * @param cacheDefinitions whether to keep the definitions in the strings cache, there's no need when the output is
+     *            kept in another form.
+     */
+    private void writeAppJs(Set<DefDescriptor<?>> dependencies, Writer writer, boolean cacheDefinitions)
+            throws IOException, QuickFixException {
+        writer.append(APPJS_PREPEND);
+        if (cacheDefinitions) {
+            serverService.writeDefinitions(dependencies, writer);
+        } else {
+            serverService.writeDefinitionsUncached(dependencies, writer);
+        }
+        writer.append(APPJS_APPEND);
+    }
+
 }
@@ -16,21 +16,34 @@
 
 package org.auraframework.http.resource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Enumeration;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.output.TeeOutputStream;
 import org.auraframework.adapter.ConfigAdapter;
 import org.auraframework.adapter.ExceptionAdapter;
 import org.auraframework.adapter.ServletUtilAdapter;
 import org.auraframework.annotations.Annotations.ServiceComponent;
+import org.auraframework.cache.Cache;
 import org.auraframework.http.ManifestUtil;
 import org.auraframework.http.RequestParam.StringParam;
+import org.auraframework.service.CachingService;
 import org.auraframework.service.ContextService;
 import org.auraframework.service.DefinitionService;
 import org.auraframework.service.InstanceService;
@@ -38,10 +51,15 @@ import org.auraframework.service.ServerService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraResource;
+import org.auraframework.throwable.quickfix.QuickFixException;
 import org.auraframework.util.AuraTextUtil;
+import org.auraframework.util.IOUtil;
 import org.auraframework.util.json.JsonReader;
+import org.auraframework.util.text.Hash;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.Maps;
+import com.google.common.net.HttpHeaders;
 
 @ServiceComponent
 public abstract class AuraResourceImpl implements AuraResource {
@@ -55,6 +73,7 @@ public abstract class AuraResourceImpl implements AuraResource {
     protected ServerService serverService;
     protected InstanceService instanceService;
     protected ExceptionAdapter exceptionAdapter;
+    protected CachingService cachingService;
     protected ManifestUtil manifestUtil;
 
     public AuraResourceImpl(String name, Format format) {
@@ -156,6 +175,16 @@ public abstract class AuraResourceImpl implements AuraResource {
         this.contextService = contextService;
     }
 
+    /**
+     * Injection override.
+     *
+     * @param cachingService the CachingService to set
+     */
+    @Inject
+    public void setCachingService(CachingService cachingService) {
+        this.cachingService = cachingService;
+    }
+
     @PostConstruct
     public void initManifest() {
         this.manifestUtil = new ManifestUtil(definitionService, contextService, configAdapter);
@@ -196,6 +225,183 @@ public abstract class AuraResourceImpl implements AuraResource {
         }
     }
 
+    /**
+     * Something that writes out the content of a resource.
+     */
+    protected interface ContentWriter {
+        void write(Writer out) throws IOException, QuickFixException;
+    }
+
+    /**
+     * Check whether the client accepts a gzip content encoding.
+     *
+     * @param request the request, may be null.
+     * @return true if gzip is listed in Accept-Encoding without a zero quality.
+     */
+    public static boolean acceptsGzip(HttpServletRequest request) {
+        if (request == null) {
+            return false;
+        }
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip") || name.equals("*")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=") && param.substring(2).trim().matches("0(\\.0*)?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write out a cached resource, gzipped for clients that take it.
+     *
+     * The gzipped bytes are the one form of the content that is kept. They are the smallest, they go out as they are to
+     * clients that take gzip, and the others get them decompressed on the way out. They are kept in the compressed
+     * strings cache under the resource name and the key of the content.
+     *
+     * On a miss the content goes to the client as it is written, while the gzipped copy is kept on the side. The copy
+     * is only cached once all the content is written, so a failure part way through leaves nothing in the cache. Two
+     * requests that miss at the same time both write the content, and the last one to finish is kept.
+     *
+     * No output may have been written to the response yet.
+     *
+     * @param compress whether the client takes gzip.
+     * @param key the key the content is cached under (see {@link ServerService}).
+     * @param content writes the content.
+     */
+    protected void writeCached(HttpServletResponse response, boolean compress, String key, ContentWriter content)
+            throws IOException, QuickFixException {
+        Cache<String, byte[]> cache = cachingService.getCompressedStringsCache();
+        String cacheKey = getName() + "@" + key;
+        byte[] compressed = cache.getIfPresent(cacheKey);
+        if (compressed != null) {
+            if (compress) {
+                writeCompressed(response, compressed);
+            } else {
+                writeDecompressed(response, compressed);
+            }
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        GZIPOutputStream gzip;
+        OutputStream out;
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compress) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            gzip = new GZIPOutputStream(new TeeOutputStream(response.getOutputStream(), bytes), 8192);
+            out = gzip;
+        } else {
+            gzip = new GZIPOutputStream(bytes, 8192);
+            out = new TeeOutputStream(response.getOutputStream(), gzip);
+        }
+        // the response is left open, for the error handling to write to if the content fails part way through
+        Writer writer = new OutputStreamWriter(out, Charsets.UTF_8);
+        content.write(writer);
+        writer.flush();
+        gzip.finish();
+        cache.put(cacheKey, bytes.toByteArray());
+    }
+
+    /**
+     * Write out gzipped content, along with the headers describing it.
+     *
+     * No output may have been written to the response yet.
+     */
+    protected static void writeCompressed(HttpServletResponse response, byte[] compressed) throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(compressed.length);
+        response.getOutputStream().write(compressed);
+    }
+
+    /**
+     * Write out gzipped content decompressed, for clients that don't take gzip, along with its length.
+     *
+     * No output may have been written to the response yet.
+     */
+    protected static void writeDecompressed(HttpServletResponse response, byte[] compressed) throws IOException {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        // the gzip trailer ends with the length of the content, modulo 2^32
+        int length = ByteBuffer.wrap(compressed, compressed.length - 4, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        if (length >= 0) {
+            response.setContentLength(length);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed), 8192)) {
+            IOUtil.copyStream(in, response.getOutputStream());
+        }
+    }
+
+    /**
+     * Set a strong validator on the response, and answer a conditional request for it.
+     *
+     * The validator is a hash of values that fully determine the content, such as the keys it is cached under, so it
+     * can be checked before any of the content is generated. The content encoding is part of it, since the gzipped and
+     * plain variants are different bytes.
+     *
+     * @param request the request, may be null.
+     * @param response the response.
+     * @param compressed whether the content will be sent gzipped.
+     * @param parts the values determining the content.
+     * @return true if If-None-Match matched and a 304 has been sent, in which case nothing else should be written.
+     */
+    protected static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response,
+            boolean compressed, Object... parts) {
+        return checkNotModified(request, response, "\"" + hash(parts) + (compressed ? "-gzip" : "") + "\"");
+    }
+
+    /**
+     * Hash values that determine some content, for a validator or a cache key.
+     */
+    protected static String hash(Object... parts) {
+        Hash.StringBuilder hash = new Hash.StringBuilder();
+        for (Object part : parts) {
+            String value = String.valueOf(part);
+            // the length keeps adjacent parts from running into each other
+            hash.addString(value.length() + ":");
+            hash.addString(value);
+        }
+        return hash.build().toString();
+    }
+
+    /**
+     * Set a validator on the response, and answer a conditional request for it.
+     *
+     * @param request the request, may be null.
+     * @param response the response.
+     * @param etag the entity tag of the content, quoted.
+     * @return true if If-None-Match matched and a 304 has been sent, in which case nothing else should be written.
+     */
+    public static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+
+        String ifNoneMatch = request != null ? request.getHeader(HttpHeaders.IF_NONE_MATCH) : null;
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    // If-None-Match uses the weak comparison
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals(etag) || candidate.equals("*")) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Wrapper exception for the exceptions occurred while creating Aura resource, so that
      * we are able to centrally handle the exceptions from resources.
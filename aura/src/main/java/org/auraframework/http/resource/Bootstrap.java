@@ -20,18 +20,25 @@ import java.io.PrintWriter;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.auraframework.annotations.Annotations.ServiceComponent;
+import org.auraframework.cache.Cache;
 import org.auraframework.def.ApplicationDef;
 import org.auraframework.def.BaseComponentDef;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.def.Definition;
+import org.auraframework.instance.GlobalValueProvider;
 import org.auraframework.instance.Instance;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
@@ -46,10 +53,27 @@ import org.auraframework.util.json.JsonSerializationContext;
 @ServiceComponent
 public class Bootstrap extends AuraResourceImpl {
 
+    /**
+     * The number of bootstrap data payloads kept, by app uid, locale, mode and client type.
+     */
+    private static final int BOOTSTRAP_CACHE_SIZE = Integer.getInteger("aura.cache.bootstrapCacheSize", 100);
+
+    private Cache<String, CachedData> bootstrapCache;
+
     public Bootstrap() {
         super("bootstrap.js", Format.JS);
     }
 
+    @PostConstruct
+    public void initBootstrapCache() {
+        bootstrapCache = cachingService.<String, CachedData> getCacheBuilder()
+                .setInitialSize(BOOTSTRAP_CACHE_SIZE)
+                .setMaximumSize(BOOTSTRAP_CACHE_SIZE)
+                .setRecordStats(true)
+                .setName("bootstrapCache")
+                .setSoftValues(true).build();
+    }
+
     // note: these code blocks must stay in sync with fallback.bootstrap.js
     private final static String PREPEND_JS = "window.Aura || (window.Aura = {});\n" +
             "window.Aura.bootstrap || (window.Aura.bootstrap = {});\n" +
@@ -84,19 +108,25 @@ public class Bootstrap extends AuraResourceImpl {
 
     protected void setCacheHeaders(HttpServletResponse response, DefDescriptor<? extends BaseComponentDef> appDesc)
             throws QuickFixException {
-        Integer cacheExpiration = null;
-        if (appDesc.getDefType() == DefType.APPLICATION) {
-            // only app has bootstrap cache capability
-            ApplicationDef appDef = (ApplicationDef) definitionService.getDefinition(appDesc);
-            cacheExpiration = appDef.getBootstrapPublicCacheExpiration();
-        }
-        if (cacheExpiration != null && cacheExpiration > 0) {
+        if (isPubliclyCached(appDesc)) {
+            Integer cacheExpiration = ((ApplicationDef) definitionService.getDefinition(appDesc))
+                    .getBootstrapPublicCacheExpiration();
             servletUtilAdapter.setCacheTimeout(response, cacheExpiration.longValue() * 1000);
         } else {
             servletUtilAdapter.setNoCache(response);
         }
     }
 
+    private boolean isPubliclyCached(DefDescriptor<? extends BaseComponentDef> appDesc) throws QuickFixException {
+        if (appDesc.getDefType() != DefType.APPLICATION) {
+            // only app has bootstrap cache capability
+            return false;
+        }
+        Integer cacheExpiration = ((ApplicationDef) definitionService.getDefinition(appDesc))
+                .getBootstrapPublicCacheExpiration();
+        return cacheExpiration != null && cacheExpiration > 0;
+    }
+
     @Override
     public void write(HttpServletRequest request, HttpServletResponse response, AuraContext context)
             throws IOException {
@@ -115,22 +145,70 @@ public class Bootstrap extends AuraResourceImpl {
             }
 
             setCacheHeaders(response, app);
-            Instance<?> appInstance = instanceService.getInstance(desc, getComponentAttributes(request));
+            Map<String, Object> attributes = getComponentAttributes(request);
+
+            // A publicly cached bootstrap is the same for everyone asking for the same url, so it can be validated
+            // by what the url is made of. With appcache it carries a fresh CSRF token instead.
+            if (isPubliclyCached(app) && !manifestUtil.isManifestEnabled()
+                    && checkNotModified(request, response, false, getName(), definitionService.getUid(null, desc),
+                            context.getFrameworkUID(), context.getEncodedURL(AuraContext.EncodingStyle.Normal),
+                            context.getRequestedLocales(), attributes)) {
+                return;
+            }
+
+            String cacheKey = getCacheKey(app, desc, attributes, context);
+            CachedData cached = cacheKey != null ? bootstrapCache.getIfPresent(cacheKey) : null;
+            if (cached == CachedData.NOT_CACHEABLE) {
+                cacheKey = null;
+                cached = null;
+            }
+            Instance<?> appInstance = null;
+            List<Object> contributions = null;
+            if (cached == null) {
+                if (cacheKey != null) {
+                    // what a hit leaves in the context, to compare with what creating the app adds to it.
+                    definitionService.updateLoaded(desc);
+                    loadLabels();
+                    contributions = getContextContributions(context);
+                }
+                appInstance = instanceService.getInstance(desc, attributes);
+            }
             definitionService.updateLoaded(desc);
             loadLabels();
+            if (contributions != null && !contributions.equals(getContextContributions(context))) {
+                // the app brought definitions or values into the context that a hit would leave out.
+                bootstrapCache.put(cacheKey, CachedData.NOT_CACHEABLE);
+                cacheKey = null;
+            }
 
             JsonSerializationContext serializationContext = context.getJsonSerializationContext();
+            Appendable out;
+            JsonEncoder json;
+            String md5;
 
-            WrappedPrintWriter out = new WrappedPrintWriter(response.getWriter());
-            out.append(PREPEND_JS);
-            JsonEncoder json = JsonEncoder.createJsonStream(out, serializationContext);
-            json.writeMapBegin();
-            json.writeMapKey("data");
-            json.writeMapBegin();
-            json.writeMapEntry("app", appInstance);
-            context.getInstanceStack().serializeAsPart(json);
-            json.writeMapEnd();
-            json.writeMapEntry("md5", out.getMD5());
+            if (cacheKey == null) {
+                WrappedPrintWriter hashed = new WrappedPrintWriter(response.getWriter());
+                out = hashed;
+                out.append(PREPEND_JS);
+                json = JsonEncoder.createJsonStream(out, serializationContext);
+                json.writeMapBegin();
+                json.writeMapKey("data");
+                writeData(json, appInstance, context);
+                md5 = hashed.getMD5();
+            } else {
+                if (cached == null) {
+                    cached = createCachedData(appInstance, context);
+                    bootstrapCache.put(cacheKey, cached);
+                }
+                out = response.getWriter();
+                out.append(PREPEND_JS);
+                json = JsonEncoder.createJsonStream(out, serializationContext);
+                json.writeMapBegin();
+                json.writeMapKey("data");
+                json.writeLiteral(cached.data);
+                md5 = cached.md5;
+            }
+            json.writeMapEntry("md5", md5);
             json.writeMapEntry("context", context);
 
             // CSRF token is usually handled in inline.js, but in the few cases
@@ -158,11 +236,91 @@ public class Bootstrap extends AuraResourceImpl {
         }
     }
 
+    private void writeData(JsonEncoder json, Instance<?> appInstance, AuraContext context) throws IOException {
+        json.writeMapBegin();
+        json.writeMapEntry("app", appInstance);
+        context.getInstanceStack().serializeAsPart(json);
+        json.writeMapEnd();
+    }
+
+    /**
+     * Get the key for the data of a bootstrap that is the same for everyone.
+     *
+     * Only a publicly cached bootstrap, without attributes, is known not to depend on the user. Its data depends on
+     * nothing but what is in the key, the context and token around it are still written for each request. A hit
+     * skips creating the app, so the data is only kept if creating it adds nothing to that context.
+     *
+     * @return the key, or null if the data must be built for this request.
+     */
+    private String getCacheKey(DefDescriptor<? extends BaseComponentDef> app, DefDescriptor<?> desc,
+            Map<String, Object> attributes, AuraContext context) throws QuickFixException {
+        if (bootstrapCache == null || !attributes.isEmpty() || !isPubliclyCached(app)) {
+            return null;
+        }
+        String uid = definitionService.getUid(null, desc);
+        if (uid == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(uid);
+        key.append('|').append(context.getFrameworkUID());
+        key.append('|').append(context.getMode());
+        key.append('|').append(context.getClient() != null ? context.getClient().getType() : null);
+        key.append('|').append(context.getRequestedLocales());
+        key.append('|').append(context.isModulesEnabled());
+        return key.toString();
+    }
+
+    /**
+     * Get what the context writes around the data that can be changed by creating the app: the local definitions,
+     * which are serialized unless preloaded and whose labels are loaded, what is loaded, and the values of the global
+     * value providers.
+     */
+    private List<Object> getContextContributions(AuraContext context) {
+        Map<String, String> values = new HashMap<>();
+        for (Map.Entry<String, GlobalValueProvider> entry : context.getGlobalProviders().entrySet()) {
+            values.put(entry.getKey(),
+                    JsonEncoder.serialize(entry.getValue().getData(), context.getJsonSerializationContext()));
+        }
+        return Arrays.<Object> asList(new HashSet<>(context.filterLocalDefs(null).keySet()),
+                new HashMap<>(context.getLoaded()), values);
+    }
+
+    /**
+     * Serialize the data on the side, with the md5 of everything that comes before the md5 entry, as it would have
+     * been written to the response.
+     */
+    private CachedData createCachedData(Instance<?> appInstance, AuraContext context) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        WrappedPrintWriter out = new WrappedPrintWriter(sb);
+        out.append(PREPEND_JS);
+        JsonEncoder json = JsonEncoder.createJsonStream(out, context.getJsonSerializationContext());
+        json.writeMapBegin();
+        json.writeMapKey("data");
+        int start = sb.length();
+        writeData(json, appInstance, context);
+        return new CachedData(sb.substring(start), out.getMD5());
+    }
+
+    private static class CachedData {
+        /**
+         * Marks a key whose app adds to the context as it is created, so its data is built for each request.
+         */
+        private static final CachedData NOT_CACHEABLE = new CachedData(null, null);
+
+        private final String data;
+        private final String md5;
+
+        CachedData(String data, String md5) {
+            this.data = data;
+            this.md5 = md5;
+        }
+    }
+
     private static class WrappedPrintWriter implements Appendable {
-        private final PrintWriter inner;
+        private final Appendable inner;
         private final MessageDigest m;
 
-        WrappedPrintWriter(PrintWriter inner) {
+        WrappedPrintWriter(Appendable inner) {
             try {
                 m = MessageDigest.getInstance("MD5");
             } catch (NoSuchAlgorithmException e) {
@@ -191,7 +349,7 @@ public class Bootstrap extends AuraResourceImpl {
         }
 
         public void updateMD5(CharSequence csq, int start, int end) {
-            byte[] data = csq.toString().getBytes();
+            byte[] data = csq.subSequence(start, end).toString().getBytes();
             m.update(data, 0, data.length);
         }
 
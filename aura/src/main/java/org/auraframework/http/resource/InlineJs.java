@@ -18,8 +18,8 @@ package org.auraframework.http.resource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.Writer;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -106,14 +106,36 @@ public class InlineJs extends AuraResourceImpl {
             definitionService.assertAccess(referencingDescriptor, def);
         }
 
+        boolean compress = acceptsGzip(request);
+        String key = null;
         if (shouldCacheHTMLTemplate(defDescriptor, request, context)) {
             servletUtilAdapter.setLongCache(response);
+
+            // Long cached output is taken to follow from its url, so it can be validated by what the url is made of,
+            // plus the locale data and the token that are mixed in. The same values key its gzipped variant.
+            AuraLocale auraLocale = localizationAdapter.getAuraLocale();
+            key = hash(definitionService.getUid(null, defDescriptor), context.getFrameworkUID(),
+                    context.getEncodedURL(AuraContext.EncodingStyle.Normal), getComponentAttributes(request),
+                    auraLocale.getLanguageLocale(), auraLocale.getLocale(),
+                    manifestUtil.isManifestEnabled() ? null : configAdapter.getCSRFToken());
+            if (checkNotModified(request, response, compress, getName(), key)) {
+                return;
+            }
         } else {
             servletUtilAdapter.setNoCache(response);
         }
 
+        if (key != null) {
+            writeCached(response, compress, key, out -> writeInline(request, def, context, out));
+        } else {
+            // output that isn't long cached may differ on every request, so it isn't worth compressing
+            writeInline(request, def, context, response.getWriter());
+        }
+    }
+
+    private void writeInline(HttpServletRequest request, BaseComponentDef def, AuraContext context, Writer out)
+            throws IOException, QuickFixException {
         // Prevents Mhtml Xss exploit:
-        PrintWriter out = response.getWriter();
         out.write("\n    ");
 
         Component template = serverService.writeTemplate(context, def, getComponentAttributes(request), out);
@@ -122,7 +144,7 @@ public class InlineJs extends AuraResourceImpl {
         renderingService.render(template, null, out);
     }
 
-    private void appendLocaleDataJavascripts(PrintWriter out) {
+    private void appendLocaleDataJavascripts(Writer out) throws IOException {
         AuraLocale auraLocale = localizationAdapter.getAuraLocale();
 
         // Refer to the locale in LocaleValueProvider
@@ -171,7 +193,7 @@ public class InlineJs extends AuraResourceImpl {
      * @param mode current Mode from AuraContext
      * @param out response writer
      */
-    private void appendPreInitJavascripts(BaseComponentDef def, Mode mode, PrintWriter out) {
+    private void appendPreInitJavascripts(BaseComponentDef def, Mode mode, Writer out) throws IOException {
         if (this.preInitJavascripts != null && !this.preInitJavascripts.isEmpty()) {
             StringBuilder sb = new StringBuilder();
             for (PreInitJavascript js : this.preInitJavascripts) {
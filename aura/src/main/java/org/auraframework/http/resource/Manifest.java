@@ -149,6 +149,17 @@ public class Manifest extends AuraResourceImpl {
             attribs.put(LAST_MOD, String.format("app=%s, FW=%s", appUid, nonce));
             attribs.put(UID, appUid);
 
+            // everything else written below follows from the uids and the urls of the context. The token is left
+            // out, it may be new on every call, and on a 304 the appcache keeps the bootstrap.js it already has.
+            if (checkNotModified(request, response, false, getName(), appUid, nonce,
+                    context.getEncodedURL(AuraContext.EncodingStyle.Normal), attributes)) {
+                return;
+            }
+
+            // Add token for bootstrap.js requests
+            // because those requests are issued from script tags in app-cached files
+            String token = configAdapter.generateJwtToken();
+
             StringWriter sw = new StringWriter();
 
             String resetCssUrl = configAdapter.getResetCssURL();
@@ -189,9 +200,6 @@ public class Manifest extends AuraResourceImpl {
                 }
             }
 
-			// Add token for bootstrap.js requests
-			// because those requests are issued from script tags in app-cached files
-			String token = configAdapter.generateJwtToken();
 			if (token != null) {
 				sw.write("# bootstrap token: ");
 				sw.write(token);
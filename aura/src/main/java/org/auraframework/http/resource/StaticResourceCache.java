@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.http.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.auraframework.util.IOUtil;
+import org.auraframework.util.text.Hash;
+
+/**
+ * Bounded in-memory cache of static framework resources.
+ *
+ * Resources served under the current framework nonce can't change until the nonce does, so their bytes are loaded
+ * once, along with a gzipped variant, the lengths and a validator. The bytes live in read-only direct buffers, outside
+ * of the heap, and are written to the response through a channel, which lets containers whose output stream is a
+ * channel send them without copying.
+ *
+ * The total size of the buffers is bounded, the least recently used resources are dropped first.
+ */
+public class StaticResourceCache {
+
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * Only keep the gzipped variant when it saves at least this fraction of the bytes, images and fonts are already
+     * compressed.
+     */
+    private static final double MIN_GZIP_SAVING = 0.1;
+
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+
+    public StaticResourceCache() {
+        this(Long.getLong("aura.cache.staticResourceCacheSize", DEFAULT_MAX_BYTES));
+    }
+
+    public StaticResourceCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the cached resource, or null if it isn't cached.
+     */
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Read a resource and cache it.
+     *
+     * Resources larger than the whole cache are returned without being cached.
+     *
+     * @param key the key to cache it under, which must change whenever the content can.
+     * @param in the content, closed once read.
+     * @return the entry for the content.
+     */
+    public Entry put(String key, InputStream in) throws IOException {
+        Entry entry = load(in);
+        if (entry.getSize() > maxBytes) {
+            return entry;
+        }
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                size -= previous.getSize();
+            }
+            size += entry.getSize();
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (size > maxBytes && eldest.hasNext()) {
+                size -= eldest.next().getSize();
+                eldest.remove();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Read a resource without caching it.
+     *
+     * @param in the content, closed once read.
+     * @return the entry for the content.
+     */
+    public static Entry load(InputStream in) throws IOException {
+        return new Entry(read(in));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * @return the number of bytes held.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try {
+            IOUtil.copyStream(in, bytes);
+        } finally {
+            in.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The content of one resource, immutable once built.
+     */
+    public static class Entry {
+        private final ByteBuffer content;
+        private final ByteBuffer gzipped;
+        private final String eTag;
+
+        Entry(byte[] bytes) throws IOException {
+            content = toDirectBuffer(bytes);
+            byte[] compressed = gzip(bytes);
+            gzipped = compressed.length <= bytes.length * (1 - MIN_GZIP_SAVING) ? toDirectBuffer(compressed) : null;
+            eTag = "\"" + new Hash(md5(bytes)) + "\"";
+        }
+
+        private static ByteBuffer toDirectBuffer(byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes).flip();
+            return buffer.asReadOnlyBuffer();
+        }
+
+        private static byte[] md5(byte[] bytes) {
+            try {
+                return MessageDigest.getInstance("MD5").digest(bytes);
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("MD5 is a required MessageDigest algorithm, but is not registered here.");
+            }
+        }
+
+        private static byte[] gzip(byte[] bytes) throws IOException {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 3 + 64);
+            try (OutputStream out = new GZIPOutputStream(compressed, 8192)) {
+                out.write(bytes);
+            }
+            return compressed.toByteArray();
+        }
+
+        /**
+         * @return whether a gzipped variant is worth sending.
+         */
+        public boolean hasGzip() {
+            return gzipped != null;
+        }
+
+        /**
+         * @param gzip whether to get the length of the gzipped variant, which must exist.
+         */
+        public int getLength(boolean gzip) {
+            return (gzip ? gzipped : content).remaining();
+        }
+
+        /**
+         * @return the strong validator of the content, the gzipped variant appends "-gzip" to it.
+         */
+        public String getETag(boolean gzip) {
+            return gzip ? eTag.substring(0, eTag.length() - 1) + "-gzip\"" : eTag;
+        }
+
+        /**
+         * Write the content, or its gzipped variant, to the given stream.
+         */
+        public void write(OutputStream out, boolean gzip) throws IOException {
+            // each writer gets its own position on the shared bytes
+            ByteBuffer buffer = (gzip ? gzipped : content).duplicate();
+            WritableByteChannel channel = out instanceof WritableByteChannel ? (WritableByteChannel) out
+                    : Channels.newChannel(out);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        long getSize() {
+            return content.capacity() + (gzipped != null ? gzipped.capacity() : 0);
+        }
+    }
+}
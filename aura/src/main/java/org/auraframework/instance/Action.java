@@ -22,6 +22,7 @@ import java.util.Map;
 import org.auraframework.def.ActionDef;
 import org.auraframework.def.ComponentDef;
 import org.auraframework.def.DefDescriptor;
+import org.auraframework.system.Annotations.CacheableAction;
 import org.auraframework.system.LoggingContext.KeyValueLogger;
 import org.auraframework.throwable.AuraExecutionException;
 import org.auraframework.util.javascript.Literal;
@@ -139,4 +140,18 @@ public interface Action extends Instance<ActionDef> {
     String getCallerVersion();
 
     void setCallerVersion(String callerVersion);
+
+    /**
+     * @return whether this action may be run at the same time as the other actions sent with it.
+     */
+    default boolean isParallel() {
+        return false;
+    }
+
+    /**
+     * @return how the result of this action may be cached, or null if it may not be.
+     */
+    default CacheableAction getCacheable() {
+        return null;
+    }
 }
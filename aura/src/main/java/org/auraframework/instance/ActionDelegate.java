@@ -22,6 +22,7 @@ import java.util.Map;
 import org.auraframework.def.ActionDef;
 import org.auraframework.def.ComponentDef;
 import org.auraframework.def.DefDescriptor;
+import org.auraframework.system.Annotations.CacheableAction;
 import org.auraframework.system.LoggingContext.KeyValueLogger;
 import org.auraframework.throwable.AuraExecutionException;
 import org.auraframework.util.json.Json;
@@ -136,5 +137,15 @@ public abstract class ActionDelegate implements Action {
 		original.setCallerVersion(callerVersion);
 	}
 
+    @Override
+    public boolean isParallel() {
+        return original.isParallel();
+    }
+
+    @Override
+    public CacheableAction getCacheable() {
+        return original.getCacheable();
+    }
+
     private Action original;
 }
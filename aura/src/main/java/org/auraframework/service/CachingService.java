@@ -60,6 +60,12 @@ public interface CachingService extends AuraService {
 
     Cache<String, String> getAltStringsCache();
 
+    /**
+     * Compressed (gzip) forms of cached output, keyed like the strings caches. Output kept here needn't be kept in the
+     * strings caches as well.
+     */
+    Cache<String, byte[]> getCompressedStringsCache();
+
     Cache<String, Set<DefDescriptor<?>>> getDescriptorFilterCache();
 
     Cache<String, DependencyEntry> getDepsCache();
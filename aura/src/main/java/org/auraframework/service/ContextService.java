@@ -25,6 +25,7 @@ import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Authentication;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.system.LoggingContext;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -66,6 +67,17 @@ public interface ContextService extends AuraService {
      */
     void endContext();
 
+    /**
+     * Continue on this thread with a context, and its logging context, started on another one.
+     *
+     * This lets a request be finished on a different thread than the one it came in on. The original thread must stop
+     * using the context, and this thread must end it with {@link #endContext()} like any other.
+     *
+     * @param context the context to continue with.
+     * @param loggingContext the logging context of the request, may be null.
+     */
+    void attachContext(AuraContext context, LoggingContext loggingContext);
+
     /**
      * Push a 'system-only' context used for private rendering.
      *
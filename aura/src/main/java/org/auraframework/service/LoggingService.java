@@ -36,6 +36,8 @@ public interface LoggingService extends AuraService {
     public static final String DEF_COUNT = "defCount";
     public static final String DEF_VISIT_COUNT = "defVisitCount";
     public static final String DEF_DESCRIPTOR_COUNT = "defDescriptorCount";
+    public static final String ACTION_CACHE_HITS = "actionCacheHits";
+    public static final String ACTION_CACHE_MISSES = "actionCacheMisses";
     public static final String TIMER_DESERIALIZATION = "deSerialization";
     public static final String AURA_REQUEST_QUERY = "auraRequestQuery";
     public static final String AURA_REQUEST_URI = "auraRequestURI";
@@ -62,6 +64,16 @@ public interface LoggingService extends AuraService {
      * Close and clean up logging context
      */
     void release();
+
+    /**
+     * Get the logging context of this thread, null if none is established.
+     */
+    LoggingContext getLoggingContext();
+
+    /**
+     * Make a logging context established on another thread current on this one.
+     */
+    void attach(LoggingContext loggingContext);
     
     /**
      * Start timers for an action.
@@ -69,6 +69,28 @@ public interface ServerService extends AuraService {
      * @throws QuickFixException if the definitions could not be compiled.
      */
     void writeAppCss(Set<DefDescriptor<?>> dependencies, Writer out) throws IOException, QuickFixException;
+
+    /**
+     * Write out the same CSS as {@link #writeAppCss(Set, Writer)}, without keeping it in the strings cache.
+     * 
+     * This is for callers that keep their own form of the output under {@link #getAppCssCacheKey()}, so it isn't held
+     * twice. CSS that is already in the strings cache is still written from there.
+     * 
+     * @param out the appendable
+     * @throws IOException if unable to write to the response
+     * @throws QuickFixException if the definitions could not be compiled.
+     */
+    void writeAppCssUncached(Set<DefDescriptor<?>> dependencies, Writer out) throws IOException, QuickFixException;
+
+    /**
+     * Get the key under which the output of {@link #writeAppCss(Set, Writer)} is cached for the current context.
+     * 
+     * Output cached under the same key is identical, so the key can be used to cache derived forms of it.
+     * 
+     * @return the key, or null if the CSS is not cached
+     * @throws QuickFixException if the definitions could not be compiled.
+     */
+    String getAppCssCacheKey() throws QuickFixException;
     
     <T extends BaseComponentDef> Component writeTemplate(AuraContext context, T value, Map<String, Object> componentAttributes, Appendable out) throws IOException, QuickFixException;
 
@@ -91,6 +113,24 @@ public interface ServerService extends AuraService {
      */
     void writeDefinitions(Set<DefDescriptor<?>> dependencies, Writer out) throws IOException, QuickFixException;
 
+    /**
+     * Write out the same definitions as {@link #writeDefinitions(Set, Writer)}, without keeping them in the strings
+     * cache.
+     * 
+     * @see #writeAppCssUncached(Set, Writer)
+     */
+    void writeDefinitionsUncached(Set<DefDescriptor<?>> dependencies, Writer out)
+            throws IOException, QuickFixException;
+
+    /**
+     * Get the key under which the output of {@link #writeDefinitions(Set, Writer)} is cached for the current context.
+     * 
+     * @see #getAppCssCacheKey()
+     * @return the key, or null if the definitions are not cached
+     * @throws QuickFixException if the definitions could not be compiled.
+     */
+    String getDefinitionsCacheKey() throws QuickFixException;
+
     /**
      * Write out a set of components in JSON.
      * 
@@ -139,6 +139,16 @@ public interface AuraContext {
             this.defaultValue = defaultValue;
         }
 
+        /**
+         * Copy a global value, for a context that is used on another thread.
+         */
+        public GlobalValue(GlobalValue other) {
+            this.writable = other.writable;
+            this.value = other.value;
+            this.defaultValue = other.defaultValue;
+            this.originalValue = other.originalValue;
+        }
+
         public boolean isWritable() {
             return this.writable;
         }
@@ -239,6 +249,25 @@ public interface AuraContext {
      */
     Action setCurrentAction(Action nextAction);
 
+    /**
+     * Copy this context so that an action can be run with it on another thread.
+     *
+     * The copy has its own current action, component and calling descriptors, and its own copy of the definitions,
+     * dependencies, events and global values, so it can be used while this context is. Global values set on the copy
+     * replace those of this context on join. Settings such as the mode and the application are shared, as are the
+     * global value providers, which must be thread safe, and the limit on the number of components.
+     *
+     * @return the copy, to be handed to {@link #join(AuraContext)} once the action is done.
+     */
+    AuraContext fork();
+
+    /**
+     * Bring back what was added to a context created by {@link #fork()}.
+     *
+     * @param fork the copy, which must not be used any more.
+     */
+    void join(AuraContext fork);
+
     void pushCallingDescriptor(DefDescriptor<?> descriptor);
 
     void popCallingDescriptor();
@@ -15,6 +15,12 @@
  */
 package org.auraframework.system;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class Client {
 
     public static final Client OTHER = new Client();
@@ -34,36 +40,111 @@ public class Client {
 
     public Client(String ua) {
         userAgent = ua;
+        type = ua != null ? classify(ua) : Type.OTHER;
+    }
+
+    /**
+     * Get the client for a user agent, classified once per distinct user agent.
+     *
+     * Requests come from a few thousand distinct user agents at most, so the clients are kept in a bounded cache.
+     * User agents too long to be worth keeping are classified every time.
+     */
+    public static Client get(String ua) {
         if (ua == null) {
-            type = Type.OTHER;
-            return;
+            return OTHER;
+        }
+        if (ua.length() > MAX_CACHED_LENGTH) {
+            return new Client(ua);
+        }
+        Client client = CACHE.getIfPresent(ua);
+        if (client == null) {
+            client = new Client(ua);
+            CACHE.put(ua, client);
+        }
+        return client;
+    }
+
+    private static final int MAX_CACHED_LENGTH = 512;
+
+    private static final Cache<String, Client> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(Integer.getInteger("aura.cache.userAgentCacheSize", 4096)).build();
+
+    /**
+     * All the tokens the type depends on, found in a single pass over the user agent.
+     */
+    private static final Pattern TOKENS = Pattern.compile(
+            "chrome|safari|applewebkit|iphone|ipad|trident(/7\\.0)?|edge(/12)?|firefox|msie (10|[6-9])",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final int CHROME = 1;
+    private static final int SAFARI = 1 << 1;
+    private static final int APPLEWEBKIT = 1 << 2;
+    private static final int IOS = 1 << 3;
+    private static final int TRIDENT = 1 << 4;
+    private static final int TRIDENT_7 = 1 << 5;
+    private static final int EDGE = 1 << 6;
+    private static final int EDGE_12 = 1 << 7;
+    private static final int FIREFOX = 1 << 8;
+    private static final int MSIE_6 = 1 << 9;
+    private static final int MSIE_7 = 1 << 10;
+    private static final int MSIE_8 = 1 << 11;
+    private static final int MSIE_9 = 1 << 12;
+    private static final int MSIE_10 = 1 << 13;
+
+    private static Type classify(String ua) {
+        int found = 0;
+        Matcher m = TOKENS.matcher(ua);
+        while (m.find()) {
+            switch (Character.toLowerCase(ua.charAt(m.start()))) {
+            case 'c':
+                found |= CHROME;
+                break;
+            case 's':
+                found |= SAFARI;
+                break;
+            case 'a':
+                found |= APPLEWEBKIT;
+                break;
+            case 'i':
+                found |= IOS;
+                break;
+            case 't':
+                found |= m.group(1) != null ? TRIDENT | TRIDENT_7 : TRIDENT;
+                break;
+            case 'e':
+                found |= m.group(2) != null ? EDGE | EDGE_12 : EDGE;
+                break;
+            case 'f':
+                found |= FIREFOX;
+                break;
+            default:
+                String version = m.group(3);
+                found |= version.equals("10") ? MSIE_10 : MSIE_6 << (version.charAt(0) - '6');
+            }
         }
 
-        ua = ua.trim().toLowerCase();
-        if ((ua.contains("chrome") || ua.contains("safari") || 
-                (ua.contains("applewebkit") && (ua.contains("iphone") || ua.contains("ipad")))) // ios UIWebView
-                && !ua.contains("trident") && !ua.contains("edge") // IE impersonates
+        if (((found & (CHROME | SAFARI)) != 0 || (found & (APPLEWEBKIT | IOS)) == (APPLEWEBKIT | IOS)) // ios UIWebView
+                && (found & (TRIDENT | EDGE)) == 0 // IE impersonates
         ) {
-            type = Type.WEBKIT;
-        } else if (ua.contains("firefox")) {
-            type = Type.FIREFOX;
-        } else if (ua.contains("msie 10")) {
-            type = Type.IE10;
-        } else if (ua.contains("msie 9")) {
-            type = Type.IE9;
-        } else if (ua.contains("msie 8")) {
-            type = Type.IE8;
-        } else if (ua.contains("msie 7")) {
-            type = Type.IE7;
-        } else if (ua.contains("msie 6")) {
-            type = Type.IE6;
-        } else if (ua.contains("trident/7.0")) {
-            type = Type.IE11;
-        } else if (ua.contains("edge/12")) {
-            type = Type.IE12;
-        } else {
-            type = Type.OTHER;
+            return Type.WEBKIT;
+        } else if ((found & FIREFOX) != 0) {
+            return Type.FIREFOX;
+        } else if ((found & MSIE_10) != 0) {
+            return Type.IE10;
+        } else if ((found & MSIE_9) != 0) {
+            return Type.IE9;
+        } else if ((found & MSIE_8) != 0) {
+            return Type.IE8;
+        } else if ((found & MSIE_7) != 0) {
+            return Type.IE7;
+        } else if ((found & MSIE_6) != 0) {
+            return Type.IE6;
+        } else if ((found & TRIDENT_7) != 0) {
+            return Type.IE11;
+        } else if ((found & EDGE_12) != 0) {
+            return Type.IE12;
         }
+        return Type.OTHER;
     }
 
     public Type getType() {
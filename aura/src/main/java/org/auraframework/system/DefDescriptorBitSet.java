@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.system;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.auraframework.def.DefDescriptor;
+
+/**
+ * A set of descriptors held as bits.
+ *
+ * Every descriptor put in one of these sets is given an ordinal, once, in a table shared by all of them. A set is
+ * then one bit per ordinal, so that unions and intersections of the large dependency sets of apps are word-wise
+ * operations instead of hashing each descriptor.
+ *
+ * Descriptors stay in the table for the life of the server, there is one entry per distinct descriptor that has been
+ * a dependency. Iteration is in ordinal order, not insertion order.
+ *
+ * Not thread safe, as with the java.util sets. Sets that are shared must not be changed.
+ */
+public class DefDescriptorBitSet extends AbstractSet<DefDescriptor<?>> {
+    private static final ConcurrentMap<DefDescriptor<?>, Integer> ordinals = new ConcurrentHashMap<>();
+    private static final Object lock = new Object();
+    private static volatile DefDescriptor<?>[] descriptors = new DefDescriptor<?>[1024];
+    private static int nextOrdinal;
+
+    private final BitSet bits;
+
+    public DefDescriptorBitSet() {
+        this.bits = new BitSet();
+    }
+
+    public DefDescriptorBitSet(Collection<? extends DefDescriptor<?>> descriptors) {
+        this.bits = new BitSet();
+        addAll(descriptors);
+    }
+
+    /**
+     * Get the ordinal of a descriptor, giving it one if it has none.
+     */
+    private static int ordinal(DefDescriptor<?> descriptor) {
+        Integer ordinal = ordinals.get(descriptor);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (lock) {
+            ordinal = ordinals.get(descriptor);
+            if (ordinal == null) {
+                DefDescriptor<?>[] table = descriptors;
+                if (nextOrdinal == table.length) {
+                    DefDescriptor<?>[] grown = new DefDescriptor<?>[table.length * 2];
+                    System.arraycopy(table, 0, grown, 0, table.length);
+                    table = grown;
+                }
+                table[nextOrdinal] = descriptor;
+                // publish the descriptor before its ordinal, readers of a bit must be able to find it.
+                descriptors = table;
+                ordinal = nextOrdinal++;
+                ordinals.put(descriptor, ordinal);
+            }
+            return ordinal;
+        }
+    }
+
+    /**
+     * @return the ordinal of the descriptor, or -1 if no set has ever held it.
+     */
+    private static int existingOrdinal(Object descriptor) {
+        Integer ordinal = ordinals.get(descriptor);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    @Override
+    public boolean add(DefDescriptor<?> descriptor) {
+        int ordinal = ordinal(descriptor);
+        if (bits.get(ordinal)) {
+            return false;
+        }
+        bits.set(ordinal);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends DefDescriptor<?>> c) {
+        if (c instanceof DefDescriptorBitSet) {
+            int before = bits.cardinality();
+            bits.or(((DefDescriptorBitSet) c).bits);
+            return bits.cardinality() != before;
+        }
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c instanceof DefDescriptorBitSet) {
+            int before = bits.cardinality();
+            bits.and(((DefDescriptorBitSet) c).bits);
+            return bits.cardinality() != before;
+        }
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c instanceof DefDescriptorBitSet) {
+            int before = bits.cardinality();
+            bits.andNot(((DefDescriptorBitSet) c).bits);
+            return bits.cardinality() != before;
+        }
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof DefDescriptorBitSet) {
+            BitSet missing = (BitSet) ((DefDescriptorBitSet) c).bits.clone();
+            missing.andNot(bits);
+            return missing.isEmpty();
+        }
+        return super.containsAll(c);
+    }
+
+    /**
+     * @return whether the sets have a descriptor in common.
+     */
+    public boolean intersects(DefDescriptorBitSet other) {
+        return bits.intersects(other.bits);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int ordinal = existingOrdinal(o);
+        return ordinal >= 0 && bits.get(ordinal);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int ordinal = existingOrdinal(o);
+        if (ordinal < 0 || !bits.get(ordinal)) {
+            return false;
+        }
+        bits.clear(ordinal);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        bits.clear();
+    }
+
+    @Override
+    public int size() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    @Override
+    public Iterator<DefDescriptor<?>> iterator() {
+        return new Iterator<DefDescriptor<?>>() {
+            private final DefDescriptor<?>[] table = descriptors;
+            private int next = bits.nextSetBit(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public DefDescriptor<?> next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = bits.nextSetBit(next + 1);
+                return table[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                bits.clear(last);
+                last = -1;
+            }
+        };
+    }
+}
@@ -37,6 +37,10 @@ import org.auraframework.throwable.quickfix.QuickFixException;
 public class DependencyEntry {
     public final String uid;
     public final Set<DefDescriptor<?>> dependencies;
+    /**
+     * The dependencies as bits, for the set operations done on every request. Not to be changed.
+     */
+    public final DefDescriptorBitSet dependencyBits;
     public final List<ClientLibraryDef> clientLibraries;
     public final QuickFixException qfe;
 
@@ -44,6 +48,7 @@ public class DependencyEntry {
                            List<ClientLibraryDef> clientLibraries) {
         this.uid = uid;
         this.dependencies = dependencies;
+        this.dependencyBits = new DefDescriptorBitSet(dependencies);
         this.clientLibraries = Collections.unmodifiableList(clientLibraries);
         this.qfe = null;
     }
@@ -51,6 +56,7 @@ public class DependencyEntry {
     public DependencyEntry(QuickFixException qfe) {
         this.uid = null;
         this.dependencies = null;
+        this.dependencyBits = null;
         this.clientLibraries = null;
         this.qfe = qfe;
     }
@@ -15,17 +15,27 @@
  */
 package org.auraframework.http;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 
 import org.auraframework.adapter.ConfigAdapter;
+import org.auraframework.def.ApplicationDef;
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.service.DefinitionService;
 import org.auraframework.system.AuraContext.Mode;
+import org.auraframework.util.AuraTextUtil;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 import com.google.common.collect.Maps;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
@@ -122,4 +132,60 @@ public class AuraContextFilterUnitTest {
 
         return contextFilter.isModulesEnabled(request, configMap, mode);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testContextConfigDecodedOncePerContent() throws Exception {
+        DefinitionService definitionService = Mockito.mock(DefinitionService.class);
+        DefDescriptor<ApplicationDef> appDesc = Mockito.mock(DefDescriptor.class);
+        DefDescriptor<ComponentDef> cmpDesc = Mockito.mock(DefDescriptor.class);
+        Mockito.doReturn(appDesc).when(definitionService).getDefDescriptor("test:app", ApplicationDef.class);
+        Mockito.doReturn(cmpDesc).when(definitionService).getDefDescriptor("markup://test:cmp", ComponentDef.class);
+        AuraContextFilter contextFilter = new AuraContextFilter();
+        contextFilter.setDefinitionService(definitionService);
+
+        String json = "{\"mode\":\"DEV\",\"app\":\"test:app\",\"fwuid\":\"uid\",\"dn\":[\"ns\"],"
+                + "\"loaded\":{\"COMPONENT@markup://test:cmp\":\"cmpuid\",\"BOGUS@x\":\"1\",\"APPLICATION@markup://test:app\":null}}";
+        ContextConfig config = contextFilter.getContextConfig(createRequest(AuraTextUtil.urlencode(json)));
+
+        assertSame(appDesc, config.getAppDescriptor());
+        assertEquals("uid", config.getFrameworkUID());
+        assertEquals("DEV", config.getMap().get("mode"));
+        assertEquals(Collections.singletonList("ns"), config.getDynamicNamespaces());
+        assertEquals(Collections.singletonMap(cmpDesc, "cmpuid"), config.getLoaded());
+        assertNull(config.getGlobals());
+
+        assertSame(config, contextFilter.getContextConfig(createRequest(AuraTextUtil.urlencode(json))));
+        Mockito.verify(definitionService, Mockito.times(1)).getDefDescriptor("markup://test:cmp", ComponentDef.class);
+        assertTrue(config != contextFilter.getContextConfig(createRequest(json.replace("uid", "uid2"))));
+        assertNull(contextFilter.getContextConfig(createRequest(null)));
+    }
+
+    @Test
+    public void testContextConfigLookedUpOncePerRequest() throws Exception {
+        DefinitionService definitionService = Mockito.mock(DefinitionService.class);
+        AuraContextFilter contextFilter = new AuraContextFilter();
+        contextFilter.setDefinitionService(definitionService);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter(AuraServlet.AURA_PREFIX + "context", "{\"mode\":\"DEV\",\"fwuid\":\"uid\"}");
+
+        ContextConfig config = contextFilter.getContextConfig(request);
+        assertEquals("uid", config.getFrameworkUID());
+        assertSame(config, request.getAttribute(AuraContextFilter.CONTEXT_CONFIG_ATTRIBUTE));
+
+        // the param is not read again.
+        request.setParameter(AuraServlet.AURA_PREFIX + "context", "{\"mode\":\"DEV\",\"fwuid\":\"uid2\"}");
+        assertSame(config, contextFilter.getContextConfig(request));
+        assertEquals(Mode.DEV, contextFilter.getModeParam(request));
+
+        request = new MockHttpServletRequest();
+        assertNull(contextFilter.getContextConfig(request));
+        request.setParameter(AuraServlet.AURA_PREFIX + "context", "{\"fwuid\":\"uid\"}");
+        assertNull(contextFilter.getContextConfig(request));
+    }
+
+    private static HttpServletRequest createRequest(String context) {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getParameter(AuraServlet.AURA_PREFIX + "context")).thenReturn(context);
+        return request;
+    }
+}
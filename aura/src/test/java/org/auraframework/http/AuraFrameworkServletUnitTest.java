@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.http;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.Filter;
+
+import org.auraframework.adapter.ConfigAdapter;
+import org.auraframework.adapter.ServletUtilAdapter;
+import org.auraframework.test.util.CompressingFilterUtil;
+import org.auraframework.util.resource.ResourceLoader;
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Unit tests for serving framework resources through the compression filter of the web.xml.
+ */
+public class AuraFrameworkServletUnitTest extends UnitTestCase {
+    private static final String NONCE = "nonce";
+    private static final String RESOURCE = "/aura/javascript/aura_prod.js";
+
+    private String content;
+    private AuraFrameworkServlet servlet;
+    private Filter filter;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        // enough text that doesn't compress well for the gzipped bytes to be over the filter's threshold
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 8192) {
+            builder.append(Long.toString(random.nextLong(), 36));
+        }
+        content = builder.toString();
+
+        ResourceLoader resourceLoader = Mockito.mock(ResourceLoader.class);
+        Mockito.doReturn(new URL("file:" + RESOURCE)).when(resourceLoader).getResource(RESOURCE);
+        Mockito.when(resourceLoader.getResourceAsStream(RESOURCE))
+                .thenAnswer(invocation -> new ByteArrayInputStream(content.getBytes(Charsets.UTF_8)));
+        ConfigAdapter configAdapter = Mockito.mock(ConfigAdapter.class);
+        Mockito.doReturn(resourceLoader).when(configAdapter).getResourceLoader();
+        Mockito.doReturn(NONCE).when(configAdapter).getAuraFrameworkNonce();
+
+        servlet = new AuraFrameworkServlet();
+        servlet.setConfigAdapter(configAdapter);
+        servlet.setServletUtilAdapter(Mockito.mock(ServletUtilAdapter.class));
+        filter = CompressingFilterUtil.createCompressingFilter();
+    }
+
+    private MockHttpServletResponse get(String nonce) throws Exception {
+        String pathInfo = "/javascript/" + nonce + "/aura_prod.js";
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auraFW" + pathInfo);
+        request.setPathInfo(pathInfo);
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> servlet.service(req, res));
+
+        assertEquals(200, response.getStatus());
+        return response;
+    }
+
+    private String gunzip(byte[] bytes) throws Exception {
+        byte[] content = ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(bytes)));
+        return new String(content, Charsets.UTF_8);
+    }
+
+    /**
+     * A cached resource goes out with its gzipped variant, which must not be compressed again by the filter.
+     */
+    @Test
+    public void testCachedResourceCompressedOnce() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = get(NONCE);
+
+            assertEquals("gzip", response.getHeader("Content-Encoding"));
+            assertEquals(content, gunzip(response.getContentAsByteArray()));
+        }
+    }
+
+    /**
+     * A resource under another nonce isn't cached, but still goes out gzipped once.
+     */
+    @Test
+    public void testUncachedResourceCompressedOnce() throws Exception {
+        MockHttpServletResponse response = get("other");
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(content, gunzip(response.getContentAsByteArray()));
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.http;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.ServletConfig;
+
+import org.auraframework.adapter.ConfigAdapter;
+import org.auraframework.adapter.ExceptionAdapter;
+import org.auraframework.adapter.ServletUtilAdapter;
+import org.auraframework.instance.Action;
+import org.auraframework.service.ContextService;
+import org.auraframework.service.LoggingService;
+import org.auraframework.service.SerializationService;
+import org.auraframework.service.ServerService;
+import org.auraframework.system.AuraContext;
+import org.auraframework.system.AuraContext.Format;
+import org.auraframework.system.LoggingContext;
+import org.auraframework.system.Message;
+import org.auraframework.util.IOUtil;
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletConfig;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Unit tests for running actions on the action executor.
+ */
+public class AuraServletUnitTest extends UnitTestCase {
+
+    private ContextService contextService;
+    private LoggingService loggingService;
+    private ServerService serverService;
+    private AuraContext context;
+    private LoggingContext loggingContext;
+    private ConfigAdapter configAdapter;
+    private SerializationService serializationService;
+    private AuraServlet servlet;
+
+    private AuraServlet createServlet(String asyncActions, String threads, String queueDepth) throws Exception {
+        AuraServlet servlet = new AuraServlet() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void processInjection(ServletConfig config) {
+                // no spring here, everything is set below
+            }
+        };
+
+        context = Mockito.mock(AuraContext.class);
+        Mockito.doReturn(Format.JSON).when(context).getFormat();
+        Mockito.doReturn("fwuid").when(context).getFrameworkUID();
+        contextService = Mockito.mock(ContextService.class);
+        Mockito.doReturn(context).when(contextService).getCurrentContext();
+        loggingContext = Mockito.mock(LoggingContext.class);
+        loggingService = Mockito.mock(LoggingService.class);
+        Mockito.doReturn(loggingContext).when(loggingService).getLoggingContext();
+        configAdapter = Mockito.mock(ConfigAdapter.class);
+        Mockito.doReturn("fwuid").when(configAdapter).getAuraFrameworkNonce();
+        serializationService = Mockito.mock(SerializationService.class);
+        Mockito.doReturn(new Message(new ArrayList<Action>())).when(serializationService)
+                .read(Mockito.any(Reader.class), Mockito.eq(Message.class));
+        serverService = Mockito.mock(ServerService.class);
+
+        servlet.setContextService(contextService);
+        servlet.setLoggingService(loggingService);
+        servlet.setConfigAdapter(configAdapter);
+        servlet.setSerializationService(serializationService);
+        servlet.setServerService(serverService);
+        servlet.setExceptionAdapter(Mockito.mock(ExceptionAdapter.class));
+        servlet.setServletUtilAdapter(Mockito.mock(ServletUtilAdapter.class));
+
+        MockServletConfig config = new MockServletConfig();
+        if (asyncActions != null) {
+            config.addInitParameter(AuraServlet.ASYNC_ACTIONS_PARAM, asyncActions);
+        }
+        if (threads != null) {
+            config.addInitParameter(AuraServlet.ASYNC_ACTION_THREADS_PARAM, threads);
+        }
+        if (queueDepth != null) {
+            config.addInitParameter(AuraServlet.ASYNC_ACTION_QUEUE_DEPTH_PARAM, queueDepth);
+        }
+        servlet.init(config);
+        return servlet;
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        if (servlet != null) {
+            servlet.destroy();
+        }
+        super.tearDown();
+    }
+
+    private static MockHttpServletRequest createPost(boolean asyncSupported) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/aura");
+        request.addParameter("message", "{\"actions\":[]}");
+        request.addParameter("aura.token", "token");
+        request.setAsyncSupported(asyncSupported);
+        return request;
+    }
+
+    /**
+     * Record the thread the actions run on, and wait for them to be let go if a latch is given.
+     */
+    private void recordRun(final AtomicReference<Thread> thread, final CountDownLatch started,
+            final CountDownLatch release) throws Exception {
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                thread.set(Thread.currentThread());
+                started.countDown();
+                if (release != null) {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        }).when(serverService).run(Mockito.any(Message.class), Mockito.any(AuraContext.class),
+                Mockito.any(Writer.class), Mockito.<Map<?, ?>> any());
+    }
+
+    private static void waitForCompletion(MockHttpServletRequest request) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (request.isAsyncStarted() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse("Async request never completed", request.isAsyncStarted());
+    }
+
+    @Test
+    public void testPostRunsOnRequestThreadByDefault() throws Exception {
+        servlet = createServlet(null, null, null);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        recordRun(thread, new CountDownLatch(1), null);
+        MockHttpServletRequest request = createPost(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        servlet.doPost(request, response);
+
+        assertSame(Thread.currentThread(), thread.get());
+        assertFalse(request.isAsyncStarted());
+        assertNull(request.getAttribute(AuraServlet.ASYNC_ACTIONS_ATTRIBUTE));
+        assertTrue(response.getContentAsString().startsWith("while(1);"));
+    }
+
+    @Test
+    public void testPostRunsOnRequestThreadWhenAsyncUnsupported() throws Exception {
+        servlet = createServlet("true", null, null);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        recordRun(thread, new CountDownLatch(1), null);
+
+        servlet.doPost(createPost(false), new MockHttpServletResponse());
+
+        assertSame(Thread.currentThread(), thread.get());
+    }
+
+    @Test
+    public void testAsyncPostHandsContextToExecutor() throws Exception {
+        servlet = createServlet("true", null, null);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        recordRun(thread, started, null);
+        MockHttpServletRequest request = createPost(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        servlet.doPost(request, response);
+
+        assertEquals(Boolean.TRUE, request.getAttribute(AuraServlet.ASYNC_ACTIONS_ATTRIBUTE));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        waitForCompletion(request);
+
+        assertNotSame(Thread.currentThread(), thread.get());
+        assertTrue(thread.get().getName(), thread.get().getName().startsWith("AuraAction-"));
+        Mockito.verify(contextService).attachContext(context, loggingContext);
+        Mockito.verify(loggingService).flush();
+        Mockito.verify(contextService).endContext();
+        assertTrue(response.getContentAsString().startsWith("while(1);"));
+    }
+
+    @Test
+    public void testAsyncPostRejectedWhenQueueFull() throws Exception {
+        servlet = createServlet("true", "1", "1");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        recordRun(new AtomicReference<Thread>(), started, release);
+
+        MockHttpServletRequest running = createPost(true);
+        servlet.doPost(running, new MockHttpServletResponse());
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        MockHttpServletRequest queued = createPost(true);
+        servlet.doPost(queued, new MockHttpServletResponse());
+
+        MockHttpServletRequest rejected = createPost(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        servlet.doPost(rejected, response);
+
+        assertEquals(503, response.getStatus());
+        assertFalse(rejected.isAsyncStarted());
+        assertNull("The context filter should finish a rejected request",
+                rejected.getAttribute(AuraServlet.ASYNC_ACTIONS_ATTRIBUTE));
+
+        release.countDown();
+        waitForCompletion(running);
+        waitForCompletion(queued);
+    }
+
+    @Test
+    public void testPostReadsMessageFromBody() throws Exception {
+        servlet = createServlet(null, null, null);
+        final String body = "{\"actions\":[{\"id\":\"1;a\",\"params\":{\"text\":\"\u00e9t\u00e9\"}}]}";
+        final AtomicReference<String> read = new AtomicReference<>();
+        Mockito.doAnswer(new Answer<Message>() {
+            @Override
+            public Message answer(InvocationOnMock invocation) throws Throwable {
+                read.set(IOUtil.readText((Reader) invocation.getArguments()[0]));
+                return new Message(new ArrayList<Action>());
+            }
+        }).when(serializationService).read(Mockito.any(Reader.class), Mockito.eq(Message.class));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/aura");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(Charsets.UTF_8));
+        request.addHeader(AuraServlet.TOKEN_HEADER, "token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        servlet.doPost(request, response);
+
+        assertEquals(body, read.get());
+        Mockito.verify(configAdapter).validateCSRFToken("token");
+        Mockito.verify(serverService).run(Mockito.any(Message.class), Mockito.any(AuraContext.class),
+                Mockito.any(Writer.class), Mockito.<Map<?, ?>> any());
+        assertTrue(response.getContentAsString().startsWith("while(1);"));
+    }
+
+    @Test
+    public void testBodyOfUnknownFrameworkIsOnlyReadIfItReportsFailedActions() throws Exception {
+        servlet = createServlet(null, null, null);
+        Mockito.doReturn("UNKNOWN").when(context).getFrameworkUID();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/aura");
+        request.setContentType("application/json");
+        request.setContent("{\"actions\":[{\"id\":\"1;a\",\"descriptor\":\"c.other\"}]}".getBytes(Charsets.UTF_8));
+        request.addHeader(AuraServlet.TOKEN_HEADER, "token");
+
+        servlet.doPost(request, new MockHttpServletResponse());
+
+        Mockito.verify(serializationService, Mockito.never()).read(Mockito.any(Reader.class),
+                Mockito.eq(Message.class));
+
+        request = new MockHttpServletRequest("POST", "/aura");
+        request.setContentType("application/json");
+        request.setContent(("{\"actions\":[{\"id\":\"1;a\",\"descriptor\":"
+                + "\"aura://ComponentController/ACTION$reportFailedAction\"}]}").getBytes(Charsets.UTF_8));
+        request.addHeader(AuraServlet.TOKEN_HEADER, "token");
+
+        servlet.doPost(request, new MockHttpServletResponse());
+
+        Mockito.verify(serializationService).read(Mockito.any(Reader.class), Mockito.eq(Message.class));
+    }
+}
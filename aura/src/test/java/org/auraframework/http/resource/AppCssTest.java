@@ -17,6 +17,8 @@
 package org.auraframework.http.resource;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
@@ -36,6 +38,9 @@ import org.auraframework.system.AuraContext.Format;
 import org.auraframework.util.test.util.UnitTestCase;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import java.io.Writer;
@@ -102,6 +107,7 @@ public class AppCssTest extends UnitTestCase {
         // Knock off the known calls. These are mocked above, and are internal implementation dependent.
         verify(servletUtilAdapter, times(1)).verifyTopLevel(any(HttpServletRequest.class),
                 any(HttpServletResponse.class), any(AuraContext.class));
+        verify(serverService, times(1)).getAppCssCacheKey();
         verify(serverService, times(1)).writeAppCss(eq(dependencies), any(Writer.class));
 
         // And this is the expected call. This must stay.
@@ -166,4 +172,45 @@ public class AppCssTest extends UnitTestCase {
         // Assert
         assertEquals("text/css", response.getContentType());
     }
+
+    /**
+     * The gzipped app.css is generated once per cache key, and goes out with its encoding and length.
+     */
+    @Test
+    public void testWriteCompressedWhenAccepted() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        AppCss appCss = new AppCss();
+        appCss.setServletUtilAdapter(servletUtilAdapter);
+        appCss.setServerService(serverService);
+        appCss.setCachingService(AppJsTest.mockCachingService());
+
+        Set<DefDescriptor<?>> dependencies = new HashSet<>();
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(dependencies);
+        when(serverService.getAppCssCacheKey()).thenReturn("key");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((Writer) invocation.getArguments()[1]).append(".a{color:red}");
+                return null;
+            }
+        }).when(serverService).writeAppCssUncached(same(dependencies), any(Writer.class));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            appCss.write(request, response, null);
+
+            assertEquals("gzip", response.getHeader("Content-Encoding"));
+            // the length is only known once the output is kept
+            if (i > 0) {
+                assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+            }
+            assertEquals(".a{color:red}", AppJsTest.gunzip(response.getContentAsByteArray()));
+        }
+        verify(serverService, times(1)).writeAppCssUncached(same(dependencies), any(Writer.class));
+    }
 }
@@ -17,9 +17,11 @@
 package org.auraframework.http.resource;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -28,24 +30,42 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPInputStream;
 
+import javax.servlet.Filter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.auraframework.adapter.ExceptionAdapter;
 import org.auraframework.adapter.ServletUtilAdapter;
+import org.auraframework.cache.Cache;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.http.resource.AuraResourceImpl.AuraResourceException;
+import org.auraframework.service.CachingService;
 import org.auraframework.service.ServerService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
+import org.auraframework.test.util.CompressingFilterUtil;
 import org.auraframework.util.test.util.UnitTestCase;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+
 /**
  * Simple (non-integration) test case for {@link AppJs}, most useful for exercising hard-to-reach error
  * conditions. I would like this test to be in the "aura" module (vice "aura-impl"), but the configuration there isn't
@@ -110,6 +130,7 @@ public class AppJsTest extends UnitTestCase {
         // Knock off the known calls. These are mocked above, and are internal implementation dependent.
         verify(servletUtilAdapter, times(1)).verifyTopLevel(any(HttpServletRequest.class),
                 any(HttpServletResponse.class), any(AuraContext.class));
+        verify(serverService, times(1)).getDefinitionsCacheKey();
         verify(serverService, times(1)).writeDefinitions(same(dependencies), any(PrintWriter.class));
 
         // Make sure nothing else happens.
@@ -170,4 +191,368 @@ public class AppJsTest extends UnitTestCase {
 
         assertEquals("text/javascript", response.getContentType());
     }
+
+    /**
+     * The gzipped app.js is generated once per cache key, and goes out with its encoding and length.
+     */
+    @Test
+    public void testWriteCompressedWhenAccepted() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        AppJs appJs = new AppJs();
+        appJs.setServletUtilAdapter(servletUtilAdapter);
+        appJs.setServerService(serverService);
+        appJs.setCachingService(mockCachingService());
+
+        Set<DefDescriptor<?>> dependencies = new HashSet<>();
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(dependencies);
+        when(serverService.getDefinitionsCacheKey()).thenReturn("key");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((Writer) invocation.getArguments()[1]).append("/*definitions*/");
+                return null;
+            }
+        }).when(serverService).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "deflate, gzip;q=0.8");
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            appJs.write(request, response, null);
+
+            assertEquals("gzip", response.getHeader("Content-Encoding"));
+            // the length is only known once the output is kept
+            if (i > 0) {
+                assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+            }
+            String content = gunzip(response.getContentAsByteArray());
+            assertTrue(content, content.startsWith("\"undefined\"===typeof Aura"));
+            assertTrue(content, content.contains("/*definitions*/"));
+            assertTrue(content, content.endsWith("Aura.appDefsReady&&Aura.appDefsReady();"));
+        }
+        verify(serverService, times(1)).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+    }
+
+    /**
+     * The gzipped app.js must not be compressed again by the compression filter the web.xml puts in front of
+     * everything.
+     */
+    @Test
+    public void testCompressedOnceThroughCompressingFilter() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        final AppJs appJs = new AppJs();
+        appJs.setServletUtilAdapter(servletUtilAdapter);
+        appJs.setServerService(serverService);
+        appJs.setCachingService(mockCachingService());
+
+        Set<DefDescriptor<?>> dependencies = new HashSet<>();
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(dependencies);
+        when(serverService.getDefinitionsCacheKey()).thenReturn("key");
+        // enough text that doesn't compress well for the gzipped bytes to be over the filter's threshold
+        Random random = new Random(42);
+        StringBuilder definitions = new StringBuilder();
+        while (definitions.length() < 8192) {
+            definitions.append(Long.toString(random.nextLong(), 36));
+        }
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((Writer) invocation.getArguments()[1]).append(definitions);
+                return null;
+            }
+        }).when(serverService).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+
+        Filter filter = CompressingFilterUtil.createCompressingFilter();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/auraResource");
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response,
+                (req, res) -> appJs.write((HttpServletRequest) req, (HttpServletResponse) res, null));
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        String content = gunzip(response.getContentAsByteArray());
+        assertTrue(content, content.startsWith("\"undefined\"===typeof Aura"));
+        assertTrue(content.contains(definitions));
+    }
+
+    /**
+     * Without a cache key there's nothing to keep the compressed variant under, so it goes out as is.
+     */
+    @Test
+    public void testWriteUncompressedWhenNotCached() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        AppJs appJs = new AppJs();
+        appJs.setServletUtilAdapter(servletUtilAdapter);
+        appJs.setServerService(serverService);
+        appJs.setCachingService(mockCachingService());
+
+        Set<DefDescriptor<?>> dependencies = new HashSet<>();
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(dependencies);
+        when(serverService.getDefinitionsCacheKey()).thenReturn(null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        appJs.write(request, response, null);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertTrue(response.getContentAsString().endsWith("Aura.appDefsReady&&Aura.appDefsReady();"));
+        verify(serverService, times(1)).writeDefinitions(same(dependencies), any(PrintWriter.class));
+    }
+
+    /**
+     * A client that refuses gzip gets the plain text.
+     */
+    @Test
+    public void testWriteUncompressedWhenGzipRefused() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        AppJs appJs = new AppJs();
+        appJs.setServletUtilAdapter(servletUtilAdapter);
+        appJs.setServerService(serverService);
+        appJs.setCachingService(mockCachingService());
+
+        Set<DefDescriptor<?>> dependencies = new HashSet<>();
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(dependencies);
+
+        when(serverService.getDefinitionsCacheKey()).thenReturn("key");
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip;q=0, deflate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        appJs.write(request, response, null);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        verify(serverService, times(1)).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+    }
+
+    /**
+     * Only the gzipped app.js is kept per cache key. A client that doesn't accept gzip gets it decompressed, along with
+     * its length, and nothing is generated again for either.
+     */
+    @Test
+    public void testWritePlainFromCompressed() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        AppJs appJs = new AppJs();
+        appJs.setServletUtilAdapter(servletUtilAdapter);
+        appJs.setServerService(serverService);
+        appJs.setCachingService(mockCachingService());
+
+        Set<DefDescriptor<?>> dependencies = new HashSet<>();
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(dependencies);
+        when(serverService.getDefinitionsCacheKey()).thenReturn("key");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((Writer) invocation.getArguments()[1]).append("/*d\u00e9finitions*/");
+                return null;
+            }
+        }).when(serverService).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            appJs.write(new MockHttpServletRequest(), response, null);
+
+            byte[] bytes = response.getContentAsByteArray();
+            // the length is only known once the output is kept
+            if (i > 0) {
+                assertEquals(bytes.length, response.getContentLength());
+            }
+            String content = new String(bytes, Charsets.UTF_8);
+            assertTrue(content, content.startsWith("\"undefined\"===typeof Aura"));
+            assertTrue(content, content.contains("/*d\u00e9finitions*/"));
+            assertTrue(content, content.endsWith("Aura.appDefsReady&&Aura.appDefsReady();"));
+        }
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        appJs.write(request, response, null);
+
+        assertTrue(gunzip(response.getContentAsByteArray()).contains("/*d\u00e9finitions*/"));
+        verify(serverService, times(1)).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+    }
+
+    /**
+     * On a miss, app.js goes to the client as it is written. It is only kept once all of it is written, so a failure
+     * part way through leaves nothing in the cache.
+     */
+    @Test
+    public void testStreamedWhileGenerated() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        AppJs appJs = new AppJs();
+        appJs.setServletUtilAdapter(servletUtilAdapter);
+        appJs.setServerService(serverService);
+        appJs.setExceptionAdapter(mock(ExceptionAdapter.class));
+        appJs.setCachingService(mockCachingService());
+
+        Set<DefDescriptor<?>> dependencies = new HashSet<>();
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(dependencies);
+        when(serverService.getDefinitionsCacheKey()).thenReturn("key");
+
+        final MockHttpServletResponse failed = new MockHttpServletResponse();
+        final RuntimeException expectedException = new RuntimeException();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                Writer out = (Writer) invocation.getArguments()[1];
+                for (int i = 0; i < 4096; i++) {
+                    out.append("/*definition*/");
+                }
+                assertTrue(failed.getContentAsByteArray().length > 0);
+                throw expectedException;
+            }
+        }).doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((Writer) invocation.getArguments()[1]).append("/*definitions*/");
+                return null;
+            }
+        }).when(serverService).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+
+        appJs.write(new MockHttpServletRequest(), failed, null);
+
+        verify(servletUtilAdapter, times(1)).handleServletException(same(expectedException), eq(false),
+                any(AuraContext.class), any(HttpServletRequest.class), same(failed), anyBoolean());
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            appJs.write(new MockHttpServletRequest(), response, null);
+
+            String content = response.getContentAsString();
+            assertTrue(content, content.contains("/*definitions*/"));
+            assertFalse(content, content.contains("/*definition*/"));
+        }
+        verify(serverService, times(2)).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+    }
+
+    /**
+     * A client holding the current app.js gets a 304, without anything being generated.
+     */
+    @Test
+    public void testNotModified() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        AppJs appJs = new AppJs();
+        appJs.setServletUtilAdapter(servletUtilAdapter);
+        appJs.setServerService(serverService);
+        appJs.setCachingService(mockCachingService());
+
+        Set<DefDescriptor<?>> dependencies = new HashSet<>();
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(dependencies);
+        when(serverService.getDefinitionsCacheKey()).thenReturn("key");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        appJs.write(new MockHttpServletRequest(), response, null);
+        String etag = (String) response.getHeaderValue("ETag");
+        assertNotNull(etag);
+        assertEquals(200, response.getStatus());
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"other\", " + etag);
+        response = new MockHttpServletResponse();
+        appJs.write(request, response, null);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeaderValue("ETag"));
+        assertEquals(0, response.getContentAsByteArray().length);
+        verify(serverService, times(1)).writeDefinitionsUncached(same(dependencies), any(Writer.class));
+
+        // a different app uid, mode, etc. makes for a different key
+        when(serverService.getDefinitionsCacheKey()).thenReturn("otherKey");
+        response = new MockHttpServletResponse();
+        appJs.write(request, response, null);
+
+        assertEquals(200, response.getStatus());
+        assertFalse(etag.equals(response.getHeaderValue("ETag")));
+    }
+
+    /**
+     * The gzipped and plain variants are different bytes, so they can't share a strong validator.
+     */
+    @Test
+    public void testValidatorDependsOnEncoding() throws Exception {
+        ServletUtilAdapter servletUtilAdapter = mock(ServletUtilAdapter.class);
+        ServerService serverService = mock(ServerService.class);
+        AppJs appJs = new AppJs();
+        appJs.setServletUtilAdapter(servletUtilAdapter);
+        appJs.setServerService(serverService);
+        appJs.setCachingService(mockCachingService());
+
+        when(servletUtilAdapter.verifyTopLevel(any(HttpServletRequest.class), any(HttpServletResponse.class),
+                any(AuraContext.class))).thenReturn(new HashSet<DefDescriptor<?>>());
+        when(serverService.getDefinitionsCacheKey()).thenReturn("key");
+
+        MockHttpServletResponse plain = new MockHttpServletResponse();
+        appJs.write(new MockHttpServletRequest(), plain, null);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse gzipped = new MockHttpServletResponse();
+        appJs.write(request, gzipped, null);
+
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+        assertFalse(plain.getHeaderValue("ETag").equals(gzipped.getHeaderValue("ETag")));
+    }
+
+    /**
+     * A caching service whose compressed strings cache is a plain map.
+     */
+    static CachingService mockCachingService() throws Exception {
+        Cache<String, byte[]> compressed = mockCache();
+        CachingService cachingService = mock(CachingService.class);
+        when(cachingService.getCompressedStringsCache()).thenReturn(compressed);
+        return cachingService;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<String, byte[]> mockCache() throws Exception {
+        final Map<String, byte[]> entries = new HashMap<>();
+        Cache<String, byte[]> cache = mock(Cache.class);
+        when(cache.get(anyString(), any(Callable.class))).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                String key = (String) invocation.getArguments()[0];
+                if (!entries.containsKey(key)) {
+                    entries.put(key, ((Callable<byte[]>) invocation.getArguments()[1]).call());
+                }
+                return entries.get(key);
+            }
+        });
+        when(cache.getIfPresent(anyString())).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                return entries.get(invocation.getArguments()[0]);
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                entries.put((String) invocation.getArguments()[0], (byte[]) invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(cache).put(anyString(), any(byte[].class));
+        return cache;
+    }
+
+    static String gunzip(byte[] bytes) throws Exception {
+        return CharStreams.toString(new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(bytes)),
+                Charsets.UTF_8));
+    }
 }
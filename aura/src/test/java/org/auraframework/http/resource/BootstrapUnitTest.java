@@ -15,8 +15,10 @@
  */
 package org.auraframework.http.resource;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -24,24 +26,41 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.auraframework.adapter.ConfigAdapter;
 import org.auraframework.adapter.ServletUtilAdapter;
+import org.auraframework.builder.CacheBuilder;
+import org.auraframework.cache.Cache;
 import org.auraframework.def.ApplicationDef;
 import org.auraframework.def.BaseComponentDef;
+import org.auraframework.def.ComponentDef;
 import org.auraframework.def.DefDescriptor;
 import org.auraframework.def.DefDescriptor.DefType;
+import org.auraframework.def.Definition;
 import org.auraframework.instance.InstanceStack;
+import org.auraframework.service.CachingService;
 import org.auraframework.service.ContextService;
 import org.auraframework.service.DefinitionService;
 import org.auraframework.service.InstanceService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.util.json.DefaultJsonSerializationContext;
+import org.auraframework.util.json.Json;
+import org.auraframework.util.json.JsonSerializer;
+import org.auraframework.util.json.JsonSerializers.NoneSerializer;
 import org.auraframework.util.test.util.UnitTestCase;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.net.HttpHeaders;
 
 public class BootstrapUnitTest extends UnitTestCase {
+    private InstanceService instanceService;
+    private DefDescriptor<ApplicationDef> appDescriptor;
+
     @Test
     public void testName() {
         assertEquals("bootstrap.js", new Bootstrap().getName());
@@ -237,6 +256,224 @@ public class BootstrapUnitTest extends UnitTestCase {
                 Mockito.eq(response));
     }
 
+    @Test
+    public void testWriteNotModifiedForPubliclyCachedBootstrap() throws Exception {
+        Bootstrap bootstrap = new Bootstrap() {
+            @Override
+            protected Map<String, Object> getComponentAttributes(HttpServletRequest request) {
+                return Maps.newHashMap();
+            }
+
+            @Override
+            public Boolean loadLabels() {
+                return true;
+            }
+        };
+
+        ConfigAdapter configAdapter = Mockito.mock(ConfigAdapter.class);
+        Mockito.doReturn(false).when(configAdapter).isClientAppcacheEnabled();
+        Mockito.doReturn(true).when(configAdapter).validateBootstrap(Mockito.anyString());
+        bootstrap.setConfigAdapter(configAdapter);
+
+        DefinitionService definitionService = Mockito.mock(DefinitionService.class);
+        bootstrap.setDefinitionService(definitionService);
+
+        ServletUtilAdapter servletUtilAdapter = Mockito.mock(ServletUtilAdapter.class);
+        bootstrap.setServletUtilAdapter(servletUtilAdapter);
+
+        InstanceService instanceService = Mockito.mock(InstanceService.class);
+        bootstrap.setInstanceService(instanceService);
+
+        @SuppressWarnings("unchecked")
+        DefDescriptor<? extends BaseComponentDef> appDescriptor = Mockito.mock(DefDescriptor.class);
+        ApplicationDef appDef = Mockito.mock(ApplicationDef.class);
+        Mockito.doReturn(DefType.APPLICATION).when(appDescriptor).getDefType();
+        Mockito.doReturn(appDef).when(definitionService).getDefinition(appDescriptor);
+        Mockito.doReturn(600).when(appDef).getBootstrapPublicCacheExpiration();
+        Mockito.doReturn(appDescriptor).when(definitionService).getDefDescriptor(Mockito.anyString(),
+                Mockito.any());
+        Mockito.doReturn("appUid").when(definitionService).getUid(null, appDescriptor);
+
+        AuraContext context = Mockito.mock(AuraContext.class);
+        Mockito.doReturn(appDescriptor).when(context).getApplicationDescriptor();
+        Mockito.doReturn(new DefaultJsonSerializationContext(true, true)).when(context).getJsonSerializationContext();
+        Mockito.doReturn(Mockito.mock(InstanceStack.class)).when(context).getInstanceStack();
+        Mockito.doReturn("fwUid").when(context).getFrameworkUID();
+
+        ContextService contextService = Mockito.mock(ContextService.class);
+        Mockito.doReturn(context).when(contextService).getCurrentContext();
+        bootstrap.setContextService(contextService);
+        bootstrap.initManifest();
+
+        MockHttpServletRequest firstRequest = new MockHttpServletRequest();
+        firstRequest.setParameter("jwt", "jwtToken");
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        bootstrap.write(firstRequest, first, context);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull("Publicly cached bootstrap should have an ETag", etag);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("jwt", "jwtToken");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        bootstrap.write(request, second, context);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.getStatus());
+        assertEquals("", second.getContentAsString());
+        Mockito.verify(instanceService, Mockito.times(1)).getInstance(Mockito.eq(appDescriptor),
+                Mockito.<Map<String, Object>>any());
+    }
+
+    @Test
+    public void testCacheHitWritesWhatAMissWrites() throws Exception {
+        List<String> written = writeBootstrapThreeTimes(false);
+
+        assertTrue(written.get(0), written.get(0).contains("\"md5\":\""));
+        assertTrue(written.get(0), written.get(0).contains("\"context\":[\"markup://test:app\"]"));
+        assertEquals(written.get(0), written.get(1));
+        assertEquals(written.get(0), written.get(2));
+        // once without the cache, once for the miss.
+        Mockito.verify(instanceService, Mockito.times(2)).getInstance(Mockito.eq(appDescriptor),
+                Mockito.<Map<String, Object>>any());
+    }
+
+    @Test
+    public void testDataNotCachedIfCreatingTheAppAddsToTheContext() throws Exception {
+        List<String> written = writeBootstrapThreeTimes(true);
+
+        assertTrue(written.get(0), written.get(0).contains("\"markup://test:provided\""));
+        assertEquals(written.get(0), written.get(1));
+        assertEquals(written.get(0), written.get(2));
+        Mockito.verify(instanceService, Mockito.times(3)).getInstance(Mockito.eq(appDescriptor),
+                Mockito.<Map<String, Object>>any());
+    }
+
+    /**
+     * Write a publicly cached bootstrap once without the bootstrap cache, then twice with it, each with a context of
+     * its own that writes the local definitions it ends up with.
+     *
+     * @param provides whether creating the app adds a definition to the context, as a provider would.
+     * @return what each request wrote.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> writeBootstrapThreeTimes(boolean provides) throws Exception {
+        Bootstrap bootstrap = new Bootstrap() {
+            @Override
+            protected Map<String, Object> getComponentAttributes(HttpServletRequest request) {
+                return Maps.newHashMap();
+            }
+        };
+
+        ConfigAdapter configAdapter = Mockito.mock(ConfigAdapter.class);
+        Mockito.doReturn(true).when(configAdapter).validateBootstrap(Mockito.anyString());
+        bootstrap.setConfigAdapter(configAdapter);
+        bootstrap.setServletUtilAdapter(Mockito.mock(ServletUtilAdapter.class));
+        final ContextService contextService = Mockito.mock(ContextService.class);
+        bootstrap.setContextService(contextService);
+
+        appDescriptor = Mockito.mock(DefDescriptor.class);
+        final ApplicationDef appDef = Mockito.mock(ApplicationDef.class);
+        Mockito.doReturn(DefType.APPLICATION).when(appDescriptor).getDefType();
+        Mockito.doReturn("markup://test:app").when(appDescriptor).getQualifiedName();
+        Mockito.doReturn(600).when(appDef).getBootstrapPublicCacheExpiration();
+        final DefDescriptor<ComponentDef> providedDescriptor = Mockito.mock(DefDescriptor.class);
+        Mockito.doReturn("markup://test:provided").when(providedDescriptor).getQualifiedName();
+
+        DefinitionService definitionService = Mockito.mock(DefinitionService.class);
+        bootstrap.setDefinitionService(definitionService);
+        Mockito.doReturn(appDescriptor).when(definitionService).getDefDescriptor(Mockito.anyString(),
+                Mockito.any());
+        Mockito.doReturn("appUid").when(definitionService).getUid(null, appDescriptor);
+        // getting the app loads it into the context.
+        Mockito.doAnswer(invocation -> {
+            contextService.getCurrentContext().addLocalDef(appDescriptor, appDef);
+            return appDef;
+        }).when(definitionService).getDefinition(appDescriptor);
+
+        instanceService = Mockito.mock(InstanceService.class);
+        bootstrap.setInstanceService(instanceService);
+        if (provides) {
+            Mockito.doAnswer(invocation -> {
+                contextService.getCurrentContext().addLocalDef(providedDescriptor, Mockito.mock(ComponentDef.class));
+                return null;
+            }).when(instanceService).getInstance(Mockito.eq(appDescriptor), Mockito.<Map<String, Object>>any());
+        }
+        bootstrap.initManifest();
+
+        List<String> written = Lists.newArrayList();
+        for (int i = 0; i < 3; i++) {
+            if (i == 1) {
+                bootstrap.setCachingService(createCachingService());
+                bootstrap.initBootstrapCache();
+            }
+            AuraContext context = createContext(appDescriptor);
+            Mockito.doReturn(context).when(contextService).getCurrentContext();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            bootstrap.write(createBootstrapRequest(), response, context);
+            written.add(response.getContentAsString());
+        }
+        return written;
+    }
+
+    /**
+     * A context that holds local definitions and is written as the names of those.
+     */
+    @SuppressWarnings("unchecked")
+    private static AuraContext createContext(DefDescriptor<ApplicationDef> appDescriptor) {
+        final Map<DefDescriptor<? extends Definition>, Definition> localDefs = Maps.newLinkedHashMap();
+        AuraContext context = Mockito.mock(AuraContext.class);
+        Mockito.doReturn(appDescriptor).when(context).getApplicationDescriptor();
+        Mockito.doReturn(Mockito.mock(InstanceStack.class)).when(context).getInstanceStack();
+        Mockito.doReturn("fwUid").when(context).getFrameworkUID();
+        Mockito.doAnswer(invocation -> localDefs.put((DefDescriptor<? extends Definition>) invocation.getArguments()[0],
+                (Definition) invocation.getArguments()[1])).when(context).addLocalDef(Mockito.any(), Mockito.any());
+        Mockito.doAnswer(invocation -> Maps.newHashMap(localDefs)).when(context).filterLocalDefs(Mockito.any());
+        final JsonSerializer<Object> contextSerializer = new NoneSerializer<Object>() {
+            @Override
+            public void serialize(Json json, Object value) throws IOException {
+                json.writeArrayBegin();
+                for (DefDescriptor<?> descriptor : localDefs.keySet()) {
+                    json.writeArrayEntry(descriptor.getQualifiedName());
+                }
+                json.writeArrayEnd();
+            }
+        };
+        Mockito.doReturn(new DefaultJsonSerializationContext(false, true) {
+            @Override
+            public JsonSerializer<Object> getSerializer(Object o) {
+                return o instanceof AuraContext ? contextSerializer : super.getSerializer(o);
+            }
+        }).when(context).getJsonSerializationContext();
+        return context;
+    }
+
+    private static MockHttpServletRequest createBootstrapRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setParameter("jwt", "jwtToken");
+        return request;
+    }
+
+    /**
+     * A caching service whose builder builds a cache on a plain map.
+     */
+    @SuppressWarnings("unchecked")
+    private static CachingService createCachingService() {
+        final Map<Object, Object> map = Maps.newHashMap();
+        final Cache<Object, Object> cache = Mockito.mock(Cache.class);
+        Mockito.doAnswer(invocation -> map.get(invocation.getArguments()[0])).when(cache).getIfPresent(Mockito.any());
+        Mockito.doAnswer(invocation -> map.put(invocation.getArguments()[0], invocation.getArguments()[1]))
+                .when(cache).put(Mockito.any(), Mockito.any());
+        CacheBuilder<Object, Object> builder = Mockito.mock(CacheBuilder.class, new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return invocation.getMethod().getName().equals("build") ? cache : invocation.getMock();
+            }
+        });
+        CachingService cachingService = Mockito.mock(CachingService.class);
+        Mockito.doReturn(builder).when(cachingService).getCacheBuilder();
+        return cachingService;
+    }
+
     /**
      * Verify logic setting cache-related HTTP headers in response.
      * 
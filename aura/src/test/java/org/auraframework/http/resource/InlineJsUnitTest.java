@@ -27,8 +27,10 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -36,6 +38,9 @@ import org.auraframework.adapter.ConfigAdapter;
 import org.auraframework.adapter.ExceptionAdapter;
 import org.auraframework.adapter.LocalizationAdapter;
 import org.auraframework.adapter.ServletUtilAdapter;
+import org.auraframework.def.ApplicationDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.http.resource.AuraResourceImpl.AuraResourceException;
 import org.auraframework.javascript.PreInitJavascript;
 import org.auraframework.service.ContextService;
@@ -46,6 +51,8 @@ import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.system.AuraResource;
 import org.auraframework.throwable.ClientOutOfSyncException;
+import org.auraframework.util.AuraLocale;
+import org.auraframework.util.resource.ResourceLoader;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -202,6 +209,65 @@ public class InlineJsUnitTest {
         assertTrue("Response should not contain beforeFrameworkInit", !content.contains("beforeFrameworkInit"));
     }
 
+    /**
+     * Long cached output is only generated and gzipped once, and kept under the values that validate it.
+     */
+    @Test
+    public void testCompressedOutputKeptWhenLongCached() throws Exception {
+        AuraContext auraContext = Mockito.mock(AuraContext.class);
+        @SuppressWarnings("unchecked")
+        DefDescriptor<ApplicationDef> appDesc = Mockito.mock(DefDescriptor.class);
+        Mockito.when(appDesc.getDefType()).thenReturn(DefType.APPLICATION);
+        Mockito.doReturn(appDesc).when(auraContext).getLoadingApplicationDescriptor();
+        Mockito.when(auraContext.isTestMode()).thenReturn(true);
+        ApplicationDef appDef = Mockito.mock(ApplicationDef.class);
+        Mockito.when(appDef.isOnePageApp()).thenReturn(true);
+        DefinitionService definitionService = Mockito.mock(DefinitionService.class);
+        Mockito.when(definitionService.getDefinition(appDesc)).thenReturn(appDef);
+        Mockito.when(definitionService.getUid(null, appDesc)).thenReturn("uid");
+
+        ServerService serverService = Mockito.mock(ServerService.class);
+        Mockito.doAnswer(invocation -> {
+            ((Appendable) invocation.getArguments()[3]).append("/*template*/");
+            return null;
+        }).when(serverService).writeTemplate(same(auraContext), same(appDef), any(), any(Appendable.class));
+        AuraLocale auraLocale = Mockito.mock(AuraLocale.class);
+        Mockito.when(auraLocale.getLanguageLocale()).thenReturn(Locale.ENGLISH);
+        Mockito.when(auraLocale.getLocale()).thenReturn(Locale.US);
+        LocalizationAdapter localizationAdapter = Mockito.mock(LocalizationAdapter.class);
+        Mockito.when(localizationAdapter.getAuraLocale()).thenReturn(auraLocale);
+        ResourceLoader resourceLoader = Mockito.mock(ResourceLoader.class);
+        Mockito.when(resourceLoader.getResourceAsStream(Mockito.anyString()))
+                .thenReturn(new ByteArrayInputStream(new byte[0]));
+        ConfigAdapter configAdapter = Mockito.mock(ConfigAdapter.class);
+        Mockito.when(configAdapter.validateBootstrap(Mockito.anyString())).thenReturn(true);
+        Mockito.when(configAdapter.getResourceLoader()).thenReturn(resourceLoader);
+
+        InlineJs inline = new InlineJs();
+        inline.setServletUtilAdapter(Mockito.mock(ServletUtilAdapter.class));
+        inline.setContextService(Mockito.mock(ContextService.class));
+        inline.setDefinitionService(definitionService);
+        inline.setServerService(serverService);
+        inline.setRenderingService(Mockito.mock(RenderingService.class));
+        inline.setConfigAdapter(configAdapter);
+        inline.setLocalizationAdapter(localizationAdapter);
+        inline.setCachingService(AppJsTest.mockCachingService());
+        inline.initialize();
+        inline.initManifest();
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            inline.write(request, response, auraContext);
+
+            assertEquals("gzip", response.getHeader("Content-Encoding"));
+            assertTrue(AppJsTest.gunzip(response.getContentAsByteArray()).contains("/*template*/"));
+        }
+        verify(serverService, times(1)).writeTemplate(same(auraContext), same(appDef), any(), any(Appendable.class));
+    }
+
     private InlineJs setupMockInlineJsForPreInit() throws Exception {
         ServletUtilAdapter servletUtilAdapter = PowerMockito.mock(ServletUtilAdapter.class);
         ContextService contextService = PowerMockito.mock(ContextService.class);
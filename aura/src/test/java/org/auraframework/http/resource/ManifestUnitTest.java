@@ -16,20 +16,39 @@
 
 package org.auraframework.http.resource;
 
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.auraframework.adapter.ConfigAdapter;
+import org.auraframework.adapter.ExceptionAdapter;
 import org.auraframework.adapter.ServletUtilAdapter;
+import org.auraframework.def.BaseComponentDef;
+import org.auraframework.def.ComponentDef;
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.def.DefDescriptor.DefType;
 import org.auraframework.http.ManifestUtil;
+import org.auraframework.instance.Component;
+import org.auraframework.service.DefinitionService;
+import org.auraframework.service.InstanceService;
+import org.auraframework.service.RenderingService;
 import org.auraframework.system.AuraContext;
 import org.auraframework.system.AuraContext.Format;
 import org.auraframework.test.util.DummyHttpServletResponse;
 import org.auraframework.util.test.util.UnitTestCase;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.google.common.net.HttpHeaders;
 
 /**
  * Simple (non-integration) test case for {@link Manifest}, most useful for exercising hard-to-reach error
@@ -195,4 +214,68 @@ public class ManifestUnitTest extends UnitTestCase {
 
         assertEquals("text/cache-manifest", response.getContentType());
     }
+
+    /**
+     * A manifest requested again with its ETag gets a 304, even though a new bootstrap token is made on every call. The
+     * token is only made once the manifest is written.
+     */
+    @Test
+    public void testSecondRequestNotModified() throws Exception {
+        ManifestUtil manifestUtil = Mockito.mock(ManifestUtil.class);
+        ServletUtilAdapter servletUtilAdapter = Mockito.mock(ServletUtilAdapter.class);
+        ConfigAdapter configAdapter = Mockito.mock(ConfigAdapter.class);
+        DefinitionService definitionService = Mockito.mock(DefinitionService.class);
+        InstanceService instanceService = Mockito.mock(InstanceService.class);
+        RenderingService renderingService = Mockito.mock(RenderingService.class);
+        AuraContext context = Mockito.mock(AuraContext.class);
+        Manifest manifest = new Manifest();
+        manifest.setManifestUtil(manifestUtil);
+        manifest.setServletUtilAdapter(servletUtilAdapter);
+        manifest.setConfigAdapter(configAdapter);
+        manifest.setDefinitionService(definitionService);
+        manifest.setInstanceService(instanceService);
+        manifest.setRenderingService(renderingService);
+        manifest.setExceptionAdapter(Mockito.mock(ExceptionAdapter.class));
+
+        @SuppressWarnings("unchecked")
+        DefDescriptor<? extends BaseComponentDef> appDescriptor = Mockito.mock(DefDescriptor.class);
+        Mockito.doReturn(DefType.COMPONENT).when(appDescriptor).getDefType();
+        Mockito.doReturn(appDescriptor).when(context).getApplicationDescriptor();
+        Mockito.doReturn("ctx").when(context).getEncodedURL(AuraContext.EncodingStyle.Normal);
+        Mockito.doReturn("appUid").when(definitionService).getUid(null, appDescriptor);
+        Mockito.when(manifestUtil.isManifestEnabled(Mockito.any(HttpServletRequest.class))).thenReturn(true);
+        Mockito.when(manifestUtil.checkManifestCookie(Mockito.any(HttpServletRequest.class),
+                Mockito.any(HttpServletResponse.class))).thenReturn(true);
+        Mockito.when(servletUtilAdapter.getStyles(context)).thenReturn(Collections.<String>emptyList());
+        Mockito.when(servletUtilAdapter.getScripts(Mockito.eq(context), Mockito.anyBoolean(), Mockito.anyBoolean(),
+                Mockito.<Map<String, Object>>any())).thenReturn(Collections.<String>emptyList());
+        Mockito.when(servletUtilAdapter.getFrameworkFallbackScripts(Mockito.eq(context), Mockito.anyBoolean(),
+                Mockito.<Map<String, Object>>any())).thenReturn(Collections.<String>emptyList());
+        Mockito.when(configAdapter.getAuraFrameworkNonce()).thenReturn("fwUid");
+        final AtomicInteger tokens = new AtomicInteger();
+        Mockito.when(configAdapter.generateJwtToken()).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                return "token" + tokens.incrementAndGet();
+            }
+        });
+        Mockito.doReturn(Mockito.mock(Component.class)).when(instanceService).getInstance(
+                Mockito.<DefDescriptor<ComponentDef>>any(), Mockito.<Map<String, Object>>any());
+
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        manifest.write(new MockHttpServletRequest(), first, context);
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull("Manifest should have an ETag", etag);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        manifest.write(request, second, context);
+
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.getStatus());
+        Mockito.verify(renderingService, Mockito.times(1)).render(Mockito.any(Component.class),
+                Mockito.any(Appendable.class));
+        // no token is made for a 304
+        assertEquals(1, tokens.get());
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.http.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.google.common.base.Charsets;
+import com.google.common.net.HttpHeaders;
+
+public class StaticResourceCacheTest extends UnitTestCase {
+
+    private static final String SCRIPT = new String(new char[2000]).replace("\0", "var a = 1;\n");
+
+    @Test
+    public void testEntryContent() throws Exception {
+        StaticResourceCache cache = new StaticResourceCache(1024 * 1024);
+        StaticResourceCache.Entry entry = cache.put("uid:/aura/javascript/aura.js",
+                stream(SCRIPT.getBytes(Charsets.UTF_8)));
+
+        assertSame(entry, cache.get("uid:/aura/javascript/aura.js"));
+        assertTrue("Text should have a gzipped variant", entry.hasGzip());
+        assertEquals(SCRIPT.length(), entry.getLength(false));
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        entry.write(plain, false);
+        assertEquals(SCRIPT, new String(plain.toByteArray(), Charsets.UTF_8));
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        entry.write(gzipped, true);
+        assertEquals(entry.getLength(true), gzipped.size());
+        assertEquals(SCRIPT, AppJsTest.gunzip(gzipped.toByteArray()));
+
+        // concurrent writers each get their own position
+        ByteArrayOutputStream again = new ByteArrayOutputStream();
+        entry.write(again, false);
+        assertEquals(SCRIPT.length(), again.size());
+    }
+
+    @Test
+    public void testETagDependsOnContentAndEncoding() throws Exception {
+        StaticResourceCache cache = new StaticResourceCache(1024 * 1024);
+        StaticResourceCache.Entry first = cache.put("a", stream(SCRIPT.getBytes(Charsets.UTF_8)));
+        StaticResourceCache.Entry same = cache.put("b", stream(SCRIPT.getBytes(Charsets.UTF_8)));
+        StaticResourceCache.Entry other = cache.put("c", stream((SCRIPT + "x").getBytes(Charsets.UTF_8)));
+
+        assertEquals(first.getETag(false), same.getETag(false));
+        assertFalse(first.getETag(false).equals(other.getETag(false)));
+        assertFalse(first.getETag(false).equals(first.getETag(true)));
+        assertTrue(first.getETag(true).startsWith("\"") && first.getETag(true).endsWith("\""));
+    }
+
+    /**
+     * The servlet answers cached resources with the same If-None-Match handling as the other resources.
+     */
+    @Test
+    public void testETagAnswersIfNoneMatch() throws Exception {
+        StaticResourceCache.Entry entry = new StaticResourceCache(1024 * 1024).put("a",
+                stream(SCRIPT.getBytes(Charsets.UTF_8)));
+        String eTag = entry.getETag(false);
+
+        assertTrue(isNotModified(eTag, eTag));
+        assertTrue(isNotModified("\"other\", W/" + eTag, eTag));
+        assertTrue(isNotModified("*", eTag));
+        assertFalse(isNotModified(entry.getETag(true), eTag));
+        assertFalse(isNotModified(null, eTag));
+    }
+
+    private static boolean isNotModified(String ifNoneMatch, String eTag) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean notModified = AuraResourceImpl.checkNotModified(request, response, eTag);
+        assertEquals(eTag, response.getHeader(HttpHeaders.ETAG));
+        assertEquals(notModified, response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED);
+        return notModified;
+    }
+
+    @Test
+    public void testIncompressibleContentHasNoGzip() throws Exception {
+        byte[] noise = new byte[4096];
+        new Random(42).nextBytes(noise);
+        StaticResourceCache.Entry entry = new StaticResourceCache(1024 * 1024).put("png", stream(noise));
+
+        assertFalse(entry.hasGzip());
+        assertEquals(noise.length, entry.getLength(false));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        byte[] noise = new byte[1000];
+        new Random(42).nextBytes(noise);
+        StaticResourceCache cache = new StaticResourceCache(2500);
+        cache.put("a", stream(noise));
+        cache.put("b", stream(noise));
+        cache.get("a");
+        cache.put("c", stream(noise));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(2000, cache.getSize());
+    }
+
+    @Test
+    public void testResourceLargerThanCacheNotCached() throws Exception {
+        StaticResourceCache cache = new StaticResourceCache(10);
+        StaticResourceCache.Entry entry = cache.put("big", stream(SCRIPT.getBytes(Charsets.UTF_8)));
+
+        assertEquals(SCRIPT.length(), entry.getLength(false));
+        assertNull(cache.get("big"));
+        assertEquals(0, cache.getSize());
+    }
+
+    private static ByteArrayInputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+}
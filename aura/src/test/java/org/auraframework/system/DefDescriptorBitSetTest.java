@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.system;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.auraframework.def.DefDescriptor;
+import org.auraframework.util.test.util.UnitTestCase;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class DefDescriptorBitSetTest extends UnitTestCase {
+
+    private static List<DefDescriptor<?>> createDescriptors(int count) {
+        List<DefDescriptor<?>> descriptors = Lists.newArrayList();
+        for (int i = 0; i < count; i++) {
+            descriptors.add(Mockito.mock(DefDescriptor.class));
+        }
+        return descriptors;
+    }
+
+    @Test
+    public void testBehavesAsSet() throws Exception {
+        List<DefDescriptor<?>> descriptors = createDescriptors(3000);
+        DefDescriptorBitSet set = new DefDescriptorBitSet();
+        Set<DefDescriptor<?>> expected = Sets.newHashSet();
+
+        for (int i = 0; i < descriptors.size(); i += 3) {
+            assertTrue(set.add(descriptors.get(i)));
+            expected.add(descriptors.get(i));
+        }
+        assertFalse(set.add(descriptors.get(0)));
+        assertTrue(set.remove(descriptors.get(3)));
+        expected.remove(descriptors.get(3));
+        assertFalse(set.remove(descriptors.get(1)));
+        assertFalse(set.contains(Mockito.mock(DefDescriptor.class)));
+        assertFalse(set.contains("not a descriptor"));
+
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+        assertEquals(expected.hashCode(), set.hashCode());
+        assertEquals(Sets.newHashSet(set), expected);
+    }
+
+    @Test
+    public void testBitwiseOperations() throws Exception {
+        List<DefDescriptor<?>> d = createDescriptors(5);
+        DefDescriptorBitSet a = new DefDescriptorBitSet(Arrays.asList(d.get(0), d.get(1), d.get(2)));
+        DefDescriptorBitSet b = new DefDescriptorBitSet(Arrays.asList(d.get(2), d.get(3)));
+        DefDescriptorBitSet c = new DefDescriptorBitSet(Arrays.asList(d.get(4)));
+
+        assertTrue(a.intersects(b));
+        assertFalse(a.intersects(c));
+
+        DefDescriptorBitSet common = new DefDescriptorBitSet(a);
+        assertTrue(common.retainAll(b));
+        assertEquals(Sets.newHashSet(d.get(2)), common);
+
+        DefDescriptorBitSet union = new DefDescriptorBitSet(a);
+        assertTrue(union.addAll(b));
+        assertFalse(union.addAll(common));
+        assertEquals(4, union.size());
+        assertTrue(union.containsAll(b));
+        assertFalse(union.containsAll(c));
+
+        assertTrue(union.removeAll(a));
+        assertEquals(Sets.newHashSet(d.get(3)), union);
+    }
+
+    @Test
+    public void testIteratorRemove() throws Exception {
+        List<DefDescriptor<?>> d = createDescriptors(3);
+        DefDescriptorBitSet set = new DefDescriptorBitSet(d);
+
+        Iterator<DefDescriptor<?>> iterator = set.iterator();
+        assertSame(d.get(0), iterator.next());
+        iterator.remove();
+        assertSame(d.get(1), iterator.next());
+        assertSame(d.get(2), iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(Sets.newHashSet(d.get(1), d.get(2)), set);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2013 salesforce.com, inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.auraframework.test.util;
+
+import java.io.InputStream;
+
+import javax.servlet.Filter;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.springframework.mock.web.MockFilterConfig;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.planetj.servlet.filter.compression.CompressingFilter;
+
+/**
+ * Sets up the compression filter the way the aura web.xml does, to check what clients get through it.
+ */
+public class CompressingFilterUtil {
+    private static final String WEB_XML = "/aura/webapp/WEB-INF/web.xml";
+    private static final String FILTER_NAME = "CompressingFilter";
+
+    /**
+     * @return a compression filter initialized with the parameters the web.xml gives it.
+     */
+    public static Filter createCompressingFilter() throws Exception {
+        Document webXml;
+        try (InputStream in = CompressingFilterUtil.class.getResourceAsStream(WEB_XML)) {
+            webXml = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+        }
+
+        MockFilterConfig config = new MockFilterConfig(FILTER_NAME);
+        NodeList filters = webXml.getElementsByTagName("filter");
+        for (int i = 0; i < filters.getLength(); i++) {
+            Element filter = (Element) filters.item(i);
+            if (!FILTER_NAME.equals(getText(filter, "filter-name"))) {
+                continue;
+            }
+            NodeList params = filter.getElementsByTagName("init-param");
+            for (int j = 0; j < params.getLength(); j++) {
+                Element param = (Element) params.item(j);
+                config.addInitParameter(getText(param, "param-name"), getText(param, "param-value"));
+            }
+        }
+
+        CompressingFilter filter = new CompressingFilter();
+        filter.init(config);
+        return filter;
+    }
+
+    private static String getText(Element parent, String tagName) {
+        return parent.getElementsByTagName(tagName).item(0).getTextContent().trim();
+    }
+}